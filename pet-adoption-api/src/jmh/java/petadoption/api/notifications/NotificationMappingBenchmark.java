@@ -0,0 +1,70 @@
+package petadoption.api.notifications;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import petadoption.api.user.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping used by every notification listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationMappingBenchmark {
+
+    private NotificationsService notificationsService;
+    private Notifications fromUser;
+    private Notifications fromSystem;
+
+    @Setup
+    public void setUp() {
+        // mapToDTO never touches the repositories
+        notificationsService = new NotificationsService(null, null, null);
+
+        User shelter = new User();
+        shelter.setId(1L);
+        shelter.setEmailAddress("shelter@example.com");
+        User adopter = new User();
+        adopter.setId(2L);
+        adopter.setEmailAddress("adopter@example.com");
+
+        fromUser = new Notifications();
+        fromUser.setId(10L);
+        fromUser.setText("Adoption request for Buddy");
+        fromUser.setCreatedAt(LocalDateTime.now());
+        fromUser.setPetId(5L);
+        fromUser.setAdopterId(adopter.getId());
+        fromUser.setUser(shelter);
+        fromUser.setSender(adopter);
+
+        fromSystem = new Notifications();
+        fromSystem.setId(11L);
+        fromSystem.setText("Welcome!");
+        fromSystem.setCreatedAt(LocalDateTime.now());
+        fromSystem.setUser(adopter);
+    }
+
+    @Benchmark
+    public NotificationDTO mapUserNotification() {
+        return notificationsService.mapToDTO(fromUser);
+    }
+
+    @Benchmark
+    public NotificationDTO mapSystemNotification() {
+        return notificationsService.mapToDTO(fromSystem);
+    }
+}
@@ -0,0 +1,62 @@
+package petadoption.api.pet;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record-to-pet conversion of the CSV import, run over the bundled mock data.
+ * Throughput is in records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    private PetService petService;
+    private List<CSVRecord> records;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        // parsing only needs the vocabulary; nothing is saved or published
+        petService = new PetService(null, null, new PetAttributeVocabulary(), null, null, null, null);
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setTrim(true)
+                .build();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("data/MOCK_DATA (3).csv").getInputStream(), StandardCharsets.UTF_8))) {
+            records = csvFormat.parse(reader).getRecords();
+        }
+    }
+
+    @Benchmark
+    public void parsePetFromCsvRecord(Blackhole blackhole) {
+        blackhole.consume(petService.parsePetFromCsvRecord(records.get(next)));
+        next = next + 1 == records.size() ? 0 : next + 1;
+    }
+}
@@ -0,0 +1,122 @@
+package petadoption.api.recommendation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring and ranking over the in-memory feature index at several catalog sizes.
+ * {@code scoreEveryPet} is the per-pet rule cost, {@code rankTopPage} is the
+ * {@code /top} endpoint on a cache miss and {@code rankFullCatalog} is the
+ * legacy endpoint, which orders every available pet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecommendationBenchmark {
+
+    private static final String[] SPECIES = {"Dog", "Cat", "Rabbit", "Bird"};
+    private static final String[] BREEDS = {"Beagle", "Labrador", "Siamese", "Persian", "Mixed", "Lop"};
+    private static final String[] GENDERS = {"Male", "Female"};
+    private static final String[] COATS = {"Short", "Medium", "Long"};
+    private static final String[] HEALTH = {"Excellent", "Good", "Fair", "Poor"};
+
+    @Param({"1000", "10000", "100000"})
+    private int petCount;
+
+    @Param({"scalar", "vector"})
+    private String kernel;
+
+    private PetFeatureIndex.Snapshot pets;
+    private ScoringPreferences prefs;
+    private ScoringKernel scoringKernel;
+    private ParallelRanker ranker;
+    private double[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Pet> catalog = new ArrayList<>(petCount);
+        for (long id = 1; id <= petCount; id++) {
+            Pet pet = new Pet();
+            pet.setId(id);
+            pet.setAge(random.nextInt(15));
+            pet.setWeight(1 + random.nextInt(90));
+            pet.setSpecies(SPECIES[random.nextInt(SPECIES.length)]);
+            pet.setBreed(BREEDS[random.nextInt(BREEDS.length)]);
+            pet.setGender(GENDERS[random.nextInt(GENDERS.length)]);
+            pet.setCoatLength(COATS[random.nextInt(COATS.length)]);
+            pet.setHealthStatus(HEALTH[random.nextInt(HEALTH.length)]);
+            pet.setAvailable(random.nextInt(10) != 0);
+            catalog.add(pet);
+        }
+        // the repository is only used by rebuild(), which the benchmark never calls
+        PetFeatureIndex index = new PetFeatureIndex(null, new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+        index.upsertAll(catalog);
+        pets = index.snapshot();
+
+        User user = new User();
+        user.setPreferredSpecies("Dog");
+        user.setPreferredBreed("Beagle");
+        user.setPreferredGender("Female");
+        user.setPreferredCoatLength("Short");
+        user.setPreferredHealthStatus("Good");
+        user.setTargetAge(4);
+        user.setAgeTolerance(2.0);
+        user.setTargetWeight(30);
+        user.setWeightTolerance(10.0);
+        prefs = ScoringPreferences.of(user, index);
+
+        scoringKernel = ScoringKernels.select("vector".equals(kernel));
+        ranker = new ParallelRanker(20000, 4096, 0);
+        scores = new double[pets.size];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ranker.shutdown();
+    }
+
+    @Benchmark
+    public void scoreEveryPet(Blackhole blackhole) {
+        scoringKernel.score(pets, prefs, 0, pets.size, scores);
+        blackhole.consume(scores);
+    }
+
+    @Benchmark
+    public long[] rankTopPage() {
+        return ranker.topK(pets, 10, slot -> pets.available[slot], this::score).drainBestFirst(null);
+    }
+
+    @Benchmark
+    public long[] rankFullCatalog() {
+        return ranker.topK(pets, pets.size, slot -> pets.available[slot], this::score).drainBestFirst(null);
+    }
+
+    private void score(int from, int to, double[] out) {
+        scoringKernel.score(pets, prefs, from, to, out);
+    }
+}
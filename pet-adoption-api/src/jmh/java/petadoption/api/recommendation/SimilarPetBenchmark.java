@@ -0,0 +1,73 @@
+package petadoption.api.recommendation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "More like this pet" lookups against the HNSW index at several catalog sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarPetBenchmark {
+
+    private static final String[] SPECIES = {"Dog", "Cat", "Rabbit", "Bird"};
+    private static final String[] BREEDS = {"Beagle", "Labrador", "Siamese", "Persian", "Mixed", "Lop"};
+    private static final String[] COATS = {"Short", "Medium", "Long"};
+    private static final String[] HEALTH = {"Excellent", "Good", "Fair", "Poor"};
+
+    @Param({"10000", "100000"})
+    private int petCount;
+
+    private SimilarPetIndex index;
+    private List<Pet> catalog;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(petCount);
+        for (long id = 1; id <= petCount; id++) {
+            Pet pet = new Pet();
+            pet.setId(id);
+            pet.setAge(random.nextInt(15));
+            pet.setWeight(1 + random.nextInt(90));
+            pet.setSpecies(SPECIES[random.nextInt(SPECIES.length)]);
+            pet.setBreed(BREEDS[random.nextInt(BREEDS.length)]);
+            pet.setCoatLength(COATS[random.nextInt(COATS.length)]);
+            pet.setHealthStatus(HEALTH[random.nextInt(HEALTH.length)]);
+            pet.setAvailable(true);
+            catalog.add(pet);
+        }
+        // the feature index is only used by rebuild(), which the benchmark never calls
+        index = new SimilarPetIndex(null, new PetAttributeVocabulary(), true, 16, 100, 64);
+        index.upsertAll(catalog);
+    }
+
+    @Benchmark
+    public long[] similarTen() {
+        Pet pet = catalog.get(next);
+        next = (next + 7919) % catalog.size();
+        return index.similar(pet, 10);
+    }
+}
@@ -0,0 +1,208 @@
+package petadoption.api.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.user.User;
+import petadoption.api.user.UserChangeEvent;
+import petadoption.api.user.UserRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of pets and users by primary key, for the lookups most
+ * requests start with (the adopter, the shelter, the pet). Users can also be looked
+ * up by email address.
+ * <p>
+ * Entries are dropped after commit by {@link PetChangeEvent} and {@link UserChangeEvent},
+ * and by {@link #invalidateUser}/{@link #invalidateUsers} for writes that bypass JPA.
+ * A load that was already running when an entry was dropped doesn't put its result
+ * back. Writes from outside this application are only seen once entries expire.
+ * <p>
+ * Callers get their own copy of a cached entity, so they can change and save it
+ * without touching the cache.
+ */
+@Component
+public class EntityCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCache.class);
+
+    private final PetRepository petRepository;
+    private final UserRepository userRepository;
+    private final Cache<Long, Pet> pets;
+    private final Cache<Long, User> users;
+    private final Cache<String, Long> userIdsByEmail;
+    // bumped before entries are dropped, so loads that started earlier don't stay cached
+    private final AtomicLong petEpoch = new AtomicLong();
+    private final AtomicLong userEpoch = new AtomicLong();
+
+    public EntityCache(PetRepository petRepository, UserRepository userRepository,
+                       @Value("${entity.cache.max-pets:10000}") long maxPets,
+                       @Value("${entity.cache.max-users:10000}") long maxUsers,
+                       @Value("${entity.cache.expire-after-write-minutes:10}") long expireMinutes) {
+        this.petRepository = petRepository;
+        this.userRepository = userRepository;
+        this.pets = CacheBuilder.newBuilder()
+                .maximumSize(maxPets)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        this.userIdsByEmail = CacheBuilder.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        log.info("Entity cache configured for {} pets and {} users, expiring after {} minutes",
+                maxPets, maxUsers, expireMinutes);
+    }
+
+    /**
+     * Loads a pet, from the cache if possible.
+     * @return A copy the caller may change, or empty if there is no such pet.
+     */
+    public Optional<Pet> findPet(Long petId) {
+        if (petId == null) {
+            return Optional.empty();
+        }
+        Pet cached = pets.getIfPresent(petId);
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long epoch = petEpoch.get();
+        Optional<Pet> loaded = petRepository.findById(petId);
+        loaded.ifPresent(pet -> {
+            pets.put(petId, pet.copy());
+            if (petEpoch.get() != epoch) {
+                pets.invalidate(petId);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Loads a user as stored, from the cache if possible. Rating changes still waiting
+     * in the write-behind buffer are not applied; see {@code UserService.findUser}.
+     * @return A copy the caller may change, or empty if there is no such user.
+     */
+    public Optional<User> findUser(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        User cached = users.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long epoch = userEpoch.get();
+        Optional<User> loaded = userRepository.findById(userId);
+        loaded.ifPresent(user -> put(user, epoch));
+        return loaded;
+    }
+
+    /**
+     * Loads a user by exact email address, from the cache if possible.
+     * @return A copy the caller may change, or empty if no user has that address.
+     */
+    public Optional<User> findUserByEmail(String emailAddress) {
+        if (emailAddress == null) {
+            return Optional.empty();
+        }
+        Long userId = userIdsByEmail.getIfPresent(emailAddress);
+        if (userId != null) {
+            // the address may have moved to another user since it was indexed
+            Optional<User> user = findUser(userId).filter(found -> emailAddress.equals(found.getEmailAddress()));
+            if (user.isPresent()) {
+                return user;
+            }
+            userIdsByEmail.invalidate(emailAddress);
+        }
+        long epoch = userEpoch.get();
+        User loaded = userRepository.findByEmailAddress(emailAddress);
+        if (loaded == null) {
+            return Optional.empty();
+        }
+        put(loaded, epoch);
+        userIdsByEmail.put(emailAddress, loaded.getId());
+        return Optional.of(loaded);
+    }
+
+    private void put(User user, long epoch) {
+        users.put(user.getId(), user.copy());
+        if (userEpoch.get() != epoch) {
+            users.invalidate(user.getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChange(PetChangeEvent event) {
+        petEpoch.incrementAndGet();
+        if (event.getKind() == PetChangeEvent.Kind.CLEARED) {
+            pets.invalidateAll();
+        } else {
+            pets.invalidateAll(event.getPetIds());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        invalidateUser(event.getUserId());
+    }
+
+    /**
+     * Drops a cached user. Call after writing a user without publishing a {@link UserChangeEvent}.
+     */
+    public void invalidateUser(Long userId) {
+        if (userId != null) {
+            userEpoch.incrementAndGet();
+            users.invalidate(userId);
+        }
+    }
+
+    public void invalidateUsers(Iterable<Long> userIds) {
+        userEpoch.incrementAndGet();
+        users.invalidateAll(userIds);
+    }
+
+    public void invalidateAllUsers() {
+        userEpoch.incrementAndGet();
+        users.invalidateAll();
+    }
+
+    /**
+     * @return Hit, miss and eviction counters of the pet, user and email caches.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pets", stats(pets));
+        result.put("users", stats(users));
+        result.put("usersByEmail", stats(userIdsByEmail));
+        return result;
+    }
+
+    private static Map<String, Object> stats(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+}
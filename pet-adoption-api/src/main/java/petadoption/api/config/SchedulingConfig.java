@@ -0,0 +1,12 @@
+package petadoption.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on {@code @Scheduled} methods, e.g. the rating write-behind flush.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -9,8 +9,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
-import petadoption.api.pet.Pet;
+import petadoption.api.cache.EntityCache;
 import petadoption.api.pet.PetService;
+import petadoption.api.pet.PetSummary;
+import petadoption.api.user.RatingReplayJob;
 import petadoption.api.user.User;
 import petadoption.api.user.UserRepository;
 import petadoption.api.user.UserService;
@@ -34,13 +36,19 @@ public class AdminEndpoint {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RatingReplayJob ratingReplayJob;
+
+    @Autowired
+    private EntityCache entityCache;
+
     private User getAdminUser(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated() || authentication.getName() == null) {
             log.trace("Admin check failed: User not authenticated or principal name is null.");
             return null;
         }
         String username = authentication.getName();
-        User user = userRepository.findByEmailAddress(username);
+        User user = userService.findUserByEmail(username).orElse(null);
         if (user != null && "ADMIN".equals(user.getUserType())) {
             log.trace("Admin check passed for user: {}", username);
             return user;
@@ -51,7 +59,7 @@ public class AdminEndpoint {
     }
 
     @GetMapping("/pets")
-    public ResponseEntity<List<Pet>> getAllPetsAdmin() {
+    public ResponseEntity<List<PetSummary>> getAllPetsAdmin() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (getAdminUser(authentication) == null) {
             log.warn("Forbidden attempt to get all pets by non-admin user: {}", authentication != null ? authentication.getName() : "unauthenticated");
@@ -60,7 +68,7 @@ public class AdminEndpoint {
 
         log.info("ADMIN Request: getAllPetsAdmin");
         try {
-            List<Pet> allPets = petService.getAllPetsList();
+            List<PetSummary> allPets = petService.getAllPetsList();
             return ResponseEntity.ok(allPets);
         } catch (Exception e) {
             log.error("Error fetching all pets for admin: {}", e.getMessage(), e);
@@ -134,4 +142,32 @@ public class AdminEndpoint {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Rebuilds every rated user's preferences from the rating log, e.g. after the rating rules change.
+     */
+    @PostMapping("/ratings/replay")
+    public ResponseEntity<?> replayRatingsAdmin() {
+        User admin = getAdminUser(SecurityContextHolder.getContext().getAuthentication());
+        if (admin == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Access denied"));
+        }
+        log.info("ADMIN Request: replayRatingsAdmin by admin {}", admin.getEmailAddress());
+        try {
+            return ResponseEntity.ok(ratingReplayJob.replayAll());
+        } catch (Exception e) {
+            log.error("Error replaying the rating log: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Failed to replay ratings"));
+        }
+    }
+
+    /**
+     * Hit rates of the pet and user entity cache, for sizing it.
+     */
+    @GetMapping("/entity-cache/stats")
+    public ResponseEntity<Map<String, Object>> getEntityCacheStats() {
+        if (getAdminUser(SecurityContextHolder.getContext().getAuthentication()) == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(entityCache.stats());
+    }
+}
@@ -9,9 +9,15 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetFilter;
 import petadoption.api.pet.PetService;
+import petadoption.api.pet.PetSummary;
+import petadoption.api.recommendation.RecommendationService;
+import petadoption.api.search.PetFacetIndex.Facet;
+import petadoption.api.search.PetFacetIndex.FacetCounts;
 
 import java.io.IOException;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,29 +27,73 @@ import java.util.Map;
 public class PetEndpoint {
 
     private static final Logger log = LoggerFactory.getLogger(PetEndpoint.class);
+    private static final int MAX_SLICE_SIZE = 100;
     private final PetService petService;
+    private final RecommendationService recommendationService;
 
     @Autowired
-    public PetEndpoint(PetService petService) {
+    public PetEndpoint(PetService petService, RecommendationService recommendationService) {
         this.petService = petService;
+        this.recommendationService = recommendationService;
     }
 
+    /**
+     * Lists available pets. Attribute filters (each may repeat to match any of several values)
+     * combine with the location filters; {@code after} switches to keyset pagination.
+     */
     @GetMapping
-    public ResponseEntity<Page<Pet>> getAvailablePets(
+    public ResponseEntity<?> getAvailablePets(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "6") int size,
             @RequestParam(required = false) String state,
-            @RequestParam(required = false) String city) {
-        log.info("API Request: getAvailablePets page={}, size={}, state={}, city={}",
-                page, size, state, city);
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String near,
+            @RequestParam(defaultValue = "25") double radiusMiles,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) List<String> species,
+            @RequestParam(required = false) List<String> breed,
+            @RequestParam(required = false) List<String> gender,
+            @RequestParam(required = false) List<String> petSize,
+            @RequestParam(required = false) List<String> coatLength,
+            @RequestParam(required = false) List<String> healthStatus,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) Integer minWeight,
+            @RequestParam(required = false) Integer maxWeight) {
+        PetFilter filter = new PetFilter();
+        filter.setSpecies(species);
+        filter.setBreed(breed);
+        filter.setGender(gender);
+        filter.setSize(petSize);
+        filter.setCoatLength(coatLength);
+        filter.setHealthStatus(healthStatus);
+        filter.setMinAge(minAge);
+        filter.setMaxAge(maxAge);
+        filter.setMinWeight(minWeight);
+        filter.setMaxWeight(maxWeight);
+        filter.setState(state);
+        filter.setCity(city);
+        filter.setNear(near);
+        filter.setRadiusMiles(radiusMiles);
+        log.info("API Request: getAvailablePets page={}, size={}, after={}, filter={}", page, size, after, filter);
+        if (after != null) {
+            // keyset pagination for infinite scroll: constant cost per page, no COUNT unless asked
+            if (size < 1 || size > MAX_SLICE_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and " + MAX_SLICE_SIZE));
+            }
+            if ((state != null && !state.isEmpty()) || (city != null && !city.isEmpty()) || (near != null && !near.isEmpty())
+                    || filter.hasAttributeFilters()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "after can't be combined with filters"));
+            }
+            return ResponseEntity.ok(petService.getAvailablePetsAfter(after, size, includeTotal));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
-        Page<Pet> pets;
-        if ((state != null && !state.isEmpty()) || (city != null && !city.isEmpty())) {
-            pets = petService.getAvailablePetsByLocation(state, city, pageable);
-        } else {
-            pets = petService.getAllAvailablePets(pageable);
+        try {
+            return ResponseEntity.ok(petService.getAvailablePets(filter, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
-        return ResponseEntity.ok(pets);
     }
 
 
@@ -132,10 +182,10 @@ public class PetEndpoint {
     }
 
     @GetMapping("/adopter/{userId}")
-    public ResponseEntity<List<Pet>> getAdoptedPetsByUser(@PathVariable Long userId) {
+    public ResponseEntity<List<PetSummary>> getAdoptedPetsByUser(@PathVariable Long userId) {
         log.info("API Request: getAdoptedPetsByUser userId={}", userId);
         try {
-            List<Pet> adopted = petService.getPetsByAdopter(userId);
+            List<PetSummary> adopted = petService.getPetsByAdopter(userId);
             return ResponseEntity.ok(adopted);
         } catch (Exception e) {
             log.error("Error fetching adopted pets for user {}: {}", userId, e.getMessage(), e);
@@ -144,10 +194,10 @@ public class PetEndpoint {
     }
 
     @GetMapping("/shelter/{shelterId}")
-    public ResponseEntity<List<Pet>> getPetsByShelter(@PathVariable Long shelterId) {
+    public ResponseEntity<List<PetSummary>> getPetsByShelter(@PathVariable Long shelterId) {
         log.info("API Request: getPetsByShelter shelterId={}", shelterId);
         try {
-            List<Pet> shelterPets = petService.getPetsByShelter(shelterId);
+            List<PetSummary> shelterPets = petService.getPetsByShelter(shelterId);
             return ResponseEntity.ok(shelterPets);
         } catch (Exception e) {
             log.error("Error fetching pets for shelter {}: {}", shelterId, e.getMessage(), e);
@@ -155,6 +205,79 @@ public class PetEndpoint {
         }
     }
 
+    /**
+     * Returns per-facet counts of available pets for the adopt page's filters. Each parameter
+     * may repeat; a facet's counts apply every other facet's selection but not its own.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetCounts> getFacets(
+            @RequestParam(required = false) List<String> species,
+            @RequestParam(required = false) List<String> breed,
+            @RequestParam(required = false) List<String> gender,
+            @RequestParam(required = false) List<String> coatLength,
+            @RequestParam(required = false) List<String> size,
+            @RequestParam(required = false) List<String> shelter) {
+        log.info("API Request: getFacets species={}, breed={}, gender={}, coatLength={}, size={}, shelter={}",
+                species, breed, gender, coatLength, size, shelter);
+        Map<Facet, List<String>> filters = new EnumMap<>(Facet.class);
+        putIfPresent(filters, Facet.SPECIES, species);
+        putIfPresent(filters, Facet.BREED, breed);
+        putIfPresent(filters, Facet.GENDER, gender);
+        putIfPresent(filters, Facet.COAT_LENGTH, coatLength);
+        putIfPresent(filters, Facet.SIZE, size);
+        putIfPresent(filters, Facet.SHELTER, shelter);
+        return ResponseEntity.ok(petService.getFacetCounts(filters));
+    }
+
+    private static void putIfPresent(Map<Facet, List<String>> filters, Facet facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, values);
+        }
+    }
+
+    /**
+     * Searches available pets by name, species, breed and description, best match first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchPets(@RequestParam String q,
+                                        @RequestParam(defaultValue = "20") int limit) {
+        log.info("API Request: searchPets q='{}', limit={}", q, limit);
+        try {
+            return ResponseEntity.ok(petService.searchAvailablePets(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Returns one pet with every field, including its description. List endpoints return summaries.
+     */
+    @GetMapping("/{petId}")
+    public ResponseEntity<Pet> getPet(@PathVariable Long petId) {
+        log.info("API Request: getPet petId={}", petId);
+        return petService.findPetById(petId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the available pets most like the given one, closest first.
+     */
+    @GetMapping("/{petId}/similar")
+    public ResponseEntity<?> getSimilarPets(@PathVariable Long petId,
+                                            @RequestParam(defaultValue = "10") int limit) {
+        log.info("API Request: getSimilarPets petId={}, limit={}", petId, limit);
+        try {
+            List<PetSummary> similar = recommendationService.getSimilarPets(petId, limit);
+            if (similar == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Pet not found"));
+            }
+            return ResponseEntity.ok(similar);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{petId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deletePet(@PathVariable Long petId) {
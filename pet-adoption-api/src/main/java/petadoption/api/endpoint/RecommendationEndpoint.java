@@ -1,12 +1,18 @@
 package petadoption.api.endpoint;
 
-import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetSummary;
+import petadoption.api.recommendation.PetScorerRegistry;
+import petadoption.api.recommendation.RecommendationCache;
+import petadoption.api.recommendation.RecommendationPage;
 import petadoption.api.recommendation.RecommendationService;
+import petadoption.api.recommendation.RecommendationSessionPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.web.bind.annotation.CrossOrigin;
 
@@ -18,14 +24,119 @@ public class RecommendationEndpoint {
     @Autowired
     private RecommendationService recommendationService;
 
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private PetScorerRegistry petScorerRegistry;
+
+    /**
+     * The {@code scorer} parameter on the ranking endpoints picks a ranking strategy by name,
+     * overriding the user's cohort. Leave it out to get the configured strategy.
+     * Returns the {@code limit} best pets as summaries; use {@code /top} to page further.
+     */
     @GetMapping("/{userId}")
-    public ResponseEntity<List<Pet>> getRecommendations(
+    public ResponseEntity<?> getRecommendations(
             @PathVariable Long userId,
-            @RequestParam(value = "exclude", required = false) List<Long> excludeIds
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "exclude", required = false) List<Long> excludeIds,
+            @RequestParam(value = "scorer", required = false) String scorer
     ) {
-        List<Pet> recommendations =
-                recommendationService.getRecommendationsForUser(userId, excludeIds);
-        return ResponseEntity.ok(recommendations);
+        try {
+            List<PetSummary> recommendations =
+                    recommendationService.getRecommendationsForUser(userId, limit, excludeIds, scorer);
+            return ResponseEntity.ok(recommendations);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{userId}/top")
+    public ResponseEntity<?> getTopRecommendations(
+            @PathVariable Long userId,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "exclude", required = false) List<Long> excludeIds,
+            @RequestParam(value = "scorer", required = false) String scorer
+    ) {
+        try {
+            RecommendationPage page =
+                    recommendationService.getTopRecommendations(userId, limit, cursor, excludeIds, scorer);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
-}
 
+    /**
+     * Starts a swipe session. Send its {@code sessionId} on later requests instead of
+     * the list of pets already seen. The scorer chosen here is kept for the whole session.
+     */
+    @PostMapping("/{userId}/sessions")
+    public ResponseEntity<?> startSession(
+            @PathVariable Long userId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "scorer", required = false) String scorer
+    ) {
+        try {
+            RecommendationSessionPage page = recommendationService.startSession(userId, limit, scorer);
+            if (page == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found"));
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{userId}/sessions/{sessionId}")
+    public ResponseEntity<?> getSessionPage(
+            @PathVariable Long userId,
+            @PathVariable String sessionId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor
+    ) {
+        try {
+            RecommendationSessionPage page = recommendationService.getSessionPage(userId, sessionId, limit, cursor);
+            if (page == null) {
+                return sessionNotFound();
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Marks pets as seen or rated so the session stops recommending them.
+     */
+    @PostMapping("/{userId}/sessions/{sessionId}/seen")
+    public ResponseEntity<?> markSeen(
+            @PathVariable Long userId,
+            @PathVariable String sessionId,
+            @RequestBody List<Long> petIds
+    ) {
+        if (!recommendationService.markSeen(userId, sessionId, petIds)) {
+            return sessionNotFound();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private static ResponseEntity<Map<String, String>> sessionNotFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Recommendation session not found or expired"));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(recommendationCache.stats());
+    }
+
+    /**
+     * Ranking latency and pets scored per ranking, for each scoring strategy.
+     */
+    @GetMapping("/scorers/stats")
+    public ResponseEntity<Map<String, Object>> getScorerStats() {
+        return ResponseEntity.ok(petScorerRegistry.stats());
+    }
+}
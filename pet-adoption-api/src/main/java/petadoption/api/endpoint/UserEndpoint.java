@@ -8,7 +8,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import petadoption.api.admin.AdminPasswordRepository;
 import petadoption.api.admin.AdminPasswordService;
-import petadoption.api.pet.PetRepository;
+import petadoption.api.pet.PetService;
 import petadoption.api.user.User;
 import petadoption.api.user.UserRepository;
 import petadoption.api.user.UserService;
@@ -35,7 +35,7 @@ public class UserEndpoint {
     private BCryptPasswordEncoder passwordEncoder;
 
     @Autowired
-    private PetRepository petRepository;
+    private PetService petService;
 
     @Autowired
     private AdminPasswordRepository adminPasswordRepository;
@@ -220,7 +220,7 @@ public class UserEndpoint {
             }
             User user = userOpt.get();
 
-            Optional<Pet> petOpt = petRepository.findById(petId);
+            Optional<Pet> petOpt = petService.findPetById(petId);
             if (petOpt.isEmpty()) {
                 log.warn("Pet with id {} not found", petId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Pet not found"));
@@ -273,7 +273,7 @@ public class UserEndpoint {
                         .body(Map.of("error", "Email and password are required"));
             }
 
-            User user = userRepository.findByEmailAddress(email);
+            User user = userService.findUserByEmail(email).orElse(null);
 
             if (user == null || !passwordEncoder.matches(password, user.getPassword())) {
                 log.warn("Failed login attempt for email: {}", email);
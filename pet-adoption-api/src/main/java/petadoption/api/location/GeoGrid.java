@@ -0,0 +1,147 @@
+package petadoption.api.location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-size latitude/longitude grid of points keyed by ID. A radius query visits only the
+ * cells overlapping the circle's bounding box, drops points outside the box, and checks the
+ * rest with the exact haversine distance. Not thread-safe.
+ */
+final class GeoGrid {
+
+    // statute miles per degree of latitude, and of longitude at the equator
+    private static final double MILES_PER_DEGREE = 69.0;
+
+    private final double cellDegrees;
+    private final int longitudeCells;
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Map<Long, GeoPoint> points = new HashMap<>();
+
+    GeoGrid(double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("cell size must be in (0, 90] degrees: " + cellDegrees);
+        }
+        this.cellDegrees = cellDegrees;
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Adds a point or moves an existing one.
+     */
+    void put(long id, GeoPoint point) {
+        remove(id);
+        points.put(id, point);
+        cells.computeIfAbsent(cellKey(latitudeCell(point.latitude()), longitudeCell(point.longitude())),
+                key -> new ArrayList<>()).add(new Entry(id, point));
+    }
+
+    boolean remove(long id) {
+        GeoPoint point = points.remove(id);
+        if (point == null) {
+            return false;
+        }
+        long key = cellKey(latitudeCell(point.latitude()), longitudeCell(point.longitude()));
+        List<Entry> cell = cells.get(key);
+        cell.removeIf(entry -> entry.id == id);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+        return true;
+    }
+
+    int size() {
+        return points.size();
+    }
+
+    /**
+     * @return The IDs of every point within {@code radiusMiles} of the center, closest first.
+     */
+    List<Long> within(GeoPoint center, double radiusMiles) {
+        double latitudeSpan = radiusMiles / MILES_PER_DEGREE;
+        double minLatitude = Math.max(-90, center.latitude() - latitudeSpan);
+        double maxLatitude = Math.min(90, center.latitude() + latitudeSpan);
+        // longitude degrees shrink toward the poles; near them the box spans every longitude
+        double widestLatitude = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        double cosine = Math.cos(Math.toRadians(widestLatitude));
+        double longitudeSpan = cosine > 1e-6 ? radiusMiles / (MILES_PER_DEGREE * cosine) : 180;
+        boolean allLongitudes = longitudeSpan >= 180;
+
+        int firstRow = latitudeCell(minLatitude);
+        int lastRow = latitudeCell(maxLatitude);
+        int firstColumn = longitudeCell(center.longitude() - longitudeSpan);
+        int columns = allLongitudes ? longitudeCells
+                : Math.min(longitudeCells, (int) Math.ceil(2 * longitudeSpan / cellDegrees) + 1);
+
+        List<Entry> found = new ArrayList<>();
+        if ((long) (lastRow - firstRow + 1) * columns > cells.size()) {
+            // the box covers more cells than are occupied
+            cells.values().forEach(cell -> collect(cell, center, radiusMiles, minLatitude, maxLatitude,
+                    longitudeSpan, allLongitudes, found));
+        } else {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int c = 0; c < columns; c++) {
+                    List<Entry> cell = cells.get(cellKey(row, Math.floorMod(firstColumn + c, longitudeCells)));
+                    if (cell != null) {
+                        collect(cell, center, radiusMiles, minLatitude, maxLatitude, longitudeSpan, allLongitudes, found);
+                    }
+                }
+            }
+        }
+        found.sort((a, b) -> Double.compare(a.distance, b.distance));
+        List<Long> ids = new ArrayList<>(found.size());
+        for (Entry entry : found) {
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    private static void collect(List<Entry> cell, GeoPoint center, double radiusMiles, double minLatitude,
+                                double maxLatitude, double longitudeSpan, boolean allLongitudes, List<Entry> found) {
+        for (Entry entry : cell) {
+            GeoPoint point = entry.point;
+            if (point.latitude() < minLatitude || point.latitude() > maxLatitude) {
+                continue;
+            }
+            if (!allLongitudes && longitudeDelta(point.longitude(), center.longitude()) > longitudeSpan) {
+                continue;
+            }
+            double distance = center.milesTo(point);
+            if (distance <= radiusMiles) {
+                Entry hit = new Entry(entry.id, point);
+                hit.distance = distance;
+                found.add(hit);
+            }
+        }
+    }
+
+    private static double longitudeDelta(double a, double b) {
+        double delta = Math.abs(a - b) % 360;
+        return delta > 180 ? 360 - delta : delta;
+    }
+
+    private int latitudeCell(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final GeoPoint point;
+        private double distance;
+
+        Entry(long id, GeoPoint point) {
+            this.id = id;
+            this.point = point;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package petadoption.api.location;
+
+/**
+ * A latitude/longitude in degrees.
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+    static final double EARTH_RADIUS_MILES = 3958.8;
+
+    /**
+     * @return The great-circle (haversine) distance to another point, in miles.
+     */
+    public double milesTo(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
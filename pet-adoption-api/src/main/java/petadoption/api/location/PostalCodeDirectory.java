@@ -0,0 +1,112 @@
+package petadoption.api.location;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import petadoption.api.user.UserLocation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline geocoder backed by a CSV of postal-code centroids
+ * ({@code postal_code,city,state,latitude,longitude}). The bundled file covers a sample of
+ * US postal codes; point {@code location.postal-centroids} at a full centroid list (e.g. the
+ * Census ZCTA gazetteer converted to these columns) for complete coverage.
+ * Cities resolve to the mean of their postal-code centroids.
+ */
+@Component
+public class PostalCodeDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(PostalCodeDirectory.class);
+
+    private final Map<String, GeoPoint> byPostalCode = new HashMap<>();
+    private final Map<String, GeoPoint> byCity = new HashMap<>();
+
+    public PostalCodeDirectory(@Value("${location.postal-centroids:classpath:data/postal-centroids.csv}") Resource resource) {
+        if (resource == null || !resource.exists()) {
+            log.warn("Postal code centroid file {} not found; radius search will find nothing", resource);
+            return;
+        }
+        Map<String, double[]> citySums = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                    .setHeader()
+                    .setSkipHeaderRecord(true)
+                    .setIgnoreHeaderCase(true)
+                    .setTrim(true)
+                    .build();
+            for (CSVRecord record : csvFormat.parse(reader)) {
+                String postalCode = normalizePostalCode(record.get("postal_code"));
+                if (postalCode == null) {
+                    continue;
+                }
+                GeoPoint point = new GeoPoint(Double.parseDouble(record.get("latitude")),
+                        Double.parseDouble(record.get("longitude")));
+                byPostalCode.put(postalCode, point);
+                String city = cityKey(record.get("city"), record.get("state"));
+                if (city != null) {
+                    double[] sum = citySums.computeIfAbsent(city, key -> new double[3]);
+                    sum[0] += point.latitude();
+                    sum[1] += point.longitude();
+                    sum[2]++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load postal code centroids from {}", resource, e);
+        }
+        citySums.forEach((city, sum) -> byCity.put(city, new GeoPoint(sum[0] / sum[2], sum[1] / sum[2])));
+        log.info("Loaded {} postal code centroids for {} cities", byPostalCode.size(), byCity.size());
+    }
+
+    /**
+     * @return The centroid of a postal code (ZIP or ZIP+4), or null if it isn't in the file.
+     */
+    public GeoPoint locate(String postalCode) {
+        String normalized = normalizePostalCode(postalCode);
+        return normalized != null ? byPostalCode.get(normalized) : null;
+    }
+
+    /**
+     * Locates an address from its parsed parts, preferring the postal code over the city.
+     * @return The location, or null if neither is known.
+     */
+    public GeoPoint locate(String postalCode, String city, String state) {
+        GeoPoint point = locate(postalCode);
+        if (point == null) {
+            String key = cityKey(city, state);
+            point = key != null ? byCity.get(key) : null;
+        }
+        return point;
+    }
+
+    public int size() {
+        return byPostalCode.size();
+    }
+
+    static String normalizePostalCode(String postalCode) {
+        if (postalCode == null) {
+            return null;
+        }
+        String trimmed = postalCode.trim();
+        int dash = trimmed.indexOf('-');
+        if (dash >= 0) {
+            trimmed = trimmed.substring(0, dash);
+        }
+        return trimmed.length() == 5 && trimmed.chars().allMatch(Character::isDigit) ? trimmed : null;
+    }
+
+    private static String cityKey(String city, String state) {
+        String normalizedCity = UserLocation.normalizeCity(city);
+        String normalizedState = UserLocation.normalizeState(state);
+        return normalizedCity != null && normalizedState != null ? normalizedCity + '|' + normalizedState : null;
+    }
+}
@@ -0,0 +1,117 @@
+package petadoption.api.location;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petadoption.api.user.User;
+import petadoption.api.user.UserChangeEvent;
+import petadoption.api.user.UserRepository;
+
+import java.util.List;
+
+/**
+ * In-memory grid of shelter locations for radius searches. Shelters are placed at the
+ * centroid of their postal code, or of their city when the address has no known postal
+ * code, as resolved by the offline {@link PostalCodeDirectory}.
+ */
+@Component
+public class ShelterLocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ShelterLocationIndex.class);
+
+    static final String SHELTER = "SHELTER";
+
+    private final UserRepository userRepository;
+    private final PostalCodeDirectory directory;
+    private final double cellDegrees;
+
+    private GeoGrid grid;
+
+    public ShelterLocationIndex(UserRepository userRepository, PostalCodeDirectory directory,
+                                @Value("${location.grid-cell-degrees:0.5}") double cellDegrees) {
+        this.userRepository = userRepository;
+        this.directory = directory;
+        this.cellDegrees = cellDegrees;
+        this.grid = new GeoGrid(cellDegrees);
+    }
+
+    /**
+     * Places every shelter. Runs once when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        GeoGrid built = new GeoGrid(cellDegrees);
+        int unlocated = 0;
+        for (User shelter : userRepository.findByUserType(SHELTER)) {
+            GeoPoint point = locate(shelter);
+            if (point != null) {
+                built.put(shelter.getId(), point);
+            } else {
+                unlocated++;
+            }
+        }
+        synchronized (this) {
+            grid = built;
+        }
+        log.info("Built shelter location index with {} shelters ({} without a known location) in {} ms",
+                built.size(), unlocated, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        switch (event.getKind()) {
+            case SAVED -> update(event.getUser());
+            case DELETED -> remove(event.getUserId());
+        }
+    }
+
+    /**
+     * Places, moves or removes a user, depending on whether it is a shelter with a known location.
+     */
+    public synchronized void update(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        GeoPoint point = SHELTER.equals(user.getUserType()) ? locate(user) : null;
+        if (point != null) {
+            grid.put(user.getId(), point);
+        } else {
+            grid.remove(user.getId());
+        }
+    }
+
+    public synchronized void remove(Long userId) {
+        if (userId != null) {
+            grid.remove(userId);
+        }
+    }
+
+    /**
+     * Finds the shelters within a radius of a postal code.
+     * @return Shelter IDs, closest first, or null if the postal code is unknown.
+     */
+    public List<Long> sheltersNear(String postalCode, double radiusMiles) {
+        GeoPoint center = directory.locate(postalCode);
+        return center != null ? sheltersWithin(center, radiusMiles) : null;
+    }
+
+    /**
+     * @return IDs of the shelters within {@code radiusMiles} of the center, closest first.
+     */
+    public synchronized List<Long> sheltersWithin(GeoPoint center, double radiusMiles) {
+        return grid.within(center, radiusMiles);
+    }
+
+    public synchronized int size() {
+        return grid.size();
+    }
+
+    private GeoPoint locate(User shelter) {
+        return directory.locate(shelter.getPostalCode(), shelter.getCity(), shelter.getState());
+    }
+}
@@ -1,13 +1,15 @@
 package petadoption.api.notifications;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import petadoption.api.cache.EntityCache;
 import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
 import petadoption.api.pet.PetRepository;
 import petadoption.api.user.User;
-import petadoption.api.user.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.transaction.annotation.Transactional; // Import Transactional
 import java.util.List;
@@ -34,14 +36,17 @@ public class NotificationsController {
     private static final Logger log = LoggerFactory.getLogger(NotificationsController.class);
 
     private final PetRepository petRepository;
-    private final UserRepository userRepository;
+    private final EntityCache entityCache;
     private final NotificationsService notificationsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public NotificationsController(PetRepository petRepository, UserRepository userRepository, NotificationsService notificationsService) {
+    public NotificationsController(PetRepository petRepository, EntityCache entityCache, NotificationsService notificationsService,
+                                   ApplicationEventPublisher eventPublisher) {
         this.petRepository = petRepository;
-        this.userRepository = userRepository;
+        this.entityCache = entityCache;
         this.notificationsService = notificationsService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -122,9 +127,9 @@ public class NotificationsController {
             if (request.getUserId() == null) return ResponseEntity.badRequest().body(Map.of("error","userId (adopter) is required"));
             // --- End Validation ---
 
-            User adopterUser = userRepository.findById(request.getUserId())
+            User adopterUser = entityCache.findUser(request.getUserId())
                     .orElseThrow(() -> new EntityNotFoundException("Adopter user not found: " + request.getUserId()));
-            Pet pet = petRepository.findById(request.getPetId())
+            Pet pet = entityCache.findPet(request.getPetId())
                     .orElseThrow(() -> new EntityNotFoundException("Pet not found: " + request.getPetId()));
             Long shelterId = pet.getAdoptionCenterId();
             if (shelterId == null) {
@@ -177,10 +182,11 @@ public class NotificationsController {
             // --- End extraction ---
 
             // --- Load Entities ---
-            User shelterUser = userRepository.findById(shelterId)
+            User shelterUser = entityCache.findUser(shelterId)
                     .orElseThrow(() -> new EntityNotFoundException("Shelter user performing approval not found: " + shelterId));
-            User adopterUser = userRepository.findById(adopterId)
+            User adopterUser = entityCache.findUser(adopterId)
                     .orElseThrow(() -> new EntityNotFoundException("Adopter user not found: " + adopterId));
+            // not from the entity cache: the availability check below must see concurrent approvals
             Pet pet = petRepository.findById(petId)
                     .orElseThrow(() -> new EntityNotFoundException("Pet not found: " + petId));
             // --- End Load Entities ---
@@ -202,6 +208,7 @@ public class NotificationsController {
             pet.setStatus("Adopted");
             pet.setAdopterId(adopterId); // Link pet to adopter
             petRepository.save(pet);
+            eventPublisher.publishEvent(PetChangeEvent.saved(pet));
             log.info("Pet {} marked as adopted by user {}", petId, adopterId);
             // --- End Update Pet Status ---
 
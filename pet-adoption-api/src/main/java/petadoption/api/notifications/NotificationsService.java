@@ -2,6 +2,7 @@ package petadoption.api.notifications;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import petadoption.api.cache.EntityCache;
 import petadoption.api.user.User;
 import petadoption.api.user.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -27,15 +28,18 @@ public class NotificationsService {
 
     private final NotificationsRepository notificationRepository;
     private final UserRepository userRepository;
+    private final EntityCache entityCache;
 
 
-    public NotificationsService(NotificationsRepository notificationRepository, UserRepository userRepository) {
+    public NotificationsService(NotificationsRepository notificationRepository, UserRepository userRepository,
+                                EntityCache entityCache) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
+        this.entityCache = entityCache;
     }
 
-
-    private NotificationDTO mapToDTO(Notifications notification) {
+    // package-private so the DTO mapping benchmark in src/jmh can call it
+    NotificationDTO mapToDTO(Notifications notification) {
         if (notification == null) {
             return null;
         }
@@ -83,7 +87,7 @@ public class NotificationsService {
      */
     @Transactional(readOnly = true)
     public List<NotificationDTO> getUnreadNotificationsByUserId(Long userId) {
-        User user = userRepository.findById(userId)
+        User user = entityCache.findUser(userId)
                 .orElseThrow(() -> {
                     log.warn("Attempted to get unread notifications for non-existent user ID: {}", userId);
                     return new EntityNotFoundException("User not found with ID: " + userId);
@@ -157,7 +161,7 @@ public class NotificationsService {
         if (text == null || text.trim().isEmpty()) throw new IllegalArgumentException("Notification text cannot be empty");
         if (recipientUserId == null) throw new IllegalArgumentException("Recipient User ID cannot be null");
 
-        User recipient = userRepository.findById(recipientUserId)
+        User recipient = entityCache.findUser(recipientUserId)
                 .orElseThrow(() -> new EntityNotFoundException("Recipient user not found with ID: " + recipientUserId));
 
         Notifications notification = new Notifications();
@@ -189,7 +193,7 @@ public class NotificationsService {
         if (text == null || text.trim().isEmpty()) throw new IllegalArgumentException("Notification text cannot be empty");
         if (shelterId == null) throw new IllegalArgumentException("Shelter ID cannot be null");
 
-        User shelter = userRepository.findById(shelterId)
+        User shelter = entityCache.findUser(shelterId)
                 .orElseThrow(() -> new EntityNotFoundException("Shelter user not found with ID: " + shelterId));
         if (!"SHELTER".equals(shelter.getUserType())) {
             throw new IllegalArgumentException("User with ID " + shelterId + " is not a SHELTER user.");
@@ -277,7 +281,7 @@ public class NotificationsService {
             }
             else if (extractedAdopterId != null) {
                 try {
-                    adopter = userRepository.findById(extractedAdopterId)
+                    adopter = entityCache.findUser(extractedAdopterId)
                             .orElse(null);
                     if (adopter != null) {
                         log.info("Found adopter by ID {} extracted from notification text", extractedAdopterId);
@@ -349,7 +353,7 @@ public class NotificationsService {
         if (text == null || text.trim().isEmpty()) throw new IllegalArgumentException("Notification text cannot be empty");
         if (shelterId == null) throw new IllegalArgumentException("Shelter ID cannot be null");
 
-        User shelter = userRepository.findById(shelterId)
+        User shelter = entityCache.findUser(shelterId)
                 .orElseThrow(() -> new EntityNotFoundException("Shelter not found: " + shelterId));
 
         Notifications n = new Notifications();
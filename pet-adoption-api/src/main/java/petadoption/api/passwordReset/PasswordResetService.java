@@ -5,7 +5,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import petadoption.api.user.User;
-import petadoption.api.user.UserRepository;
 import petadoption.api.user.UserService;
 
 import java.time.LocalDateTime;
@@ -15,9 +14,6 @@ import java.util.UUID;
 @Service
 public class PasswordResetService {
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
@@ -32,7 +28,7 @@ public class PasswordResetService {
 
     @Transactional(timeout = 5)
     public void processForgotPassword(String email) {
-        User user = userRepository.findByEmailAddress(email);
+        User user = userService.findUserByEmail(email).orElse(null);
         if (user == null) {
             return;
         }
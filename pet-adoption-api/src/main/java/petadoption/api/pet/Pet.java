@@ -1,7 +1,15 @@
 package petadoption.api.pet;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Represents an adoptable pet. Includes status and adopter tracking.
@@ -9,7 +17,7 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "pets")
-public class Pet {
+public class Pet implements PetFeatures {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -59,21 +67,76 @@ public class Pet {
     @Column(name = "ADOPTER_ID", nullable = true)
     private Long adopterId;
 
-    // --- Transient getSize() method ---
-    @Transient
+    // change marker for in-memory indexes catching up after a restart
+    @JsonIgnore
+    @UpdateTimestamp
+    @Column(name = "UPDATED_AT")
+    private LocalDateTime updatedAt;
+
+    // derived from species and weight so size can be filtered in SQL; see updateSize()
+    @Setter(AccessLevel.NONE)
+    @Column(name = "SIZE", length = 16)
+    private String size;
+
+    @PrePersist
+    @PreUpdate
+    void updateSize() {
+        size = sizeOf(species, weight);
+    }
+
+    /**
+     * @return The stored size class, or the one computed from species and weight for a pet
+     *         that hasn't been saved since the column was added, or not saved at all.
+     */
     public String getSize() {
+        return size != null ? size : sizeOf(species, weight);
+    }
+
+    /**
+     * @return A detached copy with the same field values, including the derived size.
+     */
+    public Pet copy() {
+        Pet copy = new Pet();
+        BeanUtils.copyProperties(this, copy);
+        copy.size = size;
+        return copy;
+    }
+
+    /** Size classes, smallest first. */
+    public static final List<String> SIZES = List.of("small", "medium", "large", "extra large");
+
+    // heaviest weight in each size class but the last, in pounds
+    private static final int[] CAT_SIZE_LIMITS = {6, 11, 16};
+    private static final int[] SIZE_LIMITS = {25, 60, 100};
+
+    /**
+     * Size class of a pet from its species and weight in pounds. Cats use smaller bands than other species.
+     */
+    public static String sizeOf(String species, Integer weight) {
         if (weight == null) {
             return "Unknown";
-        } else if (species != null && species.equalsIgnoreCase("Cat")) {
-            if (weight <= 6) return "small";
-            else if (weight <= 11) return "medium";
-            else if (weight <= 16) return "large";
-            else return "extra large";
-        } else {
-            if (weight <= 25) return "small";
-            else if (weight <= 60) return "medium";
-            else if (weight <= 100) return "large";
-            else return "extra large";
         }
+        int[] limits = isCat(species) ? CAT_SIZE_LIMITS : SIZE_LIMITS;
+        int size = 0;
+        while (size < limits.length && weight > limits[size]) {
+            size++;
+        }
+        return SIZES.get(size);
+    }
+
+    private static boolean isCat(String species) {
+        return species != null && species.equalsIgnoreCase("Cat");
+    }
+
+    /**
+     * @return The size class in its canonical spelling, or null if it isn't one of {@link #SIZES}.
+     */
+    public static String normalizeSize(String size) {
+        for (String known : SIZES) {
+            if (known.equalsIgnoreCase(size == null ? null : size.trim())) {
+                return known;
+            }
+        }
+        return null;
     }
 }
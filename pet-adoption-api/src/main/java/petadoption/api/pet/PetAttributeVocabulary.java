@@ -0,0 +1,145 @@
+package petadoption.api.pet;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the categorical pet attributes (species, breed, gender, coat length,
+ * health status). Each distinct value is interned once into a small integer code
+ * and a canonical spelling, ignoring case and extra whitespace, so that
+ * "golden  retriever" and "Golden Retriever" are stored and compared as the same value.
+ */
+@Component
+public class PetAttributeVocabulary {
+
+    /** Code for a missing (null or blank) value. */
+    public static final int NO_VALUE = -1;
+    /** Code returned by {@link #lookup} for a value that has never been interned. */
+    public static final int UNKNOWN_VALUE = -2;
+
+    public enum Attribute { SPECIES, BREED, GENDER, COAT_LENGTH, HEALTH_STATUS }
+
+    private final Map<Attribute, Dictionary> dictionaries = new EnumMap<>(Attribute.class);
+
+    public PetAttributeVocabulary() {
+        for (Attribute attribute : Attribute.values()) {
+            dictionaries.put(attribute, new Dictionary());
+        }
+    }
+
+    /**
+     * Returns the code for a value, adding it to the vocabulary if it is new.
+     * Only call this for values that are being written to a pet.
+     */
+    public int intern(Attribute attribute, String value) {
+        return dictionaries.get(attribute).intern(value);
+    }
+
+    /**
+     * Returns the code for a value without adding it.
+     * @return The code, {@link #NO_VALUE} for null/blank or {@link #UNKNOWN_VALUE} if never seen.
+     */
+    public int lookup(Attribute attribute, String value) {
+        return dictionaries.get(attribute).lookup(value);
+    }
+
+    /**
+     * Interns a pet attribute and returns its canonical spelling.
+     * @return The canonical spelling, or the value unchanged if it is null/blank.
+     */
+    public String canonicalize(Attribute attribute, String value) {
+        Dictionary dictionary = dictionaries.get(attribute);
+        int code = dictionary.intern(value);
+        return code == NO_VALUE ? value : dictionary.valueOf(code);
+    }
+
+    /**
+     * Returns the canonical spelling of a value if it is already known, without interning it.
+     * Used for user preferences, which must not grow the vocabulary.
+     * @return The canonical spelling, or the trimmed input if the value is unknown.
+     */
+    public String canonicalIfKnown(Attribute attribute, String value) {
+        Dictionary dictionary = dictionaries.get(attribute);
+        int code = dictionary.lookup(value);
+        if (code >= 0) {
+            return dictionary.valueOf(code);
+        }
+        return value == null ? null : collapseWhitespace(value);
+    }
+
+    /**
+     * @return The canonical spelling for a code, or null if the code is not assigned.
+     */
+    public String valueOf(Attribute attribute, int code) {
+        return dictionaries.get(attribute).valueOf(code);
+    }
+
+    /**
+     * @return The canonical spellings of an attribute, indexed by code.
+     */
+    public List<String> values(Attribute attribute) {
+        return dictionaries.get(attribute).values();
+    }
+
+    /**
+     * @return How many distinct values an attribute has.
+     */
+    public int size(Attribute attribute) {
+        return dictionaries.get(attribute).size();
+    }
+
+    static String collapseWhitespace(String value) {
+        return value.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String normalize(String value) {
+        return collapseWhitespace(value).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Codes are only ever added, so a code stays valid for the life of the process.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        synchronized int intern(String value) {
+            if (value == null || value.isBlank()) {
+                return NO_VALUE;
+            }
+            String key = normalize(value);
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                values.add(collapseWhitespace(value));
+                codes.put(key, code);
+            }
+            return code;
+        }
+
+        int lookup(String value) {
+            if (value == null || value.isBlank()) {
+                return NO_VALUE;
+            }
+            return codes.getOrDefault(normalize(value), UNKNOWN_VALUE);
+        }
+
+        synchronized String valueOf(int code) {
+            return code >= 0 && code < values.size() ? values.get(code) : null;
+        }
+
+        synchronized int size() {
+            return values.size();
+        }
+
+        synchronized List<String> values() {
+            return List.copyOf(values);
+        }
+    }
+}
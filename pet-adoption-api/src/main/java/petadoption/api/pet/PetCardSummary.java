@@ -0,0 +1,10 @@
+package petadoption.api.pet;
+
+/**
+ * A {@link PetSummary} plus the description, for cards that show it such as the
+ * recommendation swipe card. Only load it for a page of pets, never a whole listing.
+ */
+public interface PetCardSummary extends PetSummary {
+
+    String getDescription();
+}
@@ -0,0 +1,56 @@
+package petadoption.api.pet;
+
+import java.util.List;
+
+/**
+ * Published whenever pets are written or removed, so in-memory views of the
+ * catalog (recommendation index, etc.) can stay in sync with the database.
+ */
+public class PetChangeEvent {
+
+    public enum Kind { SAVED, DELETED, CLEARED }
+
+    private final Kind kind;
+    private final List<Pet> pets;
+    private final List<Long> petIds;
+
+    private PetChangeEvent(Kind kind, List<Pet> pets, List<Long> petIds) {
+        this.kind = kind;
+        this.pets = pets;
+        this.petIds = petIds;
+    }
+
+    public static PetChangeEvent saved(Pet pet) {
+        return new PetChangeEvent(Kind.SAVED, List.of(pet), List.of(pet.getId()));
+    }
+
+    public static PetChangeEvent saved(List<Pet> pets) {
+        return new PetChangeEvent(Kind.SAVED, List.copyOf(pets), pets.stream().map(Pet::getId).toList());
+    }
+
+    public static PetChangeEvent deleted(Long petId) {
+        return new PetChangeEvent(Kind.DELETED, List.of(), List.of(petId));
+    }
+
+    public static PetChangeEvent cleared() {
+        return new PetChangeEvent(Kind.CLEARED, List.of(), List.of());
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The saved pets (empty for DELETED and CLEARED events).
+     */
+    public List<Pet> getPets() {
+        return pets;
+    }
+
+    /**
+     * @return The IDs of the affected pets (empty for CLEARED events).
+     */
+    public List<Long> getPetIds() {
+        return petIds;
+    }
+}
@@ -0,0 +1,15 @@
+package petadoption.api.pet;
+
+/**
+ * The columns of a pet the facet index buckets on. Like {@link PetFeatureRow},
+ * {@link Pet} doesn't implement it, so the SELECT is narrowed to these columns.
+ */
+public interface PetFacetRow {
+    Long getId();
+    String getSpecies();
+    String getBreed();
+    String getGender();
+    String getCoatLength();
+    Integer getWeight();
+    Long getAdoptionCenterId();
+}
@@ -0,0 +1,9 @@
+package petadoption.api.pet;
+
+/**
+ * {@link PetFeatures} as returned by repository queries. {@link Pet} deliberately doesn't
+ * implement this interface: Spring Data only narrows the SELECT to a projection's columns
+ * when the entity is not itself an instance of it.
+ */
+public interface PetFeatureRow extends PetFeatures {
+}
@@ -0,0 +1,17 @@
+package petadoption.api.pet;
+
+/**
+ * Projection of the Pet columns used for recommendation scoring.
+ * Lets the catalog be loaded without hydrating the description Lob.
+ */
+public interface PetFeatures {
+    Long getId();
+    Integer getAge();
+    Integer getWeight();
+    Boolean getAvailable();
+    String getSpecies();
+    String getBreed();
+    String getGender();
+    String getCoatLength();
+    String getHealthStatus();
+}
@@ -0,0 +1,41 @@
+package petadoption.api.pet;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Filter for the public pet listing. Each attribute list matches any of its values;
+ * ranges are inclusive and may be open on either side. Unset fields don't filter.
+ * The location fields narrow to shelters in a state/city or within a radius of a postal code.
+ */
+@Data
+public class PetFilter {
+    private List<String> species;
+    private List<String> breed;
+    private List<String> gender;
+    private List<String> size;
+    private List<String> coatLength;
+    private List<String> healthStatus;
+    private Integer minAge;
+    private Integer maxAge;
+    private Integer minWeight;
+    private Integer maxWeight;
+
+    private String state;
+    private String city;
+    private String near;
+    private double radiusMiles = 25;
+
+    /**
+     * @return True if any pet attribute is filtered on; location fields don't count.
+     */
+    public boolean hasAttributeFilters() {
+        return isSet(species) || isSet(breed) || isSet(gender) || isSet(size) || isSet(coatLength)
+                || isSet(healthStatus) || minAge != null || maxAge != null || minWeight != null || maxWeight != null;
+    }
+
+    static boolean isSet(List<String> values) {
+        return values != null && values.stream().anyMatch(value -> value != null && !value.isBlank());
+    }
+}
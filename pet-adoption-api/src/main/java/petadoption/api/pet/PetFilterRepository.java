@@ -0,0 +1,17 @@
+package petadoption.api.pet;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Dynamic pet queries that Spring Data can't derive, mixed into {@link PetRepository}.
+ */
+public interface PetFilterRepository {
+
+    /**
+     * Finds summaries of the pets matching a specification. Like the derived summary queries,
+     * only the summary columns are selected, never the description Lob.
+     */
+    Page<PetSummary> findSummaries(Specification<Pet> specification, Pageable pageable);
+}
@@ -0,0 +1,72 @@
+package petadoption.api.pet;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class PetFilterRepositoryImpl implements PetFilterRepository {
+
+    // the properties of PetSummary, as in PetSummary.SELECT
+    private static final List<String> SUMMARY_PROPERTIES = List.of("id", "name", "age", "species", "breed", "gender",
+            "weight", "healthStatus", "imageUrl", "status", "available", "adoptionCenterId", "size");
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PetSummary> findSummaries(Specification<Pet> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Pet> root = query.from(Pet.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String property : SUMMARY_PROPERTIES) {
+            selections.add(root.get(property).alias(property));
+        }
+        query.multiselect(selections);
+        query.where(specification.toPredicate(root, query, cb));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<PetSummary> content = typed.getResultList().stream().map(this::toSummary).toList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    private long count(Specification<Pet> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Pet> root = query.from(Pet.class);
+        query.select(cb.count(root)).where(specification.toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private PetSummary toSummary(Tuple tuple) {
+        Map<String, Object> values = new HashMap<>();
+        for (String property : SUMMARY_PROPERTIES) {
+            values.put(property, tuple.get(property));
+        }
+        return projectionFactory.createProjection(PetSummary.class, values);
+    }
+}
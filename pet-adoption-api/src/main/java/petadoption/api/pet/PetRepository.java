@@ -2,15 +2,21 @@ package petadoption.api.pet;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository; // Add Repository annotation
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for Pet entities.
  */
 @Repository // Indicate this is a Spring Data repository
-public interface PetRepository extends JpaRepository<Pet, Long> {
+public interface PetRepository extends JpaRepository<Pet, Long>, PetFilterRepository {
 
     /**
      * Finds available pets (available = true) with pagination.
@@ -18,7 +24,18 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
      * @param pageable Pagination and sorting information.
      * @return A Page of available Pet entities.
      */
-    Page<Pet> findByAvailableTrue(Pageable pageable);
+    Page<PetSummary> findByAvailableTrue(Pageable pageable);
+
+    /**
+     * Finds the available pets after a given ID, without counting them.
+     * Used for keyset pagination of the adoption page.
+     * @param afterId The last pet ID of the previous page (0 for the first page).
+     * @param pageable The page size; should be the first page, sorted by ID.
+     * @return A Slice of available pets with IDs above {@code afterId}.
+     */
+    Slice<PetSummary> findByAvailableTrueAndIdGreaterThan(Long afterId, Pageable pageable);
+
+    long countByAvailableTrue();
 
     /**
      * Finds pets adopted by a specific user ID.
@@ -26,7 +43,7 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
      * @param adopterId The ID of the adopter user.
      * @return A list of pets adopted by the user (where adopterId matches).
      */
-    List<Pet> findByAdopterId(Long adopterId);
+    List<PetSummary> findByAdopterId(Long adopterId);
 
     /**
      * Finds pets listed by a specific shelter ID.
@@ -43,10 +60,96 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
      * @param adoptionCenterId The ID of the shelter (User ID).
      * @return A List of pets listed by the shelter.
      */
-    List<Pet> findByAdoptionCenterId(Long adoptionCenterId);
+    List<PetSummary> findByAdoptionCenterId(Long adoptionCenterId);
 
     /**
      * Find available pets whose adoptionCenterId is in the given list.
      */
-    Page<Pet> findByAdoptionCenterIdInAndAvailableTrue(List<Long> centerIds, Pageable pageable);
+    Page<PetSummary> findByAdoptionCenterIdInAndAvailableTrue(List<Long> centerIds, Pageable pageable);
+
+    /**
+     * Lists every pet, including unavailable and adopted ones, for the admin dashboard.
+     * @return Summaries of all pets, ordered by ID.
+     */
+    List<PetSummary> findSummariesByOrderByIdAsc();
+
+    /**
+     * Finds available pets listed by shelters in a state.
+     * @param state The state, normalized with {@link petadoption.api.user.UserLocation#normalizeState}.
+     */
+    @Query(value = PetSummary.SELECT + " from Pet p join User u on u.id = p.adoptionCenterId"
+            + " where u.userType = 'SHELTER' and u.state = :state and p.available = true",
+            countQuery = "select count(p) from Pet p join User u on u.id = p.adoptionCenterId"
+                    + " where u.userType = 'SHELTER' and u.state = :state and p.available = true")
+    Page<PetSummary> findAvailableByShelterState(@Param("state") String state, Pageable pageable);
+
+    /**
+     * Finds available pets listed by shelters in a city.
+     * @param state The state, normalized with {@link petadoption.api.user.UserLocation#normalizeState}.
+     * @param city The city, normalized with {@link petadoption.api.user.UserLocation#normalizeCity}.
+     */
+    @Query(value = PetSummary.SELECT + " from Pet p join User u on u.id = p.adoptionCenterId"
+            + " where u.userType = 'SHELTER' and u.state = :state and u.city = :city and p.available = true",
+            countQuery = "select count(p) from Pet p join User u on u.id = p.adoptionCenterId"
+                    + " where u.userType = 'SHELTER' and u.state = :state and u.city = :city and p.available = true")
+    Page<PetSummary> findAvailableByShelterStateAndCity(@Param("state") String state, @Param("city") String city,
+                                                 Pageable pageable);
+
+    /**
+     * Finds available pets listed by shelters in a city of any state.
+     * @param city The city, normalized with {@link petadoption.api.user.UserLocation#normalizeCity}.
+     */
+    @Query(value = PetSummary.SELECT + " from Pet p join User u on u.id = p.adoptionCenterId"
+            + " where u.userType = 'SHELTER' and u.city = :city and p.available = true",
+            countQuery = "select count(p) from Pet p join User u on u.id = p.adoptionCenterId"
+                    + " where u.userType = 'SHELTER' and u.city = :city and p.available = true")
+    Page<PetSummary> findAvailableByShelterCity(@Param("city") String city, Pageable pageable);
+
+    /**
+     * Loads the scoring columns of every pet without the description Lob.
+     * Used to build the in-memory recommendation index.
+     * @return Feature projections of all pets, ordered by ID.
+     */
+    List<PetFeatureRow> findAllProjectedByOrderByIdAsc();
+
+    /**
+     * Loads the scoring columns of one pet without the description Lob.
+     */
+    Optional<PetFeatureRow> findProjectedById(Long id);
+
+    /**
+     * Loads summaries of the given pets, in no particular order.
+     */
+    List<PetSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    /**
+     * Loads summaries with descriptions of the given pets, in no particular order.
+     */
+    List<PetCardSummary> findCardSummariesByIdIn(Collection<Long> ids);
+
+    /**
+     * Loads the searchable text of a batch of available pets, for building the search index.
+     * @param afterId Only pets with a higher ID are returned.
+     * @return Up to a page of search rows, ordered by ID.
+     */
+    List<PetSearchRow> findSearchRowsByAvailableTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Loads the facet columns of every available pet, for building the facet index.
+     */
+    List<PetFacetRow> findFacetRowsByAvailableTrue();
+
+    /**
+     * Loads the scoring columns of pets added or written since a snapshot of the recommendation index.
+     * @param maxId The highest pet ID in the snapshot.
+     * @param since The snapshot's change watermark.
+     * @return Feature projections of the new or changed pets, ordered by ID.
+     */
+    List<PetFeatureRow> findByIdGreaterThanOrUpdatedAtGreaterThanEqualOrderByIdAsc(Long maxId, LocalDateTime since);
+
+    /**
+     * @return Every pet ID. Reads only the primary key index.
+     */
+    @Query("select p.id from Pet p")
+    List<Long> findAllIds();
 }
@@ -0,0 +1,13 @@
+package petadoption.api.pet;
+
+/**
+ * The text columns of a pet the full-text search index reads. Like {@link PetFeatureRow},
+ * {@link Pet} doesn't implement it, so the SELECT is narrowed to these columns.
+ */
+public interface PetSearchRow {
+    Long getId();
+    String getName();
+    String getSpecies();
+    String getBreed();
+    String getDescription();
+}
@@ -5,18 +5,29 @@ import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 // Import Value annotation to read from properties
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.persistence.EntityNotFoundException;
-import petadoption.api.user.User;
-import petadoption.api.user.UserRepository;
+import petadoption.api.cache.EntityCache;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+import petadoption.api.location.ShelterLocationIndex;
+import petadoption.api.search.PetFacetIndex;
+import petadoption.api.search.PetFacetIndex.Facet;
+import petadoption.api.search.PetFacetIndex.FacetCounts;
+import petadoption.api.search.PetSearchIndex;
+import petadoption.api.user.UserLocation;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -28,9 +39,14 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional; // Import Optional
 import java.util.UUID; // For more unique filenames
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service layer handling business logic for Pet entities,
@@ -41,18 +57,39 @@ public class PetService {
 
     private static final Logger log = LoggerFactory.getLogger(PetService.class);
 
+    public static final int MAX_RADIUS_MILES = 500;
+    public static final int MAX_SEARCH_RESULTS = 100;
+
     private final PetRepository petRepository;
-    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PetAttributeVocabulary vocabulary;
+    private final ShelterLocationIndex shelterLocations;
+    private final PetSearchIndex searchIndex;
+    private final PetFacetIndex facetIndex;
+    private final EntityCache entityCache;
 
     @Value("${pet.upload.base-path:./pet-uploads}")
     private String uploadBasePath;
 
     private final String imageSubDir = "images";
 
+    @Value("${pet.listing.count-ttl-seconds:30}")
+    private long countTtlSeconds;
+
+    // available-pet count for keyset listings; dropped whenever a pet changes
+    private volatile CachedCount availableCount;
+
     @Autowired
-    public PetService(PetRepository petRepository,UserRepository userRepository) {
+    public PetService(PetRepository petRepository, ApplicationEventPublisher eventPublisher,
+                      PetAttributeVocabulary vocabulary, ShelterLocationIndex shelterLocations,
+                      PetSearchIndex searchIndex, PetFacetIndex facetIndex, EntityCache entityCache) {
         this.petRepository = petRepository;
-        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.vocabulary = vocabulary;
+        this.shelterLocations = shelterLocations;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.entityCache = entityCache;
 
         log.info("Pet upload base path configured as: {}", uploadBasePath);
 
@@ -81,10 +118,13 @@ public class PetService {
             pet.setAvailable(true);
         }
         pet.setAdopterId(null);
+        canonicalizeAttributes(pet);
 
         log.info("Adding new pet '{}' for shelter ID {}", pet.getName(), pet.getAdoptionCenterId());
         try {
-            return petRepository.save(pet);
+            Pet saved = petRepository.save(pet);
+            eventPublisher.publishEvent(PetChangeEvent.saved(saved));
+            return saved;
         } catch (Exception e) {
             log.error("Database error while saving new pet '{}': {}", pet.getName(), e.getMessage(), e);
             throw new RuntimeException("Failed to save pet to database.", e);
@@ -173,21 +213,61 @@ public class PetService {
     /**
      * Retrieves a paginated list of pets that are currently available for adoption.
      * @param pageable Pagination and sorting information.
-     * @return A Page containing available Pet entities.
+     * @return A Page containing summaries of available pets.
      */
     @Transactional(readOnly = true) // Read-only transaction optimization
-    public Page<Pet> getAllAvailablePets(Pageable pageable) {
+    public Page<PetSummary> getAllAvailablePets(Pageable pageable) {
         log.info("Fetching available pets - Page: {}, Size: {}", pageable.getPageNumber(), pageable.getPageSize());
         return petRepository.findByAvailableTrue(pageable);
     }
 
+    /**
+     * Retrieves a page of available pets after a cursor, for infinite scroll. Unlike
+     * {@link #getAllAvailablePets}, this seeks past the previous page by ID instead of
+     * using an OFFSET, and doesn't count the matching pets unless asked to.
+     * @param afterId The {@code nextCursor} of the previous page, or 0 for the first page.
+     * @param size The page size.
+     * @param includeTotal Whether to include the (cached) number of available pets.
+     */
+    @Transactional(readOnly = true)
+    public PetSlice getAvailablePetsAfter(long afterId, int size, boolean includeTotal) {
+        log.info("Fetching available pets after ID {} - Size: {}", afterId, size);
+        Slice<PetSummary> slice = petRepository.findByAvailableTrueAndIdGreaterThan(afterId,
+                PageRequest.of(0, size, Sort.by("id").ascending()));
+        List<PetSummary> pets = slice.getContent();
+        Long nextCursor = slice.hasNext() ? pets.get(pets.size() - 1).getId() : null;
+        return new PetSlice(pets, nextCursor, includeTotal ? countAvailablePets() : null);
+    }
+
+    /**
+     * @return The number of available pets, cached for {@code pet.listing.count-ttl-seconds}.
+     */
+    public long countAvailablePets() {
+        CachedCount cached = availableCount;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.expiresAtNanos < 0) {
+            return cached.value;
+        }
+        long count = petRepository.countByAvailableTrue();
+        availableCount = new CachedCount(count, now + TimeUnit.SECONDS.toNanos(countTtlSeconds));
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChange(PetChangeEvent event) {
+        availableCount = null;
+    }
+
+    private record CachedCount(long value, long expiresAtNanos) {
+    }
+
     /**
      * Retrieves a list of pets adopted by a specific user.
      * @param adopterId The ID of the adopter user.
-     * @return A List of Pet entities adopted by the user. Returns empty list if adopterId is null.
+     * @return Summaries of the pets adopted by the user. Returns empty list if adopterId is null.
      */
     @Transactional(readOnly = true)
-    public List<Pet> getPetsByAdopter(Long adopterId) {
+    public List<PetSummary> getPetsByAdopter(Long adopterId) {
         if (adopterId == null) {
             log.warn("Attempted to fetch adopted pets with null adopter ID.");
             return List.of(); // Return empty list
@@ -199,10 +279,10 @@ public class PetService {
     /**
      * Retrieves a list of pets listed by a specific shelter.
      * @param shelterId The ID of the shelter user.
-     * @return A List of Pet entities listed by the shelter. Returns empty list if shelterId is null.
+     * @return Summaries of the pets listed by the shelter. Returns empty list if shelterId is null.
      */
     @Transactional(readOnly = true)
-    public List<Pet> getPetsByShelter(Long shelterId) {
+    public List<PetSummary> getPetsByShelter(Long shelterId) {
         if (shelterId == null) {
             log.warn("Attempted to fetch shelter pets with null shelter ID.");
             return List.of();
@@ -253,11 +333,7 @@ public class PetService {
             }
             log.info("Parsed {} records from CSV. Saving {} valid pets.", recordCount, pets.size());
         }
-        if (!pets.isEmpty()) {
-            return petRepository.saveAll(pets);
-        } else {
-            return List.of();
-        }
+        return saveImportedPets(pets);
     }
 
     /**
@@ -299,11 +375,16 @@ public class PetService {
             }
             log.info("Parsed {} records from CSV data. Saving {} valid pets.", recordCount, pets.size());
         }
-        if (!pets.isEmpty()) {
-            return petRepository.saveAll(pets);
-        } else {
+        return saveImportedPets(pets);
+    }
+
+    private List<Pet> saveImportedPets(List<Pet> pets) {
+        if (pets.isEmpty()) {
             return List.of();
         }
+        List<Pet> saved = petRepository.saveAll(pets);
+        eventPublisher.publishEvent(PetChangeEvent.saved(saved));
+        return saved;
     }
 
     /**
@@ -312,8 +393,9 @@ public class PetService {
      * Sets appropriate defaults for imported pets.
      * @param record The CSVRecord to parse.
      * @return A Pet object populated from the record.
+     * Package-private so the JMH benchmarks can measure it directly.
      */
-    private Pet parsePetFromCsvRecord(CSVRecord record) {
+    Pet parsePetFromCsvRecord(CSVRecord record) {
         Pet pet = new Pet();
         pet.setName(getValueOrDefault(record, "NAME", "Unnamed Pet"));
         pet.setAge(getIntValueOrDefault(record, "AGE", 0));
@@ -330,10 +412,24 @@ public class PetService {
         pet.setStatus(getValueOrDefault(record, "STATUS", "Available")); // Default to Available
         pet.setAvailable(getBooleanValueOrDefault(record, "AVAILABLE", true)); // Default to true
         pet.setAdopterId(null);
+        canonicalizeAttributes(pet);
 
         return pet;
     }
 
+    /**
+     * Replaces the categorical attributes with their canonical spelling, so casing and
+     * whitespace variants of the same value (e.g. "dog", " DOG ") are stored identically.
+     * @param pet The pet to normalize in place.
+     */
+    private void canonicalizeAttributes(Pet pet) {
+        pet.setSpecies(vocabulary.canonicalize(Attribute.SPECIES, pet.getSpecies()));
+        pet.setBreed(vocabulary.canonicalize(Attribute.BREED, pet.getBreed()));
+        pet.setGender(vocabulary.canonicalize(Attribute.GENDER, pet.getGender()));
+        pet.setCoatLength(vocabulary.canonicalize(Attribute.COAT_LENGTH, pet.getCoatLength()));
+        pet.setHealthStatus(vocabulary.canonicalize(Attribute.HEALTH_STATUS, pet.getHealthStatus()));
+    }
+
     /**
      * Deletes all pets from the database. Use with extreme caution. Requires appropriate authorization.
      */
@@ -342,18 +438,18 @@ public class PetService {
         long count = petRepository.count();
         log.warn("Executing DELETE ALL PETS operation. {} pets will be deleted.", count);
         petRepository.deleteAll();
+        eventPublisher.publishEvent(PetChangeEvent.cleared());
         log.info("Successfully deleted all pets.");
     }
 
     /**
-     * Retrieves a single pet by its ID.
+     * Retrieves a single pet by its ID, from the entity cache if possible.
      * @param petId The ID of the pet.
      * @return An Optional containing the Pet if found, or empty otherwise.
      */
-    @Transactional(readOnly = true)
     public Optional<Pet> findPetById(Long petId) {
         log.debug("Finding pet by ID: {}", petId);
-        return petRepository.findById(petId);
+        return entityCache.findPet(petId);
     }
 
     // --- Helper methods for safe CSV parsing ---
@@ -420,42 +516,126 @@ public class PetService {
 
     /**
      * Gets a list of ALL pets (including unavailable/adopted). Use with caution.
-     * @return A List of all Pet entities.
+     * @return Summaries of all pets, ordered by ID.
      */
     @Transactional(readOnly = true)
-    public List<Pet> getAllPetsList() {
+    public List<PetSummary> getAllPetsList() {
         log.info("Fetching list of ALL pets (including unavailable)");
-        return petRepository.findAll();
+        return petRepository.findSummariesByOrderByIdAsc();
     }
 
+    /**
+     * Finds available pets listed by shelters in a state and/or city, in one indexed join.
+     * @param state The state as written in shelter addresses, e.g. "TX". Case-insensitive; may be blank.
+     * @param city The city, e.g. "Austin". Case-insensitive; may be blank.
+     */
     @Transactional(readOnly = true)
-    public Page<Pet> getAvailablePetsByLocation(String state, String city, Pageable pageable) {
-        List<User> shelters = userRepository.findByUserType("SHELTER");
-
-        List<Long> centerIds = shelters.stream()
-                .filter(u -> {
-                    String addr = u.getAddress();
-                    if (addr == null) return false;
-                    boolean stateMatch = (state == null || state.isEmpty())
-                            || addr.toLowerCase().endsWith(", " + state.toLowerCase());
-                    boolean cityMatch = (city == null || city.isEmpty())
-                            || addr.toLowerCase().startsWith(city.toLowerCase() + ", ");
-                    return stateMatch && cityMatch;
-                })
-                .map(User::getId)
-                .toList();
+    public Page<PetSummary> getAvailablePetsByLocation(String state, String city, Pageable pageable) {
+        String normalizedState = UserLocation.normalizeState(state);
+        String normalizedCity = UserLocation.normalizeCity(city);
+        if (normalizedState != null && normalizedCity != null) {
+            return petRepository.findAvailableByShelterStateAndCity(normalizedState, normalizedCity, pageable);
+        } else if (normalizedState != null) {
+            return petRepository.findAvailableByShelterState(normalizedState, pageable);
+        } else if (normalizedCity != null) {
+            return petRepository.findAvailableByShelterCity(normalizedCity, pageable);
+        }
+        return petRepository.findByAvailableTrue(pageable);
+    }
 
+    /**
+     * Finds available pets listed by shelters within a radius of a postal code.
+     * @param postalCode A 5-digit ZIP or ZIP+4.
+     * @param radiusMiles The search radius, in (0, {@value #MAX_RADIUS_MILES}] miles.
+     * @throws IllegalArgumentException If the radius is out of range or the postal code is unknown.
+     */
+    @Transactional(readOnly = true)
+    public Page<PetSummary> getAvailablePetsNear(String postalCode, double radiusMiles, Pageable pageable) {
+        List<Long> centerIds = sheltersNear(postalCode, radiusMiles);
         if (centerIds.isEmpty()) {
             return Page.empty(pageable);
         }
         return petRepository.findByAdoptionCenterIdInAndAvailableTrue(centerIds, pageable);
     }
 
+    /**
+     * Finds available pets matching any combination of attribute and location filters.
+     * Attribute filters run as one dynamic query that the pet filter indexes can serve;
+     * location-only filters use the fixed queries above.
+     * @throws IllegalArgumentException If a range is inverted, a size or postal code is unknown,
+     *                                  or the radius is out of range.
+     */
+    @Transactional(readOnly = true)
+    public Page<PetSummary> getAvailablePets(PetFilter filter, Pageable pageable) {
+        boolean near = filter.getNear() != null && !filter.getNear().isEmpty();
+        if (!filter.hasAttributeFilters()) {
+            if (near) {
+                return getAvailablePetsNear(filter.getNear(), filter.getRadiusMiles(), pageable);
+            }
+            return getAvailablePetsByLocation(filter.getState(), filter.getCity(), pageable);
+        }
+        List<Long> centerIds = near ? sheltersNear(filter.getNear(), filter.getRadiusMiles()) : null;
+        if (centerIds != null && centerIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return petRepository.findSummaries(PetSpecifications.availableMatching(filter, centerIds), pageable);
+    }
+
+    private List<Long> sheltersNear(String postalCode, double radiusMiles) {
+        if (!(radiusMiles > 0 && radiusMiles <= MAX_RADIUS_MILES)) {
+            throw new IllegalArgumentException("radiusMiles must be between 0 and " + MAX_RADIUS_MILES);
+        }
+        List<Long> centerIds = shelterLocations.sheltersNear(postalCode, radiusMiles);
+        if (centerIds == null) {
+            throw new IllegalArgumentException("Unknown postal code: " + postalCode);
+        }
+        return centerIds;
+    }
+
+    /**
+     * Full-text search over the name, species, breed and description of available pets.
+     * The last word also matches as a prefix, so partial input finds results.
+     * @param limit The maximum number of results, in [1, {@value #MAX_SEARCH_RESULTS}].
+     * @return Summaries of the matching pets, best match first.
+     * @throws IllegalArgumentException If the query is blank or the limit is out of range.
+     */
+    @Transactional(readOnly = true)
+    public List<PetSummary> searchAvailablePets(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        long[] ids = searchIndex.search(query, limit);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> ranked = Arrays.stream(ids).boxed().toList();
+        Map<Long, PetSummary> byId = petRepository.findSummariesByIdIn(ranked).stream()
+                .collect(Collectors.toMap(PetSummary::getId, Function.identity()));
+        // the index can briefly lag an adoption; drop pets that are no longer available
+        return ranked.stream()
+                .map(byId::get)
+                .filter(summary -> summary != null && Boolean.TRUE.equals(summary.getAvailable()))
+                .toList();
+    }
+
+    /**
+     * Counts available pets per species, breed, gender, coat length, size and shelter.
+     * Served from the in-memory facet index; doesn't touch the database.
+     * @param filters Selected values per facet; values of one facet are alternatives.
+     */
+    public FacetCounts getFacetCounts(Map<Facet, List<String>> filters) {
+        return facetIndex.count(filters);
+    }
+
     @Transactional
     public void deletePetById(Long petId) {
         if (!petRepository.existsById(petId)) {
             throw new EntityNotFoundException("Pet not found: " + petId);
         }
         petRepository.deleteById(petId);
+        eventPublisher.publishEvent(PetChangeEvent.deleted(petId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package petadoption.api.pet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills in {@code PETS.SIZE} for pets saved before the column existed. The schema is kept
+ * up to date by Hibernate ({@code ddl-auto=update}), which adds the column but, unlike the
+ * backfill in {@code V8__add_pet_size.sql}, leaves it null, so those pets would never
+ * match a size filter. Sizes come from {@link Pet#sizeOf}, like every save.
+ */
+@Component
+public class PetSizeBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(PetSizeBackfill.class);
+
+    private static final String SELECT_SQL =
+            "SELECT pet_id, species, weight FROM pets WHERE size IS NULL ORDER BY pet_id LIMIT ?";
+    // a pet saved meanwhile already has its size
+    private static final String UPDATE_SQL = "UPDATE pets SET size = ? WHERE pet_id = ? AND size IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public PetSizeBackfill(JdbcTemplate jdbcTemplate,
+                           @Value("${pet.size-backfill.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sizes every pet that has none yet. Runs once when the application is ready.
+     * @return The number of pets updated.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int backfill() {
+        long start = System.nanoTime();
+        int updated = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Object[]{
+                    Pet.sizeOf(rs.getString("species"), rs.getObject("weight", Integer.class)),
+                    rs.getLong("pet_id")}, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+            updated += rows.size();
+        }
+        if (updated > 0) {
+            log.info("Backfilled the size of {} pets in {} ms", updated, (System.nanoTime() - start) / 1_000_000);
+        }
+        return updated;
+    }
+}
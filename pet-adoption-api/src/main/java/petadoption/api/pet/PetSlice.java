@@ -0,0 +1,21 @@
+package petadoption.api.pet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated pet listing. Pass {@code nextCursor} back as {@code after}
+ * to get the following page; it is null on the last page. {@code totalElements} is only
+ * filled in when requested, and may lag recent changes by a few seconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PetSlice {
+    private List<PetSummary> items;
+    private Long nextCursor;
+    private Long totalElements;
+}
@@ -0,0 +1,109 @@
+package petadoption.api.pet;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import petadoption.api.user.User;
+import petadoption.api.user.UserLocation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds the WHERE clause of filtered pet listings. Every predicate compares a bare column
+ * so the composite indexes of V7__add_pet_filter_indexes.sql and V8__add_pet_size.sql can serve it.
+ */
+final class PetSpecifications {
+
+    private static final String SHELTER = "SHELTER";
+
+    private PetSpecifications() {
+    }
+
+    /**
+     * Available pets matching every set field of the filter.
+     * @param centerIds Shelters to restrict to, or null for any shelter.
+     * @throws IllegalArgumentException If a range is inverted or a size is unknown.
+     */
+    static Specification<Pet> availableMatching(PetFilter filter, Collection<Long> centerIds) {
+        checkRange("minAge", filter.getMinAge(), "maxAge", filter.getMaxAge());
+        checkRange("minWeight", filter.getMinWeight(), "maxWeight", filter.getMaxWeight());
+        List<String> sizes = new ArrayList<>();
+        for (String size : values(filter.getSize())) {
+            String normalized = Pet.normalizeSize(size);
+            if (normalized == null) {
+                throw new IllegalArgumentException("size must be one of " + Pet.SIZES);
+            }
+            sizes.add(normalized);
+        }
+        String state = UserLocation.normalizeState(filter.getState());
+        String city = UserLocation.normalizeCity(filter.getCity());
+
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("available"), true));
+            in(predicates, cb, root.<String>get("species"), values(filter.getSpecies()));
+            in(predicates, cb, root.<String>get("breed"), values(filter.getBreed()));
+            in(predicates, cb, root.<String>get("gender"), values(filter.getGender()));
+            in(predicates, cb, root.<String>get("coatLength"), values(filter.getCoatLength()));
+            in(predicates, cb, root.<String>get("healthStatus"), values(filter.getHealthStatus()));
+            range(predicates, cb, root.<Integer>get("age"), filter.getMinAge(), filter.getMaxAge());
+            range(predicates, cb, root.<Integer>get("weight"), filter.getMinWeight(), filter.getMaxWeight());
+            in(predicates, cb, root.<String>get("size"), sizes);
+            if (centerIds != null) {
+                predicates.add(root.get("adoptionCenterId").in(centerIds));
+            }
+            if (state != null || city != null) {
+                Subquery<Long> shelters = query.subquery(Long.class);
+                Root<User> user = shelters.from(User.class);
+                List<Predicate> where = new ArrayList<>();
+                where.add(cb.equal(user.get("userType"), SHELTER));
+                if (state != null) {
+                    where.add(cb.equal(user.get("state"), state));
+                }
+                if (city != null) {
+                    where.add(cb.equal(user.get("city"), city));
+                }
+                shelters.select(user.get("id")).where(where.toArray(new Predicate[0]));
+                predicates.add(root.get("adoptionCenterId").in(shelters));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static void in(List<Predicate> predicates, CriteriaBuilder cb, Path<String> column, List<String> values) {
+        if (values.size() == 1) {
+            predicates.add(cb.equal(column, values.get(0)));
+        } else if (!values.isEmpty()) {
+            predicates.add(column.in(values));
+        }
+    }
+
+    private static void range(List<Predicate> predicates, CriteriaBuilder cb, Path<Integer> column,
+                              Integer min, Integer max) {
+        if (min != null && max != null) {
+            predicates.add(cb.between(column, min, max));
+        } else if (min != null) {
+            predicates.add(cb.greaterThanOrEqualTo(column, min));
+        } else if (max != null) {
+            predicates.add(cb.lessThanOrEqualTo(column, max));
+        }
+    }
+
+    private static void checkRange(String minName, Integer min, String maxName, Integer max) {
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException(minName + " must not exceed " + maxName);
+        }
+    }
+
+    private static List<String> values(List<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream().filter(value -> value != null && !value.isBlank()).map(String::trim).toList();
+    }
+}
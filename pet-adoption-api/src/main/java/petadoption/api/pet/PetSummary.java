@@ -0,0 +1,28 @@
+package petadoption.api.pet;
+
+/**
+ * The columns a pet card shows, for list endpoints. Queries returning it never read the
+ * description Lob; the full pet is served by {@code GET /api/pets/{id}}.
+ * Like {@link PetFeatureRow}, {@link Pet} doesn't implement it, so the SELECT is narrowed.
+ */
+public interface PetSummary {
+
+    /** JPQL select list for string queries returning summaries of the pet aliased {@code p}. */
+    String SELECT = "select p.id as id, p.name as name, p.age as age, p.species as species, p.breed as breed,"
+            + " p.gender as gender, p.weight as weight, p.healthStatus as healthStatus, p.imageUrl as imageUrl,"
+            + " p.status as status, p.available as available, p.adoptionCenterId as adoptionCenterId, p.size as size";
+
+    Long getId();
+    String getName();
+    Integer getAge();
+    String getSpecies();
+    String getBreed();
+    String getGender();
+    Integer getWeight();
+    String getHealthStatus();
+    String getImageUrl();
+    String getStatus();
+    Boolean getAvailable();
+    Long getAdoptionCenterId();
+    String getSize();
+}
@@ -0,0 +1,152 @@
+package petadoption.api.recommendation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted posting lists over the available pets, used to pull recommendation
+ * candidates without scanning the whole catalog. Each list holds the sorted IDs
+ * of the pets with one species, one breed, or an age or weight in one bucket.
+ * Instances are immutable; an {@link Editor} copies only the lists a write touches.
+ */
+final class CandidatePostings {
+
+    static final int AGE_BUCKET_YEARS = 2;
+    static final int WEIGHT_BUCKET = 10;
+
+    static final CandidatePostings EMPTY = new CandidatePostings(Map.of());
+
+    private static final long[] NO_IDS = new long[0];
+
+    private static final int SPECIES = 0;
+    private static final int BREED = 1;
+    private static final int AGE = 2;
+    private static final int WEIGHT = 3;
+
+    private final Map<Long, long[]> lists;
+
+    private CandidatePostings(Map<Long, long[]> lists) {
+        this.lists = lists;
+    }
+
+    /**
+     * @return The sorted pet IDs posted under a key, never null.
+     */
+    long[] get(long key) {
+        return lists.getOrDefault(key, NO_IDS);
+    }
+
+    int keyCount() {
+        return lists.size();
+    }
+
+    Editor edit() {
+        return new Editor();
+    }
+
+    static long speciesKey(int code) {
+        return key(SPECIES, code);
+    }
+
+    static long breedKey(int code) {
+        return key(BREED, code);
+    }
+
+    static long ageKey(int age) {
+        return key(AGE, Math.floorDiv(age, AGE_BUCKET_YEARS));
+    }
+
+    static long weightKey(int weight) {
+        return key(WEIGHT, Math.floorDiv(weight, WEIGHT_BUCKET));
+    }
+
+    /**
+     * @return The keys a snapshot slot is posted under; none if the pet isn't available.
+     */
+    static long[] keysOf(PetFeatureIndex.Snapshot pets, int slot) {
+        if (!pets.available[slot]) {
+            return NO_IDS;
+        }
+        long[] keys = new long[4];
+        int count = 0;
+        if (pets.species[slot] >= 0) {
+            keys[count++] = speciesKey(pets.species[slot]);
+        }
+        if (pets.breeds[slot] >= 0) {
+            keys[count++] = breedKey(pets.breeds[slot]);
+        }
+        keys[count++] = ageKey(pets.ages[slot]);
+        keys[count++] = weightKey(pets.weights[slot]);
+        return count == keys.length ? keys : Arrays.copyOf(keys, count);
+    }
+
+    private static long key(int attribute, int value) {
+        return ((long) attribute << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Collects additions and removals, then applies them to the touched lists in one pass.
+     */
+    final class Editor {
+        private final Map<Long, Set<Long>> added = new HashMap<>();
+        private final Map<Long, Set<Long>> removed = new HashMap<>();
+
+        Editor add(long petId, long[] keys) {
+            for (long key : keys) {
+                added.computeIfAbsent(key, k -> new HashSet<>()).add(petId);
+                Set<Long> pending = removed.get(key);
+                if (pending != null) {
+                    pending.remove(petId);
+                }
+            }
+            return this;
+        }
+
+        Editor remove(long petId, long[] keys) {
+            for (long key : keys) {
+                removed.computeIfAbsent(key, k -> new HashSet<>()).add(petId);
+                Set<Long> pending = added.get(key);
+                if (pending != null) {
+                    pending.remove(petId);
+                }
+            }
+            return this;
+        }
+
+        CandidatePostings build() {
+            if (added.isEmpty() && removed.isEmpty()) {
+                return CandidatePostings.this;
+            }
+            Map<Long, long[]> result = new HashMap<>(lists);
+            Set<Long> touched = new HashSet<>(added.keySet());
+            touched.addAll(removed.keySet());
+            for (Long key : touched) {
+                long[] ids = merge(get(key), added.getOrDefault(key, Set.of()), removed.getOrDefault(key, Set.of()));
+                if (ids.length == 0) {
+                    result.remove(key);
+                } else {
+                    result.put(key, ids);
+                }
+            }
+            return new CandidatePostings(result);
+        }
+
+        private long[] merge(long[] current, Set<Long> add, Set<Long> remove) {
+            long[] ids = new long[current.length + add.size()];
+            int count = 0;
+            for (long id : current) {
+                if (!remove.contains(id) && !add.contains(id)) {
+                    ids[count++] = id;
+                }
+            }
+            for (long id : add) {
+                ids[count++] = id;
+            }
+            Arrays.sort(ids, 0, count);
+            return count == ids.length ? ids : Arrays.copyOf(ids, count);
+        }
+    }
+}
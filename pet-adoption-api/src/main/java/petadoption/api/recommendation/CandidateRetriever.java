@@ -0,0 +1,116 @@
+package petadoption.api.recommendation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntToLongFunction;
+
+/**
+ * First stage of recommendation for large catalogs: pulls the pets that share the
+ * user's preferred species or breed, or fall in their age or weight range, from
+ * the snapshot's posting lists, plus a random exploration sample so other species
+ * still get a chance. Only these candidates are then scored, so the work per
+ * request grows with the candidate count rather than the catalog.
+ */
+@Component
+public class CandidateRetriever {
+
+    private static final Logger log = LoggerFactory.getLogger(CandidateRetriever.class);
+
+    // wider ranges than this match most of the catalog and aren't worth retrieving by
+    private static final int MAX_RANGE_BUCKETS = 16;
+
+    private final boolean enabled;
+    private final int catalogThreshold;
+    private final int explorationSize;
+
+    public CandidateRetriever(@Value("${recommendation.candidates.enabled:true}") boolean enabled,
+                              @Value("${recommendation.candidates.threshold:10000}") int catalogThreshold,
+                              @Value("${recommendation.candidates.exploration-size:200}") int explorationSize) {
+        this.enabled = enabled;
+        this.catalogThreshold = catalogThreshold;
+        this.explorationSize = Math.max(0, explorationSize);
+        log.info("Candidate retrieval {} above {} pets, exploring {} extra pets",
+                enabled ? "enabled" : "disabled", catalogThreshold, this.explorationSize);
+    }
+
+    /**
+     * Picks the snapshot slots worth scoring for a user.
+     * @param seed Seeds the exploration sample; the same seed gives the same sample,
+     *             which keeps cursor paging stable.
+     * @return Sorted, distinct slots, or null if every pet should be scored instead
+     *         (small catalog, retrieval disabled or no preference to retrieve by).
+     */
+    int[] candidates(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, long seed) {
+        if (!enabled || pets.size < catalogThreshold) {
+            return null;
+        }
+        CandidatePostings postings = pets.postings;
+        List<long[]> lists = new ArrayList<>();
+        if (prefs.speciesSet && prefs.species >= 0) {
+            lists.add(postings.get(CandidatePostings.speciesKey(prefs.species)));
+        }
+        if (prefs.breedSet && prefs.breed >= 0) {
+            lists.add(postings.get(CandidatePostings.breedKey(prefs.breed)));
+        }
+        if (prefs.ageSet && prefs.ageTolerance > 0) {
+            addRange(lists, postings, prefs.targetAge, prefs.ageTolerance, CandidatePostings.AGE_BUCKET_YEARS,
+                    CandidatePostings::ageKey);
+        }
+        if (prefs.weightSet && prefs.weightTolerance > 0) {
+            addRange(lists, postings, prefs.targetWeight, prefs.weightTolerance, CandidatePostings.WEIGHT_BUCKET,
+                    CandidatePostings::weightKey);
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        int total = explorationSize;
+        for (long[] ids : lists) {
+            total += ids.length;
+        }
+        int[] slots = new int[total];
+        int count = 0;
+        for (long[] ids : lists) {
+            for (long id : ids) {
+                int slot = pets.slotOf(id);
+                if (slot >= 0) {
+                    slots[count++] = slot;
+                }
+            }
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < explorationSize && pets.size > 0; i++) {
+            slots[count++] = random.nextInt(pets.size);
+        }
+        Arrays.sort(slots, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || slots[i] != slots[distinct - 1]) {
+                slots[distinct++] = slots[i];
+            }
+        }
+        return Arrays.copyOf(slots, distinct);
+    }
+
+    /**
+     * Adds the lists of every bucket overlapping target ± tolerance, where the range score is positive.
+     */
+    private static void addRange(List<long[]> lists, CandidatePostings postings, int target, double tolerance,
+                                 int bucketWidth, IntToLongFunction keyOf) {
+        int low = (int) Math.max(0, Math.floor(target - tolerance));
+        int high = (int) Math.min(Integer.MAX_VALUE, Math.ceil(target + tolerance));
+        if ((long) high / bucketWidth - low / bucketWidth >= MAX_RANGE_BUCKETS) {
+            return;
+        }
+        for (int value = low - low % bucketWidth; value <= high; value += bucketWidth) {
+            lists.add(postings.get(keyOf.applyAsLong(value)));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package petadoption.api.recommendation;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A user's collaborative-filtering bonus resolved to snapshot slots, so it can be
+ * added to a block of content-based scores without a hash lookup per pet.
+ */
+final class CollaborativeBoost {
+
+    static final CollaborativeBoost NONE = new CollaborativeBoost(new int[0], new double[0]);
+
+    private final int[] slots;
+    private final double[] bonuses;
+
+    private CollaborativeBoost(int[] slots, double[] bonuses) {
+        this.slots = slots;
+        this.bonuses = bonuses;
+    }
+
+    /**
+     * @param affinity Pet ID to affinity in [0, 1].
+     * @param weight Points a pet with full affinity gets.
+     */
+    static CollaborativeBoost of(PetFeatureIndex.Snapshot pets, Map<Long, Double> affinity, double weight) {
+        if (affinity.isEmpty() || weight == 0) {
+            return NONE;
+        }
+        int[] slots = new int[affinity.size()];
+        int count = 0;
+        for (Long petId : affinity.keySet()) {
+            int slot = pets.slotOf(petId);
+            if (slot >= 0) {
+                slots[count++] = slot;
+            }
+        }
+        Arrays.sort(slots, 0, count);
+        double[] bonuses = new double[count];
+        for (int i = 0; i < count; i++) {
+            bonuses[i] = weight * Math.min(1.0, affinity.get(pets.ids[slots[i]]));
+        }
+        return new CollaborativeBoost(Arrays.copyOf(slots, count), bonuses);
+    }
+
+    boolean isEmpty() {
+        return slots.length == 0;
+    }
+
+    /**
+     * @return The boosted slots, sorted. Useful as extra recommendation candidates.
+     */
+    int[] slots() {
+        return slots;
+    }
+
+    double bonus(int slot) {
+        int i = Arrays.binarySearch(slots, slot);
+        return i >= 0 ? bonuses[i] : 0;
+    }
+
+    /**
+     * Adds the bonus of slots {@code from} to {@code to} (exclusive) to {@code out[0 .. to - from)}.
+     */
+    void apply(int from, int to, double[] out) {
+        int i = Arrays.binarySearch(slots, from);
+        for (i = i >= 0 ? i : -i - 1; i < slots.length && slots[i] < to; i++) {
+            out[slots[i] - from] += bonuses[i];
+        }
+    }
+}
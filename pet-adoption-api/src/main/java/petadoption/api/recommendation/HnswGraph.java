@@ -0,0 +1,523 @@
+package petadoption.api.recommendation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest-neighbor search
+ * over pet feature vectors. Each vector has a few numeric dimensions and a few
+ * categorical ones; a categorical dimension stands for a one-hot block, so two
+ * different values are {@code 2} apart in squared distance and a value and a missing
+ * value are {@code 1} apart, without materializing the one-hot columns.
+ * <p>
+ * Pets are inserted one at a time. Removing a pet only tombstones its node: it still
+ * routes searches but is never returned. Call {@link #compact()} once tombstones pile up.
+ * Not thread-safe; callers serialize writes against reads.
+ */
+final class HnswGraph {
+
+    private static final int MAX_LEVEL = 16;
+
+    private final int numericDims;
+    private final int categoricalDims;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private int size;
+    private int tombstones;
+    private long[] petIds = new long[16];
+    private float[] numeric;
+    private int[] categorical;
+    private boolean[] deleted = new boolean[16];
+    // links[node][level][0] is the neighbor count, followed by the neighbor nodes
+    private int[][][] links = new int[16][][];
+    private final Map<Long, Integer> nodeOf = new HashMap<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    HnswGraph(int numericDims, int categoricalDims, int m, int efConstruction, long seed) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2: " + m);
+        }
+        this.numericDims = numericDims;
+        this.categoricalDims = categoricalDims;
+        this.m = m;
+        this.efConstruction = Math.max(m, efConstruction);
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        this.numeric = new float[16 * numericDims];
+        this.categorical = new int[16 * categoricalDims];
+    }
+
+    /**
+     * @return How many pets can be returned by a search.
+     */
+    int liveCount() {
+        return size - tombstones;
+    }
+
+    int tombstoneCount() {
+        return tombstones;
+    }
+
+    boolean contains(long petId) {
+        Integer node = nodeOf.get(petId);
+        return node != null && !deleted[node];
+    }
+
+    /**
+     * Adds a pet, replacing its previous vector if it was already in the graph.
+     * Re-inserting an unchanged vector is a no-op.
+     */
+    void insert(long petId, float[] numericValues, int[] categoricalValues) {
+        Integer existing = nodeOf.get(petId);
+        if (existing != null && !deleted[existing]) {
+            if (sameVector(existing, numericValues, categoricalValues)) {
+                return;
+            }
+            tombstone(existing);
+        }
+        int node = append(petId, numericValues, categoricalValues);
+        nodeOf.put(petId, node);
+
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxLinks(l) + 1];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return;
+        }
+
+        int nOff = node * numericDims;
+        int cOff = node * categoricalDims;
+        int ep = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            ep = greedyClosest(numeric, nOff, categorical, cOff, ep, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            NodeHeap found = searchLayer(numeric, nOff, categorical, cOff, ep, efConstruction, l, -1);
+            int[] neighbors = selectNeighbors(found.sortedNodes(), found.sortedDistances(), m);
+            for (int neighbor : neighbors) {
+                addLink(node, neighbor, l);
+                addLink(neighbor, node, l);
+            }
+            ep = found.sortedNodes()[0];
+        }
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Tombstones a pet so searches stop returning it.
+     * @return True if the pet was in the graph.
+     */
+    boolean remove(long petId) {
+        Integer node = nodeOf.remove(petId);
+        if (node == null || deleted[node]) {
+            return false;
+        }
+        tombstone(node);
+        return true;
+    }
+
+    /**
+     * Finds the pets closest to a query vector.
+     * @param k How many pets to return.
+     * @param ef Size of the candidate list; larger is slower but more accurate.
+     * @param excludedPetId A pet to leave out of the result, usually the query pet itself.
+     * @return Up to {@code k} pet IDs, closest first; equally close pets are in ascending ID order.
+     */
+    long[] search(float[] numericQuery, int[] categoricalQuery, int k, int ef, long excludedPetId) {
+        if (k <= 0 || liveCount() == 0) {
+            return new long[0];
+        }
+        int ep = entryPoint;
+        for (int l = topLevel; l > 0; l--) {
+            ep = greedyClosest(numericQuery, 0, categoricalQuery, 0, ep, l);
+        }
+        NodeHeap found = searchLayer(numericQuery, 0, categoricalQuery, 0, ep, Math.max(ef, k), 0, excludedPetId);
+        int[] nodes = found.sortedNodes();
+        float[] distances = found.sortedDistances();
+        Integer[] index = new Integer[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            index[i] = i;
+        }
+        Arrays.sort(index, (a, b) -> distances[a] != distances[b]
+                ? Float.compare(distances[a], distances[b])
+                : Long.compare(petIds[nodes[a]], petIds[nodes[b]]));
+        int n = Math.min(k, nodes.length);
+        long[] result = new long[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = petIds[nodes[index[i]]];
+        }
+        return result;
+    }
+
+    /**
+     * Builds a new graph holding only the live pets, dropping every tombstone.
+     */
+    HnswGraph compact() {
+        HnswGraph compacted = new HnswGraph(numericDims, categoricalDims, m, efConstruction, random.nextLong());
+        float[] n = new float[numericDims];
+        int[] c = new int[categoricalDims];
+        for (int node = 0; node < size; node++) {
+            if (!deleted[node]) {
+                System.arraycopy(numeric, node * numericDims, n, 0, numericDims);
+                System.arraycopy(categorical, node * categoricalDims, c, 0, categoricalDims);
+                compacted.insert(petIds[node], n, c);
+            }
+        }
+        return compacted;
+    }
+
+    // --- graph construction ---
+
+    private int append(long petId, float[] numericValues, int[] categoricalValues) {
+        if (size == petIds.length) {
+            int grown = size * 2;
+            petIds = Arrays.copyOf(petIds, grown);
+            deleted = Arrays.copyOf(deleted, grown);
+            links = Arrays.copyOf(links, grown);
+            numeric = Arrays.copyOf(numeric, grown * numericDims);
+            categorical = Arrays.copyOf(categorical, grown * categoricalDims);
+        }
+        int node = size++;
+        petIds[node] = petId;
+        System.arraycopy(numericValues, 0, numeric, node * numericDims, numericDims);
+        System.arraycopy(categoricalValues, 0, categorical, node * categoricalDims, categoricalDims);
+        return node;
+    }
+
+    private void tombstone(int node) {
+        deleted[node] = true;
+        tombstones++;
+    }
+
+    private boolean sameVector(int node, float[] numericValues, int[] categoricalValues) {
+        return Arrays.equals(numeric, node * numericDims, (node + 1) * numericDims, numericValues, 0, numericDims)
+                && Arrays.equals(categorical, node * categoricalDims, (node + 1) * categoricalDims,
+                categoricalValues, 0, categoricalDims);
+    }
+
+    private int randomLevel() {
+        double level = -Math.log(1 - random.nextDouble()) * levelMultiplier;
+        return (int) Math.min(MAX_LEVEL, level);
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    /**
+     * Links {@code from} to {@code to}, pruning {@code from}'s list with the selection heuristic if it is full.
+     */
+    private void addLink(int from, int to, int level) {
+        int[] list = links[from][level];
+        int count = list[0];
+        for (int i = 1; i <= count; i++) {
+            if (list[i] == to) {
+                return;
+            }
+        }
+        if (count < list.length - 1) {
+            list[count + 1] = to;
+            list[0] = count + 1;
+            return;
+        }
+        int[] candidates = Arrays.copyOfRange(list, 1, count + 2);
+        candidates[count] = to;
+        float[] distances = new float[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            distances[i] = distance(from, candidates[i]);
+        }
+        sortByDistance(candidates, distances);
+        int[] kept = selectNeighbors(candidates, distances, count);
+        list[0] = kept.length;
+        System.arraycopy(kept, 0, list, 1, kept.length);
+    }
+
+    /**
+     * Neighbor selection heuristic: walks the candidates closest first and keeps one only if it
+     * is closer to the base node than to every neighbor kept so far, which spreads links across
+     * clusters. Pets with identical features fail that test against each other, so any room left
+     * is filled with the closest skipped candidates.
+     * @param candidates Candidate nodes sorted by ascending distance to the base node.
+     */
+    private int[] selectNeighbors(int[] candidates, float[] distances, int limit) {
+        int[] kept = new int[Math.min(limit, candidates.length)];
+        boolean[] taken = new boolean[candidates.length];
+        int n = 0;
+        for (int i = 0; i < candidates.length && n < kept.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < n && diverse; j++) {
+                diverse = distance(candidates[i], kept[j]) > distances[i];
+            }
+            if (diverse) {
+                kept[n++] = candidates[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.length && n < kept.length; i++) {
+            if (!taken[i]) {
+                kept[n++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    private static void sortByDistance(int[] nodes, float[] distances) {
+        // insertion sort, lists are at most 2 * m + 1 long
+        for (int i = 1; i < nodes.length; i++) {
+            int node = nodes[i];
+            float distance = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > distance) {
+                nodes[j + 1] = nodes[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+            distances[j + 1] = distance;
+        }
+    }
+
+    // --- search ---
+
+    private int greedyClosest(float[] qn, int qnOff, int[] qc, int qcOff, int ep, int level) {
+        int current = ep;
+        float best = distance(qn, qnOff, qc, qcOff, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] list = links[current][level];
+            for (int i = 1; i <= list[0]; i++) {
+                float d = distance(qn, qnOff, qc, qcOff, list[i]);
+                if (d < best) {
+                    best = d;
+                    current = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer.
+     * @param excludedPetId Pet to leave out of the results, or -1 to keep every node.
+     *                      When searching for results rather than building, tombstones are left out too.
+     * @return The (up to) {@code ef} closest nodes found.
+     */
+    private NodeHeap searchLayer(float[] qn, int qnOff, int[] qc, int qcOff, int ep, int ef, int level,
+                                 long excludedPetId) {
+        boolean building = excludedPetId == -1;
+        Visited visited = Visited.forSearch(size);
+        NodeHeap candidates = new NodeHeap(ef * 2, false);
+        NodeHeap results = new NodeHeap(ef, true);
+
+        float epDistance = distance(qn, qnOff, qc, qcOff, ep);
+        visited.mark(ep);
+        candidates.push(ep, epDistance);
+        if (building || isResult(ep, excludedPetId)) {
+            results.push(ep, epDistance);
+        }
+        while (candidates.size() > 0) {
+            float closest = candidates.topDistance();
+            if (results.size() >= ef && closest > results.topDistance()) {
+                break;
+            }
+            int current = candidates.pop();
+            int[] list = links[current][level];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbor = list[i];
+                if (!visited.mark(neighbor)) {
+                    continue;
+                }
+                float d = distance(qn, qnOff, qc, qcOff, neighbor);
+                if (results.size() < ef || d < results.topDistance()) {
+                    candidates.push(neighbor, d);
+                    if (building || isResult(neighbor, excludedPetId)) {
+                        results.push(neighbor, d);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean isResult(int node, long excludedPetId) {
+        return !deleted[node] && petIds[node] != excludedPetId;
+    }
+
+    private float distance(int a, int b) {
+        return distance(numeric, a * numericDims, categorical, a * categoricalDims, b);
+    }
+
+    private float distance(float[] qn, int qnOff, int[] qc, int qcOff, int node) {
+        float sum = 0;
+        int nOff = node * numericDims;
+        for (int i = 0; i < numericDims; i++) {
+            float diff = qn[qnOff + i] - numeric[nOff + i];
+            sum += diff * diff;
+        }
+        int cOff = node * categoricalDims;
+        for (int i = 0; i < categoricalDims; i++) {
+            int a = qc[qcOff + i];
+            int b = categorical[cOff + i];
+            if (a != b) {
+                // one-hot blocks: two set bits differ, or one set bit against an empty block
+                sum += (a < 0 || b < 0) ? 1 : 2;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Binary heap of (node, distance) pairs; a max-heap keeps the farthest node on top.
+     */
+    private static final class NodeHeap {
+        private final boolean max;
+        private int[] nodes;
+        private float[] distances;
+        private int size;
+        private int[] sorted;
+        private float[] sortedDistances;
+
+        NodeHeap(int capacity, boolean max) {
+            this.max = max;
+            this.nodes = new int[Math.max(4, capacity + 1)];
+            this.distances = new float[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float topDistance() {
+            return distances[0];
+        }
+
+        void push(int node, float distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            int node = nodes[size];
+            float distance = distances[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                    child++;
+                }
+                if (!before(distances[child], distance)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+
+        /**
+         * @return The nodes ordered by ascending distance. Empties the heap on first call.
+         */
+        int[] sortedNodes() {
+            if (sorted == null) {
+                sort();
+            }
+            return sorted;
+        }
+
+        float[] sortedDistances() {
+            if (sorted == null) {
+                sort();
+            }
+            return sortedDistances;
+        }
+
+        private void sort() {
+            sorted = new int[size];
+            sortedDistances = new float[size];
+            // a max-heap pops the farthest first, a min-heap the closest first
+            for (int i = 0; size > 0; i++) {
+                int slot = max ? size - 1 : i;
+                sortedDistances[slot] = distances[0];
+                sorted[slot] = pop();
+            }
+        }
+    }
+
+    /**
+     * Per-thread visited marks, reset in O(1) by bumping the epoch.
+     */
+    private static final class Visited {
+        private static final ThreadLocal<Visited> CURRENT = ThreadLocal.withInitial(Visited::new);
+
+        private int[] marks = new int[0];
+        private int epoch;
+
+        static Visited forSearch(int size) {
+            Visited visited = CURRENT.get();
+            if (visited.marks.length < size) {
+                visited.marks = new int[Math.max(size, visited.marks.length * 2)];
+                visited.epoch = 0;
+            }
+            if (++visited.epoch == Integer.MAX_VALUE) {
+                Arrays.fill(visited.marks, 0);
+                visited.epoch = 1;
+            }
+            return visited;
+        }
+
+        /**
+         * @return True if the node had not been visited yet in this search.
+         */
+        boolean mark(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
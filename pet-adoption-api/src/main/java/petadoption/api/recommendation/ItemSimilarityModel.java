@@ -0,0 +1,458 @@
+package petadoption.api.recommendation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import petadoption.api.user.RatingEvent;
+import petadoption.api.user.RatingEventLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Item-item collaborative filtering over positive ratings ("users who liked this pet
+ * also liked..."). Two pets are co-rated when one user liked both; their similarity
+ * is the cosine of their like vectors, {@code co(a, b) / sqrt(likes(a) * likes(b))}.
+ * <p>
+ * Everything is updated incrementally: each like is paired with the user's last
+ * {@code history-size} likes, and every pet keeps a bounded sparse map of co-rating
+ * counts and a bounded top-{@code neighbors} list, so a rating costs
+ * O(history * neighbors) instead of a full recompute. A neighbor's similarity is
+ * refreshed whenever the pair is co-rated again.
+ * <p>
+ * Ratings are learned once the rating log has stored them, in log order, so the last
+ * event recorded is the watermark saved with the model. The model is saved to a compact
+ * binary file and reloaded on start; ratings logged after that event are then replayed
+ * from the rating log. Without a file the whole log is replayed.
+ */
+@Component
+public class ItemSimilarityModel {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemSimilarityModel.class);
+
+    private static final int FILE_MAGIC = 0x50455449; // "PETI"
+    private static final int FILE_VERSION = 1;
+
+    private static final String CATCH_UP_SQL = "SELECT EVENT_ID, USER_ID, PET_ID, RATING FROM "
+            + RatingEvent.TABLE_NAME + " WHERE EVENT_ID > ? ORDER BY EVENT_ID";
+
+    private final RatingEventLog ratingEventLog;
+    private final boolean enabled;
+    private final double likeThreshold;
+    private final int historySize;
+    private final int neighborCount;
+    private final int maxCoRatings;
+    private final Path snapshotPath;
+
+    private final Map<Long, PetStats> pets = new HashMap<>();
+    private final Map<Long, LikeHistory> users = new HashMap<>();
+    private long lastEventId;
+    private boolean dirty;
+
+    public ItemSimilarityModel(RatingEventLog ratingEventLog,
+                               @Value("${recommendation.cf.enabled:true}") boolean enabled,
+                               @Value("${recommendation.cf.like-threshold:4}") double likeThreshold,
+                               @Value("${recommendation.cf.history-size:50}") int historySize,
+                               @Value("${recommendation.cf.neighbors:20}") int neighborCount,
+                               @Value("${recommendation.cf.max-co-ratings:512}") int maxCoRatings,
+                               @Value("${recommendation.cf.snapshot-path:data/item-similarity.bin}") String snapshotPath) {
+        this.ratingEventLog = ratingEventLog;
+        this.enabled = enabled;
+        this.likeThreshold = likeThreshold;
+        this.historySize = Math.max(1, historySize);
+        this.neighborCount = Math.max(1, neighborCount);
+        this.maxCoRatings = Math.max(this.neighborCount, maxCoRatings);
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (Files.exists(snapshotPath)) {
+            try {
+                read();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not read item similarity snapshot {}, rebuilding from the rating log: {}",
+                        snapshotPath, e.toString());
+                reset();
+            }
+        }
+        long replayed = catchUp();
+        log.info("Item similarity model ready with {} pets and {} users ({} ratings replayed) in {} ms",
+                pets.size(), users.size(), replayed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    public void onRating(RatingEvent event) {
+        if (enabled) {
+            record(event.getId(), event.getUserId(), event.getPetId(), event.getRating());
+        }
+    }
+
+    /**
+     * Adds one logged rating to the model and moves the watermark past it.
+     */
+    synchronized void record(Long eventId, long userId, long petId, double rating) {
+        record(userId, petId, rating);
+        if (eventId != null && eventId > lastEventId) {
+            lastEventId = eventId;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Adds one rating to the model. Only ratings at or above the like threshold count.
+     */
+    synchronized void record(long userId, long petId, double rating) {
+        if (rating < likeThreshold) {
+            return;
+        }
+        LikeHistory history = users.computeIfAbsent(userId, id -> new LikeHistory(historySize));
+        if (history.contains(petId)) {
+            return;
+        }
+        PetStats liked = pets.computeIfAbsent(petId, id -> new PetStats(neighborCount));
+        liked.likes++;
+        for (int i = 0; i < history.size; i++) {
+            long otherId = history.petIds[i];
+            PetStats other = pets.computeIfAbsent(otherId, id -> new PetStats(neighborCount));
+            int coRatings = liked.coRate(otherId, maxCoRatings);
+            other.coRate(petId, maxCoRatings);
+            double similarity = coRatings / Math.sqrt((double) liked.likes * other.likes);
+            liked.offerNeighbor(otherId, similarity);
+            other.offerNeighbor(petId, similarity);
+        }
+        history.add(petId);
+        dirty = true;
+    }
+
+    /**
+     * Sums, for every pet, its similarity to the pets the user liked recently.
+     * Pets the user already liked are left out.
+     * @return Pet ID to affinity; empty if the user has no likes yet.
+     */
+    synchronized Map<Long, Double> affinity(long userId) {
+        LikeHistory history = users.get(userId);
+        if (history == null) {
+            return Map.of();
+        }
+        Map<Long, Double> affinity = new HashMap<>();
+        for (int i = 0; i < history.size; i++) {
+            PetStats liked = pets.get(history.petIds[i]);
+            if (liked == null) {
+                continue;
+            }
+            for (int n = 0; n < liked.neighborSize; n++) {
+                affinity.merge(liked.neighborIds[n], liked.neighborSimilarities[n], Double::sum);
+            }
+        }
+        for (int i = 0; i < history.size; i++) {
+            affinity.remove(history.petIds[i]);
+        }
+        return affinity;
+    }
+
+    synchronized long[] neighbors(long petId) {
+        PetStats stats = pets.get(petId);
+        if (stats == null) {
+            return new long[0];
+        }
+        long[] ids = new long[stats.neighborSize];
+        System.arraycopy(stats.neighborIds, 0, ids, 0, stats.neighborSize);
+        return ids;
+    }
+
+    /**
+     * Writes the model to the snapshot file, replacing the previous one atomically.
+     * Does nothing if no rating was recorded since the last save.
+     */
+    @Scheduled(fixedDelayString = "${recommendation.cf.save-interval-ms:300000}",
+            initialDelayString = "${recommendation.cf.save-interval-ms:300000}")
+    public void save() {
+        if (!enabled) {
+            return;
+        }
+        // learn the queued ratings first; the log publishes them to onRating
+        ratingEventLog.flush();
+        Saved saved;
+        synchronized (this) {
+            if (!enabled || !dirty) {
+                return;
+            }
+            saved = copy();
+        }
+        try {
+            write(saved);
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            log.error("Failed to save item similarity snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        save();
+    }
+
+    private long catchUp() {
+        long[] replayed = {0};
+        try {
+            ratingEventLog.stream(CATCH_UP_SQL, rs -> {
+                record(rs.getLong("EVENT_ID"), rs.getLong("USER_ID"), rs.getLong("PET_ID"), rs.getDouble("RATING"));
+                replayed[0]++;
+            }, lastEventId);
+        } catch (DataAccessException e) {
+            log.warn("Could not replay the rating log into the item similarity model: {}", e.getMessage());
+        }
+        return replayed[0];
+    }
+
+    private synchronized void reset() {
+        pets.clear();
+        users.clear();
+        lastEventId = 0;
+        dirty = false;
+    }
+
+    /**
+     * Copies the model, so it can be written while ratings and recommendations go on.
+     */
+    private synchronized Saved copy() {
+        Map<Long, PetStats> petsCopy = new HashMap<>(pets.size() * 2);
+        pets.forEach((petId, stats) -> petsCopy.put(petId, stats.copy()));
+        Map<Long, LikeHistory> usersCopy = new HashMap<>(users.size() * 2);
+        users.forEach((userId, history) -> usersCopy.put(userId, history.copy()));
+        dirty = false;
+        return new Saved(lastEventId, petsCopy, usersCopy);
+    }
+
+    private void write(Saved saved) throws IOException {
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "item-similarity", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(saved.eventId());
+            out.writeInt(saved.pets().size());
+            for (Map.Entry<Long, PetStats> entry : saved.pets().entrySet()) {
+                PetStats stats = entry.getValue();
+                out.writeLong(entry.getKey());
+                out.writeInt(stats.likes);
+                out.writeInt(stats.coRatings.size());
+                IOException[] failure = {null};
+                stats.coRatings.forEach((otherId, count) -> {
+                    try {
+                        out.writeLong(otherId);
+                        out.writeInt(count);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                out.writeInt(stats.neighborSize);
+                for (int n = 0; n < stats.neighborSize; n++) {
+                    out.writeLong(stats.neighborIds[n]);
+                    out.writeFloat((float) stats.neighborSimilarities[n]);
+                }
+            }
+            out.writeInt(saved.users().size());
+            for (Map.Entry<Long, LikeHistory> entry : saved.users().entrySet()) {
+                LikeHistory history = entry.getValue();
+                out.writeLong(entry.getKey());
+                out.writeInt(history.size);
+                for (int i = 0; i < history.size; i++) {
+                    out.writeLong(history.petIds[i]);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized void read() throws IOException {
+        reset();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("not an item similarity snapshot");
+            }
+            long eventId = in.readLong();
+            int petCount = in.readInt();
+            for (int p = 0; p < petCount; p++) {
+                long petId = in.readLong();
+                PetStats stats = new PetStats(neighborCount);
+                stats.likes = in.readInt();
+                int coRatingCount = in.readInt();
+                for (int i = 0; i < coRatingCount; i++) {
+                    long otherId = in.readLong();
+                    stats.coRatings.addTo(otherId, in.readInt());
+                }
+                int neighbors = in.readInt();
+                for (int n = 0; n < neighbors; n++) {
+                    long otherId = in.readLong();
+                    stats.offerNeighbor(otherId, in.readFloat());
+                }
+                pets.put(petId, stats);
+            }
+            int userCount = in.readInt();
+            for (int u = 0; u < userCount; u++) {
+                long userId = in.readLong();
+                LikeHistory history = new LikeHistory(historySize);
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    history.add(in.readLong());
+                }
+                users.put(userId, history);
+            }
+            lastEventId = eventId;
+        }
+    }
+
+    /**
+     * A copy of the model to write, and the last rating event it includes.
+     */
+    private record Saved(long eventId, Map<Long, PetStats> pets, Map<Long, LikeHistory> users) {
+    }
+
+    /**
+     * Like count, co-rating counts and best neighbors of one pet.
+     */
+    private static final class PetStats {
+        private int likes;
+        private final LongIntHashMap coRatings;
+        private final long[] neighborIds;
+        private final double[] neighborSimilarities;
+        private int neighborSize;
+
+        PetStats(int neighborCount) {
+            this(new LongIntHashMap(8), new long[neighborCount], new double[neighborCount]);
+        }
+
+        private PetStats(LongIntHashMap coRatings, long[] neighborIds, double[] neighborSimilarities) {
+            this.coRatings = coRatings;
+            this.neighborIds = neighborIds;
+            this.neighborSimilarities = neighborSimilarities;
+        }
+
+        PetStats copy() {
+            PetStats copy = new PetStats(coRatings.copy(), neighborIds.clone(), neighborSimilarities.clone());
+            copy.likes = likes;
+            copy.neighborSize = neighborSize;
+            return copy;
+        }
+
+        int coRate(long otherId, int maxCoRatings) {
+            int count = coRatings.addTo(otherId, 1);
+            if (coRatings.size() > maxCoRatings) {
+                // forget the rarest pairs; they can't make the neighbor list anyway
+                coRatings.retainTop(maxCoRatings / 2);
+            }
+            return count;
+        }
+
+        /**
+         * Inserts or updates a neighbor, keeping the list sorted by similarity, best first.
+         */
+        void offerNeighbor(long otherId, double similarity) {
+            int at = -1;
+            for (int n = 0; n < neighborSize; n++) {
+                if (neighborIds[n] == otherId) {
+                    at = n;
+                    break;
+                }
+            }
+            if (at < 0) {
+                if (neighborSize < neighborIds.length) {
+                    at = neighborSize++;
+                } else if (similarity > neighborSimilarities[neighborSize - 1]) {
+                    at = neighborSize - 1;
+                } else {
+                    return;
+                }
+            }
+            neighborIds[at] = otherId;
+            neighborSimilarities[at] = similarity;
+            // bubble the changed entry into place
+            while (at > 0 && neighborSimilarities[at] > neighborSimilarities[at - 1]) {
+                swap(at, at - 1);
+                at--;
+            }
+            while (at + 1 < neighborSize && neighborSimilarities[at] < neighborSimilarities[at + 1]) {
+                swap(at, at + 1);
+                at++;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = neighborIds[a];
+            neighborIds[a] = neighborIds[b];
+            neighborIds[b] = id;
+            double similarity = neighborSimilarities[a];
+            neighborSimilarities[a] = neighborSimilarities[b];
+            neighborSimilarities[b] = similarity;
+        }
+    }
+
+    /**
+     * The most recent likes of one user, oldest dropped first.
+     */
+    private static final class LikeHistory {
+        private final long[] petIds;
+        private int size;
+
+        LikeHistory(int capacity) {
+            petIds = new long[capacity];
+        }
+
+        LikeHistory copy() {
+            LikeHistory copy = new LikeHistory(petIds.length);
+            System.arraycopy(petIds, 0, copy.petIds, 0, size);
+            copy.size = size;
+            return copy;
+        }
+
+        boolean contains(long petId) {
+            for (int i = 0; i < size; i++) {
+                if (petIds[i] == petId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long petId) {
+            if (size == petIds.length) {
+                System.arraycopy(petIds, 1, petIds, 0, size - 1);
+                size--;
+            }
+            petIds[size++] = petId;
+        }
+    }
+}
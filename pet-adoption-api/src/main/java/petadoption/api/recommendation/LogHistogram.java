@@ -0,0 +1,95 @@
+package petadoption.api.recommendation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative longs (latencies in nanoseconds, candidate counts).
+ * Values below 16 get their own bucket; above that each power of two is split into
+ * 8 buckets, so a percentile is reported at most 12.5% above the true value while
+ * the whole range of {@code long} fits in under 500 counters.
+ */
+final class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * @param quantile Between 0 and 1.
+     * @return The upper bound of the bucket holding the quantile, or 0 if nothing was recorded.
+     */
+    long percentile(double quantile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @param divisor Unit conversion applied to every value, e.g. 1000 to report nanoseconds as microseconds.
+     * @return Count, mean, p50, p90, p99 and max, for JSON stats endpoints.
+     */
+    Map<String, Object> summary(double divisor) {
+        long total = count();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", total);
+        result.put("mean", total == 0 ? 0.0 : sum.sum() / divisor / total);
+        result.put("p50", percentile(0.50) / divisor);
+        result.put("p90", percentile(0.90) / divisor);
+        result.put("p99", percentile(0.99) / divisor);
+        result.put("max", max.get() / divisor);
+        return result;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long upper = ((SUB_BUCKETS + sub + 1) << shift) - 1;
+        // the last bucket would overflow
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,131 @@
+package petadoption.api.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to {@code int} counts, without
+ * boxing. Used for the sparse co-rating counts of {@link ItemSimilarityModel}.
+ * Key {@code 0} is reserved as the empty marker; pet IDs start at 1.
+ */
+final class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    private LongIntHashMap(long[] keys, int[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    LongIntHashMap copy() {
+        return new LongIntHashMap(keys.clone(), values.clone(), size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * Adds {@code delta} to the count of {@code key}, inserting it at zero if absent.
+     * @return The new count.
+     */
+    int addTo(long key, int delta) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        int slot = find(key);
+        if (keys[slot] != key) {
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                resize(keys.length * 2);
+                slot = find(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * Keeps only the {@code limit} keys with the highest counts.
+     */
+    void retainTop(int limit) {
+        if (size <= limit) {
+            return;
+        }
+        int[] counts = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                counts[n++] = values[i];
+            }
+        }
+        Arrays.sort(counts);
+        int cutoff = counts[size - limit];
+        // ties at the cutoff may leave a few entries over the limit, which is fine
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length];
+        values = new int[oldKeys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0 && oldValues[i] >= cutoff) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Consumer {
+        void accept(long key, int value);
+    }
+}
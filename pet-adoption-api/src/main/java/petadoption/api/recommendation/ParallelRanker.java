@@ -0,0 +1,139 @@
+package petadoption.api.recommendation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Picks the top K pets of a feature index snapshot, splitting large catalogs into
+ * chunks scored on a dedicated fork-join pool. Each chunk keeps its own top K and
+ * the chunks are merged at the end. Because {@link TopKHeap} orders by score and
+ * then pet ID, the result is identical to a sequential scan.
+ * Scores are computed a block at a time through a {@link RangeScorer}, so the
+ * scoring kernel can work across many pets at once.
+ */
+@Component
+public class ParallelRanker {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelRanker.class);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int chunkSize;
+
+    public ParallelRanker(@Value("${recommendation.parallel.threshold:20000}") int parallelThreshold,
+                          @Value("${recommendation.parallel.chunk-size:4096}") int chunkSize,
+                          @Value("${recommendation.parallel.parallelism:0}") int parallelism) {
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // kept off the common pool so scoring can't starve (or be starved by) other parallel streams
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("recommendation-scoring-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        log.info("Recommendation scoring pool started with {} threads, parallel above {} pets", threads, parallelThreshold);
+    }
+
+    /**
+     * Scores the slots accepted by {@code include} and keeps the best {@code k}.
+     * @param pets The snapshot being ranked.
+     * @param k How many pets to keep.
+     * @param include Filter on snapshot slots; must be thread-safe.
+     * @param score Scores a range of snapshot slots; must be thread-safe.
+     * @return A heap with at most {@code k} entries.
+     */
+    TopKHeap topK(PetFeatureIndex.Snapshot pets, int k, IntPredicate include, RangeScorer score) {
+        return topK(new Ranking(pets, k, include, score, false, 0, 0));
+    }
+
+    /**
+     * Like {@link #topK(PetFeatureIndex.Snapshot, int, IntPredicate, RangeScorer)}, but only
+     * keeps pets ranked strictly after the given (score, pet ID) position. Used for cursor paging.
+     */
+    TopKHeap topKAfter(PetFeatureIndex.Snapshot pets, int k, IntPredicate include, RangeScorer score,
+                       double afterScore, long afterId) {
+        return topK(new Ranking(pets, k, include, score, true, afterScore, afterId));
+    }
+
+    private TopKHeap topK(Ranking ranking) {
+        if (ranking.pets.size < parallelThreshold) {
+            return scan(ranking, 0, ranking.pets.size);
+        }
+        return pool.invoke(new RankTask(ranking, 0, ranking.pets.size));
+    }
+
+    private TopKHeap scan(Ranking ranking, int from, int to) {
+        TopKHeap top = new TopKHeap(ranking.k);
+        long[] ids = ranking.pets.ids;
+        double[] scores = new double[Math.min(chunkSize, to - from)];
+        for (int blockStart = from; blockStart < to; blockStart += scores.length) {
+            int blockEnd = Math.min(to, blockStart + scores.length);
+            ranking.score.score(blockStart, blockEnd, scores);
+            for (int slot = blockStart; slot < blockEnd; slot++) {
+                if (!ranking.include.test(slot)) {
+                    continue;
+                }
+                double score = scores[slot - blockStart];
+                if (ranking.bounded && !TopKHeap.isBetter(ranking.afterScore, ranking.afterId, score, ids[slot])) {
+                    continue;
+                }
+                top.offer(score, ids[slot]);
+            }
+        }
+        return top;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Writes the scores of snapshot slots {@code from} (inclusive) to {@code to} (exclusive)
+     * into {@code out[0 .. to - from)}.
+     */
+    @FunctionalInterface
+    interface RangeScorer {
+        void score(int from, int to, double[] out);
+    }
+
+    private record Ranking(PetFeatureIndex.Snapshot pets, int k, IntPredicate include, RangeScorer score,
+                           boolean bounded, double afterScore, long afterId) {
+    }
+
+    @SuppressWarnings("serial") // fork/join tasks are never serialized
+    private final class RankTask extends RecursiveTask<TopKHeap> {
+        private final Ranking ranking;
+        private final int from;
+        private final int to;
+
+        RankTask(Ranking ranking, int from, int to) {
+            this.ranking = ranking;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from <= chunkSize) {
+                return scan(ranking, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RankTask left = new RankTask(ranking, from, mid);
+            left.fork();
+            TopKHeap right = new RankTask(ranking, mid, to).compute();
+            TopKHeap merged = left.join();
+            merged.offerAll(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package petadoption.api.recommendation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetFeatureRow;
+import petadoption.api.pet.PetFeatures;
+import petadoption.api.pet.PetRepository;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar, in-memory copy of the pet attributes used for recommendation scoring.
+ * Pets are stored in primitive arrays sorted by ID, with categorical attributes
+ * encoded as {@link PetAttributeVocabulary} codes. Readers get an immutable {@link Snapshot};
+ * writers build a new snapshot and swap it in, so scoring never takes a lock.
+ * <p>
+ * The index is saved periodically through {@link PetFeatureIndexStore}. On start the saved
+ * snapshot is loaded and only pets added or written since it was taken are read from the
+ * database; without a usable file every pet is loaded.
+ */
+@Component
+public class PetFeatureIndex {
+
+    /** Code stored when a pet has no value for an attribute. */
+    public static final int NO_VALUE = PetAttributeVocabulary.NO_VALUE;
+    /** Code returned for a lookup of a value no pet has ever had. */
+    public static final int UNKNOWN_VALUE = PetAttributeVocabulary.UNKNOWN_VALUE;
+
+    private static final Logger log = LoggerFactory.getLogger(PetFeatureIndex.class);
+
+    private final PetRepository petRepository;
+    private final PetAttributeVocabulary vocabulary;
+    private final PetFeatureIndexStore store;
+    private final long catchUpOverlapMillis;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // true when the index changed since it was last saved
+    private boolean dirty;
+
+    public PetFeatureIndex(PetRepository petRepository, PetAttributeVocabulary vocabulary, PetFeatureIndexStore store,
+                           @Value("${recommendation.snapshot.catch-up-overlap-seconds:300}") long catchUpOverlapSeconds) {
+        this.petRepository = petRepository;
+        this.vocabulary = vocabulary;
+        this.store = store;
+        this.catchUpOverlapMillis = catchUpOverlapSeconds * 1000;
+    }
+
+    /**
+     * @return The current, immutable view of the catalog.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Loads the saved snapshot and catches up with the pets written since, or reloads every pet
+     * if there is no usable snapshot. Runs once when the application is ready, before the
+     * indexes built from this one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        if (!store.exists()) {
+            rebuild();
+            return;
+        }
+        long start = System.nanoTime();
+        PetFeatureIndexStore.Stored stored;
+        try {
+            stored = store.read();
+            Snapshot loaded = remap(stored);
+            synchronized (this) {
+                snapshot = withAllPostings(loaded);
+                dirty = false;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read pet feature index snapshot {}, loading every pet: {}", store.getPath(), e.toString());
+            rebuild();
+            return;
+        }
+        int loaded = snapshot.size;
+        int[] caughtUp = catchUp(stored.watermarkMillis());
+        log.info("Loaded pet feature index with {} pets from {} ({} changed and {} deleted since) in {} ms",
+                loaded, store.getPath(), caughtUp[0], caughtUp[1], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Reloads every pet from the database.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        List<PetFeatureRow> pets = petRepository.findAllProjectedByOrderByIdAsc();
+        Builder builder = new Builder(pets.size());
+        for (PetFeatures pet : pets) {
+            builder.add(pet);
+        }
+        snapshot = withAllPostings(builder.build(snapshot.generation + 1, CandidatePostings.EMPTY));
+        dirty = true;
+        log.info("Built pet feature index with {} pets in {} ms", snapshot.size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Writes the index to the snapshot file. Does nothing if it hasn't changed since the last save.
+     */
+    @Scheduled(fixedDelayString = "${recommendation.snapshot.save-interval-ms:300000}",
+            initialDelayString = "${recommendation.snapshot.save-interval-ms:300000}")
+    public void save() {
+        Snapshot toSave;
+        long watermarkMillis;
+        synchronized (this) {
+            if (!store.isEnabled() || !dirty) {
+                return;
+            }
+            // every change applied so far was written to the database before now
+            toSave = snapshot;
+            watermarkMillis = System.currentTimeMillis();
+            dirty = false;
+        }
+        try {
+            store.write(toSave, vocabulary, watermarkMillis);
+            log.debug("Saved pet feature index with {} pets to {}", toSave.size, store.getPath());
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            log.error("Failed to save pet feature index snapshot to {}", store.getPath(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        save();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChange(PetChangeEvent event) {
+        switch (event.getKind()) {
+            case SAVED -> upsertAll(event.getPets());
+            case DELETED -> removeAll(event.getPetIds());
+            case CLEARED -> clear();
+        }
+    }
+
+    /**
+     * Inserts new pets or replaces the features of existing ones.
+     * @param pets The pets to upsert. Pets without an ID are ignored.
+     */
+    public synchronized void upsertAll(Collection<? extends PetFeatures> pets) {
+        // last write wins if the same pet shows up twice
+        Map<Long, PetFeatures> byId = new LinkedHashMap<>();
+        for (PetFeatures pet : pets) {
+            if (pet != null && pet.getId() != null) {
+                byId.put(pet.getId(), pet);
+            }
+        }
+        if (byId.isEmpty()) {
+            return;
+        }
+        List<PetFeatures> incoming = new ArrayList<>(byId.values());
+        incoming.sort(Comparator.comparing(PetFeatures::getId));
+
+        Snapshot current = snapshot;
+        // any available pet may now outrank what users were shown before, so start a new generation
+        boolean newCandidates = incoming.stream().anyMatch(pet -> Boolean.TRUE.equals(pet.getAvailable()));
+        Builder builder = new Builder(current.size + incoming.size());
+        int i = 0;
+        int j = 0;
+        while (i < current.size || j < incoming.size()) {
+            if (j == incoming.size()) {
+                builder.copy(current, i++);
+            } else if (i == current.size) {
+                builder.add(incoming.get(j++));
+            } else {
+                long existingId = current.ids[i];
+                long incomingId = incoming.get(j).getId();
+                if (existingId < incomingId) {
+                    builder.copy(current, i++);
+                } else {
+                    builder.add(incoming.get(j++));
+                    if (existingId == incomingId) {
+                        i++;
+                    }
+                }
+            }
+        }
+        Snapshot updated = builder.build(newCandidates ? current.generation + 1 : current.generation, current.postings);
+
+        // only the posting lists of the upserted pets change
+        CandidatePostings.Editor postings = current.postings.edit();
+        for (PetFeatures pet : incoming) {
+            int oldSlot = current.slotOf(pet.getId());
+            if (oldSlot >= 0) {
+                postings.remove(pet.getId(), CandidatePostings.keysOf(current, oldSlot));
+            }
+            postings.add(pet.getId(), CandidatePostings.keysOf(updated, updated.slotOf(pet.getId())));
+        }
+        snapshot = updated.withPostings(postings.build());
+        dirty = true;
+    }
+
+    /**
+     * Removes pets from the index.
+     * @param petIds The IDs of the pets to remove.
+     */
+    public synchronized void removeAll(Collection<Long> petIds) {
+        Set<Long> removed = new HashSet<>(petIds);
+        Snapshot current = snapshot;
+        Builder builder = new Builder(current.size);
+        CandidatePostings.Editor postings = current.postings.edit();
+        for (int i = 0; i < current.size; i++) {
+            if (removed.contains(current.ids[i])) {
+                postings.remove(current.ids[i], CandidatePostings.keysOf(current, i));
+            } else {
+                builder.copy(current, i);
+            }
+        }
+        snapshot = builder.build(current.generation, postings.build());
+        dirty = true;
+    }
+
+    public synchronized void clear() {
+        snapshot = new Builder(0).build(snapshot.generation + 1, CandidatePostings.EMPTY);
+        dirty = true;
+    }
+
+    /**
+     * Translates the attribute codes of a saved snapshot into this process's vocabulary.
+     * The stored arrays are rewritten in place; the snapshot starts a new generation.
+     */
+    private Snapshot remap(PetFeatureIndexStore.Stored stored) {
+        Snapshot saved = stored.snapshot();
+        remap(saved.species, saved.size, Attribute.SPECIES, stored);
+        remap(saved.breeds, saved.size, Attribute.BREED, stored);
+        remap(saved.genders, saved.size, Attribute.GENDER, stored);
+        remap(saved.coatLengths, saved.size, Attribute.COAT_LENGTH, stored);
+        remap(saved.healthStatuses, saved.size, Attribute.HEALTH_STATUS, stored);
+        return new Snapshot(saved.generation + 1, saved.size, saved.ids, saved.ages, saved.weights, saved.available,
+                saved.species, saved.breeds, saved.genders, saved.coatLengths, saved.healthStatuses,
+                CandidatePostings.EMPTY);
+    }
+
+    private void remap(int[] codes, int size, Attribute attribute, PetFeatureIndexStore.Stored stored) {
+        List<String> values = stored.vocabulary().get(attribute);
+        int[] mapping = new int[values.size()];
+        for (int code = 0; code < mapping.length; code++) {
+            mapping[code] = vocabulary.intern(attribute, values.get(code));
+        }
+        for (int slot = 0; slot < size; slot++) {
+            if (codes[slot] >= 0) {
+                codes[slot] = mapping[codes[slot]];
+            }
+        }
+    }
+
+    /**
+     * Applies the pets written since a snapshot was saved. New and edited pets (including
+     * adoptions) are found by ID and update time; deletions by comparing the pet count and,
+     * only if it differs, every ID.
+     * @return The number of pets upserted and removed.
+     */
+    private int[] catchUp(long watermarkMillis) {
+        Snapshot current = snapshot;
+        long maxId = current.size > 0 ? current.ids[current.size - 1] : 0;
+        // pets committed shortly after the save may carry an earlier update time
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(watermarkMillis - catchUpOverlapMillis),
+                ZoneId.systemDefault());
+        List<PetFeatureRow> changed = petRepository.findByIdGreaterThanOrUpdatedAtGreaterThanEqualOrderByIdAsc(maxId, since);
+        upsertAll(changed);
+
+        List<Long> deleted = new ArrayList<>();
+        if (petRepository.count() != snapshot.size) {
+            Set<Long> existing = new HashSet<>(petRepository.findAllIds());
+            Snapshot updated = snapshot;
+            for (int slot = 0; slot < updated.size; slot++) {
+                if (!existing.contains(updated.ids[slot])) {
+                    deleted.add(updated.ids[slot]);
+                }
+            }
+            if (!deleted.isEmpty()) {
+                removeAll(deleted);
+            }
+        }
+        return new int[]{changed.size(), deleted.size()};
+    }
+
+    private static Snapshot withAllPostings(Snapshot built) {
+        CandidatePostings.Editor postings = CandidatePostings.EMPTY.edit();
+        for (int slot = 0; slot < built.size; slot++) {
+            postings.add(built.ids[slot], CandidatePostings.keysOf(built, slot));
+        }
+        return built.withPostings(postings.build());
+    }
+
+    // --- Lookups of user preference values, never intern new codes ---
+
+    public int speciesCode(String value) {
+        return vocabulary.lookup(Attribute.SPECIES, value);
+    }
+
+    public int breedCode(String value) {
+        return vocabulary.lookup(Attribute.BREED, value);
+    }
+
+    public int genderCode(String value) {
+        return vocabulary.lookup(Attribute.GENDER, value);
+    }
+
+    public int coatLengthCode(String value) {
+        return vocabulary.lookup(Attribute.COAT_LENGTH, value);
+    }
+
+    public int healthStatusCode(String value) {
+        return vocabulary.lookup(Attribute.HEALTH_STATUS, value);
+    }
+
+    /**
+     * Immutable column arrays for every indexed pet, sorted by ascending pet ID.
+     * Only the first {@code size} entries of each array are valid.
+     * The generation only changes when a pet may have become a new candidate
+     * (added, made available or edited); removals and adoptions keep it.
+     * Each snapshot carries the candidate posting lists of its available pets.
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 0, new long[0], new int[0], new int[0], new boolean[0],
+                new int[0], new int[0], new int[0], new int[0], new int[0], CandidatePostings.EMPTY);
+
+        final long generation;
+        final int size;
+        final long[] ids;
+        final int[] ages;
+        final int[] weights;
+        final boolean[] available;
+        final int[] species;
+        final int[] breeds;
+        final int[] genders;
+        final int[] coatLengths;
+        final int[] healthStatuses;
+        final CandidatePostings postings;
+
+        Snapshot(long generation, int size, long[] ids, int[] ages, int[] weights, boolean[] available, int[] species,
+                 int[] breeds, int[] genders, int[] coatLengths, int[] healthStatuses, CandidatePostings postings) {
+            this.generation = generation;
+            this.size = size;
+            this.ids = ids;
+            this.ages = ages;
+            this.weights = weights;
+            this.available = available;
+            this.species = species;
+            this.breeds = breeds;
+            this.genders = genders;
+            this.coatLengths = coatLengths;
+            this.healthStatuses = healthStatuses;
+            this.postings = postings;
+        }
+
+        Snapshot withPostings(CandidatePostings postings) {
+            return new Snapshot(generation, size, ids, ages, weights, available, species, breeds, genders, coatLengths,
+                    healthStatuses, postings);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long generation() {
+            return generation;
+        }
+
+        /**
+         * @return True if the pet is indexed and available for adoption.
+         */
+        public boolean isAvailable(long petId) {
+            int slot = slotOf(petId);
+            return slot >= 0 && available[slot];
+        }
+
+        /**
+         * @return The slot holding the given pet, or a negative value if it isn't indexed.
+         */
+        public int slotOf(long petId) {
+            return Arrays.binarySearch(ids, 0, size, petId);
+        }
+    }
+
+    private final class Builder {
+        private int size;
+        private long[] ids;
+        private int[] ages;
+        private int[] weights;
+        private boolean[] available;
+        private int[] species;
+        private int[] breeds;
+        private int[] genders;
+        private int[] coatLengths;
+        private int[] healthStatuses;
+
+        Builder(int capacity) {
+            ids = new long[capacity];
+            ages = new int[capacity];
+            weights = new int[capacity];
+            available = new boolean[capacity];
+            species = new int[capacity];
+            breeds = new int[capacity];
+            genders = new int[capacity];
+            coatLengths = new int[capacity];
+            healthStatuses = new int[capacity];
+        }
+
+        void add(PetFeatures pet) {
+            ids[size] = pet.getId();
+            ages[size] = pet.getAge() != null ? pet.getAge() : 0;
+            weights[size] = pet.getWeight() != null ? pet.getWeight() : 0;
+            available[size] = Boolean.TRUE.equals(pet.getAvailable());
+            species[size] = vocabulary.intern(Attribute.SPECIES, pet.getSpecies());
+            breeds[size] = vocabulary.intern(Attribute.BREED, pet.getBreed());
+            genders[size] = vocabulary.intern(Attribute.GENDER, pet.getGender());
+            coatLengths[size] = vocabulary.intern(Attribute.COAT_LENGTH, pet.getCoatLength());
+            healthStatuses[size] = vocabulary.intern(Attribute.HEALTH_STATUS, pet.getHealthStatus());
+            size++;
+        }
+
+        void copy(Snapshot from, int slot) {
+            ids[size] = from.ids[slot];
+            ages[size] = from.ages[slot];
+            weights[size] = from.weights[slot];
+            available[size] = from.available[slot];
+            species[size] = from.species[slot];
+            breeds[size] = from.breeds[slot];
+            genders[size] = from.genders[slot];
+            coatLengths[size] = from.coatLengths[slot];
+            healthStatuses[size] = from.healthStatuses[slot];
+            size++;
+        }
+
+        Snapshot build(long generation, CandidatePostings postings) {
+            return new Snapshot(generation, size, ids, ages, weights, available, species, breeds, genders, coatLengths,
+                    healthStatuses, postings);
+        }
+    }
+}
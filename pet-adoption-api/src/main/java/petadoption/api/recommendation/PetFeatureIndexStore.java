@@ -0,0 +1,197 @@
+package petadoption.api.recommendation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Saves {@link PetFeatureIndex} snapshots to a binary file so a restart can skip the full table scan.
+ * <p>
+ * The file holds a header (magic, version, generation, change watermark, pet count), the
+ * vocabulary of every attribute in code order, the column arrays, and a CRC32 of everything
+ * before it. Attribute codes are only meaningful within one process, so they are written
+ * together with the values they stand for and remapped when the file is read.
+ * Reads map the file and bulk-copy each column into a heap array.
+ */
+@Component
+public class PetFeatureIndexStore {
+
+    private static final int FILE_MAGIC = 0x50464958; // "PFIX"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+    // bytes per pet: id, age, weight, 5 attribute codes, available flag
+    private static final int PET_BYTES = 8 + 4 + 4 + 5 * 4 + 1;
+
+    private final boolean enabled;
+    private final Path path;
+
+    public PetFeatureIndexStore(@Value("${recommendation.snapshot.enabled:true}") boolean enabled,
+                                @Value("${recommendation.snapshot.path:data/pet-feature-index.bin}") String path) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean exists() {
+        return enabled && Files.exists(path);
+    }
+
+    /**
+     * Writes a snapshot, replacing the previous file atomically.
+     * @param snapshot The snapshot to save.
+     * @param vocabulary The vocabulary its codes were interned in.
+     * @param watermarkMillis Every pet written before this time is reflected in the snapshot.
+     */
+    public void write(PetFeatureIndex.Snapshot snapshot, PetAttributeVocabulary vocabulary, long watermarkMillis)
+            throws IOException {
+        // the vocabulary only grows, so it covers every code in the snapshot
+        Map<Attribute, List<byte[]>> values = new EnumMap<>(Attribute.class);
+        int vocabularyBytes = 4;
+        for (Attribute attribute : Attribute.values()) {
+            List<byte[]> encoded = new ArrayList<>();
+            for (String value : vocabulary.values(attribute)) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                vocabularyBytes += 4 + bytes.length;
+            }
+            values.put(attribute, encoded);
+            vocabularyBytes += 4;
+        }
+        int size = snapshot.size;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + vocabularyBytes + size * PET_BYTES + 8);
+        buffer.putInt(FILE_MAGIC);
+        buffer.putInt(FILE_VERSION);
+        buffer.putLong(snapshot.generation);
+        buffer.putLong(watermarkMillis);
+        buffer.putInt(size);
+        buffer.putInt(values.size());
+        for (List<byte[]> encoded : values.values()) {
+            buffer.putInt(encoded.size());
+            for (byte[] bytes : encoded) {
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+        buffer.asLongBuffer().put(snapshot.ids, 0, size);
+        buffer.position(buffer.position() + size * 8);
+        for (int[] column : new int[][]{snapshot.ages, snapshot.weights, snapshot.species, snapshot.breeds,
+                snapshot.genders, snapshot.coatLengths, snapshot.healthStatuses}) {
+            buffer.asIntBuffer().put(column, 0, size);
+            buffer.position(buffer.position() + size * 4);
+        }
+        for (int slot = 0; slot < size; slot++) {
+            buffer.put(snapshot.available[slot] ? (byte) 1 : (byte) 0);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "pet-feature-index", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the saved snapshot. Its attribute codes are still those of the process that wrote it;
+     * see {@link Stored#vocabulary}.
+     * @throws IOException If the file is missing, truncated, corrupt or from another format version.
+     */
+    public Stored read() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES + 8 || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("not a pet feature index snapshot");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_VERSION) {
+                throw new IOException("not a pet feature index snapshot");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) fileSize - 8));
+            if (crc.getValue() != buffer.getLong((int) fileSize - 8)) {
+                throw new IOException("pet feature index snapshot checksum mismatch");
+            }
+            long generation = buffer.getLong();
+            long watermarkMillis = buffer.getLong();
+            int size = buffer.getInt();
+            int attributes = buffer.getInt();
+            if (attributes != Attribute.values().length) {
+                throw new IOException("pet feature index snapshot has " + attributes + " attributes");
+            }
+            Map<Attribute, List<String>> vocabulary = new EnumMap<>(Attribute.class);
+            for (Attribute attribute : Attribute.values()) {
+                int count = buffer.getInt();
+                List<String> values = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    values.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+                vocabulary.put(attribute, values);
+            }
+            if (buffer.remaining() != (long) size * PET_BYTES + 8) {
+                throw new IOException("pet feature index snapshot is truncated");
+            }
+            long[] ids = new long[size];
+            buffer.asLongBuffer().get(ids);
+            buffer.position(buffer.position() + size * 8);
+            int[][] columns = new int[7][size];
+            for (int[] column : columns) {
+                buffer.asIntBuffer().get(column);
+                buffer.position(buffer.position() + size * 4);
+            }
+            boolean[] available = new boolean[size];
+            for (int slot = 0; slot < size; slot++) {
+                available[slot] = buffer.get() != 0;
+            }
+            PetFeatureIndex.Snapshot snapshot = new PetFeatureIndex.Snapshot(generation, size, ids, columns[0],
+                    columns[1], available, columns[2], columns[3], columns[4], columns[5], columns[6],
+                    CandidatePostings.EMPTY);
+            return new Stored(snapshot, vocabulary, watermarkMillis);
+        }
+    }
+
+    /**
+     * A snapshot as read from disk, before its codes are remapped.
+     * @param snapshot Column arrays with codes of the writing process and no posting lists.
+     * @param vocabulary For each attribute, the value each of those codes stood for.
+     * @param watermarkMillis Every pet written before this time is reflected in the snapshot.
+     */
+    public record Stored(PetFeatureIndex.Snapshot snapshot, Map<Attribute, List<String>> vocabulary,
+                         long watermarkMillis) {
+    }
+}
@@ -5,6 +5,7 @@ public class PetRecommendation {
     private String imageUrl;
     private String description;
     private Double rating;
+    private Double score;
 
     public PetRecommendation() {}
 
@@ -15,6 +16,11 @@ public class PetRecommendation {
         this.rating = rating;
     }
 
+    public PetRecommendation(Long id, String imageUrl, String description, Double rating, Double score) {
+        this(id, imageUrl, description, rating);
+        this.score = score;
+    }
+
     public Long getId() {
         return id;
     }
@@ -46,4 +52,12 @@ public class PetRecommendation {
     public void setRating(Double rating) {
         this.rating = rating;
     }
-}
\ No newline at end of file
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,34 @@
+package petadoption.api.recommendation;
+
+/**
+ * A ranking strategy: scores the pets of a feature index snapshot for one user.
+ * Implementations are Spring beans in this package, registered under their
+ * {@link #name()} and chosen per request or per user cohort by {@link PetScorerRegistry}.
+ * The collaborative-filtering bonus is added on top by {@link RecommendationService},
+ * so a strategy only looks at pet features and preferences.
+ * <p>
+ * Implementations must be thread-safe and deterministic: the same pet and preferences
+ * must always get the same score, or cursors and cached rankings stop lining up.
+ */
+interface PetScorer {
+
+    /**
+     * @return The name used to select this strategy, e.g. in {@code ?scorer=} and the cohort config.
+     */
+    String name();
+
+    /**
+     * Writes the scores of snapshot slots {@code from} (inclusive) to {@code to} (exclusive)
+     * into {@code out[0 .. to - from)}.
+     */
+    void score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int from, int to, double[] out);
+
+    /**
+     * Scores a single snapshot slot. Used for candidate lists, where slots aren't contiguous.
+     */
+    default double score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int slot) {
+        double[] out = new double[1];
+        score(pets, prefs, slot, slot + 1, out);
+        return out[0];
+    }
+}
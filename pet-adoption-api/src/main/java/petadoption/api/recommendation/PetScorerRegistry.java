@@ -0,0 +1,142 @@
+package petadoption.api.recommendation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Knows every {@link PetScorer} bean and decides which one ranks a request.
+ * A request may name a scorer explicitly; otherwise the user's cohort decides,
+ * configured as {@code recommendation.scorer.cohorts=name:percent,...}. Each user
+ * hashes to a stable bucket out of 100, so a user keeps the same strategy across
+ * requests. Users outside every cohort get {@code recommendation.scorer.default}.
+ * <p>
+ * Records, per strategy, how long each ranking took and how many pets it scored,
+ * so the CPU cost of a new strategy can be compared before rolling it out further.
+ */
+@Component
+public class PetScorerRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PetScorerRegistry.class);
+
+    private static final int COHORT_BUCKETS = 100;
+
+    private final Map<String, PetScorer> scorers = new LinkedHashMap<>();
+    private final Map<String, StrategyStats> stats = new LinkedHashMap<>();
+    private final PetScorer defaultScorer;
+    // the scorer for each of the 100 cohort buckets
+    private final PetScorer[] cohorts = new PetScorer[COHORT_BUCKETS];
+
+    public PetScorerRegistry(List<PetScorer> scorers,
+                             @Value("${recommendation.scorer.default:" + RuleBasedScorer.NAME + "}") String defaultName,
+                             @Value("${recommendation.scorer.cohorts:}") String cohortConfig) {
+        for (PetScorer scorer : scorers) {
+            if (this.scorers.putIfAbsent(scorer.name(), scorer) != null) {
+                throw new IllegalArgumentException("Two pet scorers are named " + scorer.name());
+            }
+            stats.put(scorer.name(), new StrategyStats());
+        }
+        defaultScorer = named(defaultName);
+        int bucket = 0;
+        for (String cohort : cohortConfig.split(",")) {
+            if (cohort.isBlank()) {
+                continue;
+            }
+            String[] parts = cohort.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid scorer cohort '" + cohort + "', expected name:percent");
+            }
+            PetScorer scorer = named(parts[0].trim());
+            int percent = Integer.parseInt(parts[1].trim());
+            if (percent < 0 || bucket + percent > COHORT_BUCKETS) {
+                throw new IllegalArgumentException("Scorer cohorts must add up to at most 100%: " + cohortConfig);
+            }
+            for (int i = 0; i < percent; i++) {
+                cohorts[bucket++] = scorer;
+            }
+        }
+        while (bucket < COHORT_BUCKETS) {
+            cohorts[bucket++] = defaultScorer;
+        }
+        log.info("Pet scorers {} registered, default {}, cohorts '{}'", this.scorers.keySet(), defaultName, cohortConfig);
+    }
+
+    /**
+     * Picks the scorer for a request.
+     * @param requested A scorer name from the request, or null/blank to use the user's cohort.
+     * @throws IllegalArgumentException if the requested scorer doesn't exist.
+     */
+    PetScorer select(Long userId, String requested) {
+        if (requested != null && !requested.isBlank()) {
+            return named(requested.trim());
+        }
+        return userId == null ? defaultScorer : cohorts[cohortBucket(userId)];
+    }
+
+    /**
+     * Records one ranking run.
+     * @param nanos How long scoring and selecting the top pets took.
+     * @param scored How many pets were scored.
+     */
+    void record(PetScorer scorer, long nanos, int scored) {
+        StrategyStats strategy = stats.get(scorer.name());
+        strategy.latencyNanos.record(nanos);
+        strategy.candidates.record(scored);
+    }
+
+    /**
+     * @return Per strategy: ranking latency in microseconds and pets scored per ranking.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        stats.forEach((name, strategy) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("latencyMicros", strategy.latencyNanos.summary(1000));
+            entry.put("candidates", strategy.candidates.summary(1));
+            entry.put("cohortPercent", cohortPercent(name));
+            result.put(name, entry);
+        });
+        return result;
+    }
+
+    /**
+     * @return The names of the registered scorers.
+     */
+    public List<String> names() {
+        return new ArrayList<>(scorers.keySet());
+    }
+
+    static int cohortBucket(long userId) {
+        // mixed so consecutive user IDs spread across cohorts
+        return Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), COHORT_BUCKETS);
+    }
+
+    private int cohortPercent(String name) {
+        int percent = 0;
+        for (PetScorer scorer : cohorts) {
+            if (scorer.name().equals(name)) {
+                percent++;
+            }
+        }
+        return percent;
+    }
+
+    private PetScorer named(String name) {
+        PetScorer scorer = scorers.get(name);
+        if (scorer == null) {
+            throw new IllegalArgumentException("Unknown scorer '" + name + "', expected one of " + scorers.keySet());
+        }
+        return scorer;
+    }
+
+    private static final class StrategyStats {
+        final LogHistogram latencyNanos = new LogHistogram();
+        final LogHistogram candidates = new LogHistogram();
+    }
+}
@@ -0,0 +1,214 @@
+package petadoption.api.recommendation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import petadoption.api.user.User;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of each user's best-ranked pets. An entry is only served while
+ * both the user's preferences and the catalog generation it was ranked against
+ * are unchanged; pets adopted or deleted since are filtered out on read, so
+ * those changes don't need to drop anything.
+ * <p>
+ * A second, shared level holds one ranking per {@link PreferenceSignature}: the
+ * preference codes with age and weight bucketed. Adopters who like the same kind
+ * of pet, which rating updates make common, reuse one ranking instead of each
+ * scoring the catalog.
+ */
+@Component
+public class RecommendationCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationCache.class);
+
+    private final Cache<Long, RankedRecommendations> cache;
+    private final Cache<PreferenceSignature, RankedRecommendations> shared;
+    private final int depth;
+    private final boolean sharingEnabled;
+    private final int ageBucket;
+    private final int weightBucket;
+    private final AtomicLong staleCount = new AtomicLong();
+    private final AtomicLong sharedStaleCount = new AtomicLong();
+
+    public RecommendationCache(@Value("${recommendation.cache.max-users:10000}") long maxUsers,
+                               @Value("${recommendation.cache.depth:200}") int depth,
+                               @Value("${recommendation.cache.expire-after-access-minutes:30}") long expireMinutes,
+                               @Value("${recommendation.cache.shared.enabled:true}") boolean sharingEnabled,
+                               @Value("${recommendation.cache.shared.max-signatures:10000}") long maxSignatures,
+                               @Value("${recommendation.cache.shared.age-bucket:2}") int ageBucket,
+                               @Value("${recommendation.cache.shared.weight-bucket:10}") int weightBucket) {
+        this.depth = depth;
+        this.sharingEnabled = sharingEnabled;
+        this.ageBucket = Math.max(1, ageBucket);
+        this.weightBucket = Math.max(1, weightBucket);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        this.shared = CacheBuilder.newBuilder()
+                .maximumSize(maxSignatures)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        log.info("Recommendation cache configured for {} users, {} pets deep, sharing {}", maxUsers, depth,
+                sharingEnabled ? "by preference signature (age buckets " + this.ageBucket + ", weight buckets "
+                        + this.weightBucket + ")" : "disabled");
+    }
+
+    /**
+     * @return How many ranked pets are kept per user.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Looks up a user's ranking, dropping it if it was computed for other preferences,
+     * another scorer or an older catalog generation.
+     * @return The ranking, or null on a miss.
+     */
+    RankedRecommendations get(User user, long generation, String scorer) {
+        RankedRecommendations ranked = cache.getIfPresent(user.getId());
+        if (ranked == null) {
+            return null;
+        }
+        if (ranked.generation() != generation || !ranked.scorer().equals(scorer)
+                || !ranked.preferences().equals(PreferenceKey.of(user))) {
+            staleCount.incrementAndGet();
+            cache.invalidate(user.getId());
+            return null;
+        }
+        return ranked;
+    }
+
+    void put(User user, RankedRecommendations ranked) {
+        cache.put(user.getId(), ranked);
+    }
+
+    boolean isSharingEnabled() {
+        return sharingEnabled;
+    }
+
+    /**
+     * @return The preferences with age and weight snapped to this cache's buckets, which is
+     *         what shared rankings are scored with.
+     */
+    ScoringPreferences bucketed(ScoringPreferences prefs) {
+        return prefs.bucketed(ageBucket, weightBucket);
+    }
+
+    /**
+     * Looks up the shared ranking for a signature, dropping it if it was ranked against an older catalog.
+     * @return The ranking, or null on a miss.
+     */
+    RankedRecommendations getShared(PreferenceSignature signature, long generation) {
+        RankedRecommendations ranked = shared.getIfPresent(signature);
+        if (ranked == null) {
+            return null;
+        }
+        if (ranked.generation() != generation) {
+            sharedStaleCount.incrementAndGet();
+            shared.invalidate(signature);
+            return null;
+        }
+        return ranked;
+    }
+
+    void putShared(PreferenceSignature signature, RankedRecommendations ranked) {
+        shared.put(signature, ranked);
+    }
+
+    /**
+     * Drops a user's cached ranking. Call whenever the user's preferences are written.
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        shared.invalidateAll();
+    }
+
+    /**
+     * @return Hit, miss and eviction counters for sizing the cache. Entries dropped
+     *         because they were stale are counted as misses, not hits.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = stats(cache, staleCount.get());
+        result.put("shared", stats(shared, sharedStaleCount.get()));
+        return result;
+    }
+
+    private static Map<String, Object> stats(Cache<?, ?> cache, long stale) {
+        CacheStats stats = cache.stats();
+        long hits = stats.hitCount() - stale;
+        long misses = stats.missCount() + stale;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.size());
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("stale", stale);
+        result.put("evictions", stats.evictionCount());
+        result.put("hitRate", hits + misses == 0 ? 1.0 : (double) hits / (hits + misses));
+        return result;
+    }
+
+    /**
+     * The best {@code ids.length} available pets for a user, best first, as ranked by the named scorer.
+     * {@code complete} is true when every available pet made it into the list.
+     * Shared rankings have no {@code preferences}; their signature is the cache key.
+     */
+    record RankedRecommendations(PreferenceKey preferences, String scorer, long generation, long[] ids,
+                                 double[] scores, boolean complete) {
+    }
+
+    /**
+     * The user fields that affect scoring. Two users with equal keys get the same ranking.
+     */
+    record PreferenceKey(String species, Integer targetAge, Double ageTolerance, Integer targetWeight,
+                         Double weightTolerance, String gender, String breed, String coatLength,
+                         String healthStatus) {
+
+        static PreferenceKey of(User user) {
+            return new PreferenceKey(user.getPreferredSpecies(), user.getTargetAge(), user.getAgeTolerance(),
+                    user.getTargetWeight(), user.getWeightTolerance(), user.getPreferredGender(),
+                    user.getPreferredBreed(), user.getPreferredCoatLength(), user.getPreferredHealthStatus());
+        }
+    }
+
+    /**
+     * Everything that affects a shared ranking: the scorer, the preference codes and the
+     * bucketed age and weight preferences. Built from {@link ScoringPreferences#bucketed},
+     * so spelling differences and small numeric differences map to the same signature.
+     */
+    record PreferenceSignature(String scorer, int species, int gender, int breed, int coatLength, int healthStatus,
+                               boolean ageSet, int targetAge, double ageTolerance,
+                               boolean weightSet, int targetWeight, double weightTolerance) {
+
+        private static final int NO_PREFERENCE = Integer.MIN_VALUE;
+
+        static PreferenceSignature of(ScoringPreferences bucketed, String scorer) {
+            return new PreferenceSignature(scorer,
+                    bucketed.speciesSet ? bucketed.species : NO_PREFERENCE,
+                    bucketed.genderSet ? bucketed.gender : NO_PREFERENCE,
+                    bucketed.breedSet ? bucketed.breed : NO_PREFERENCE,
+                    bucketed.coatLengthSet ? bucketed.coatLength : NO_PREFERENCE,
+                    bucketed.healthStatusSet ? bucketed.healthStatus : NO_PREFERENCE,
+                    bucketed.ageSet, bucketed.targetAge, bucketed.ageTolerance,
+                    bucketed.weightSet, bucketed.targetWeight, bucketed.weightTolerance);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package petadoption.api.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of ranked recommendations. Pass {@code nextCursor} back to get the
+ * following page; it is null when there are no more pets to recommend.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationPage {
+    private List<PetRecommendation> items;
+    private String nextCursor;
+}
@@ -1,127 +1,550 @@
 package petadoption.api.recommendation;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import petadoption.api.cache.EntityCache;
 import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetCardSummary;
+import petadoption.api.pet.PetFeatureRow;
 import petadoption.api.pet.PetRepository;
+import petadoption.api.pet.PetSummary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 
+import petadoption.api.user.RatingWriteBehind;
 import petadoption.api.user.User;
-import petadoption.api.user.UserRepository;
-import java.util.Random;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import java.util.List;
-
 @Service
 public class RecommendationService {
 
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int SHORT_DESCRIPTION_LENGTH = 140;
+    private static final String CURSOR_SEPARATOR = "_";
+
     @Autowired
     private PetRepository petRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private EntityCache entityCache;
+
+    @Autowired
+    private RatingWriteBehind ratingWriteBehind;
+
+    @Autowired
+    private PetFeatureIndex petFeatureIndex;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private ParallelRanker parallelRanker;
+
+    @Autowired
+    private RecommendationSessionStore recommendationSessionStore;
+
+    @Autowired
+    private CandidateRetriever candidateRetriever;
+
+    @Autowired
+    private ItemSimilarityModel itemSimilarityModel;
+
+    @Autowired
+    private SimilarPetIndex similarPetIndex;
+
+    // points added for a pet similar to the ones the user liked, blended with the rule score
+    @Value("${recommendation.cf.weight:20}")
+    private double collaborativeWeight;
+
+    @Autowired
+    private PetScorerRegistry petScorerRegistry;
 
 
-    public List<Pet> getRecommendationsForUser(Long userId, List<Long> excludeIds) {
-        User user = userRepository.findById(userId).orElse(null);
+    /**
+     * Returns the {@code limit} best available pets for a user as list summaries, best first.
+     * @param scorerName The ranking strategy to use, or null for the user's cohort.
+     * @throws IllegalArgumentException if the limit or scorer is invalid.
+     */
+    public List<PetSummary> getRecommendationsForUser(Long userId, int limit, List<Long> excludeIds,
+                                                      String scorerName) {
+        checkLimit(limit);
+        PetScorer scorer = petScorerRegistry.select(userId, scorerName);
+        User user = findUser(userId);
         if (user == null) return List.of();
 
-        return petRepository.findAll().stream()
-                .filter(pet -> excludeIds == null || !excludeIds.contains(pet.getId()))
-                .filter(Pet::getAvailable)
-                .sorted(Comparator.comparingDouble(pet -> -calculateScore(pet, user)))
-                .collect(Collectors.toList());
+        PetFeatureIndex.Snapshot pets = petFeatureIndex.snapshot();
+        Set<Long> excluded = excludeIds == null ? Set.of() : new HashSet<>(excludeIds);
+        List<Long> ranked = rank(pets, limit, preferences(user, pets), scorer,
+                slot -> pets.available[slot] && !excluded.contains(pets.ids[slot]));
+        return inOrder(ranked, petRepository.findSummariesByIdIn(ranked), PetSummary::getId);
     }
 
-    public List<Pet> getRecommendationsForUser(Long userId) {
-        // get the user's preferences
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) return List.of();
+    /**
+     * Returns the next {@code limit} best recommendations for a user.
+     * @param userId The adopter to recommend for.
+     * @param limit Maximum number of pets to return.
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @param excludeIds Pet IDs to skip, may be null.
+     * @param scorerName The ranking strategy to use, or null for the user's cohort. Keep it the same
+     *                   for every page, since cursors hold scores.
+     * @return The page, or an empty page if the user doesn't exist.
+     * @throws IllegalArgumentException if the limit, cursor or scorer is invalid.
+     */
+    public RecommendationPage getTopRecommendations(Long userId, int limit, String cursor, List<Long> excludeIds,
+                                                    String scorerName) {
+        checkLimit(limit);
+        PetScorer scorer = petScorerRegistry.select(userId, scorerName);
+        User user = findUser(userId);
+        if (user == null) return new RecommendationPage(List.of(), null);
 
-        List<Pet> pets = petRepository.findAll();
+        Set<Long> excluded = excludeIds == null ? Set.of() : new HashSet<>(excludeIds);
+        RankedPage page = rankPage(user, scorer, limit, cursor, excluded::contains);
 
-        // Software 1 type sorting haha
-        return pets.stream()
-                .sorted(Comparator.comparingDouble((Pet pet) -> -calculateScore(pet, user)))
-                .collect(Collectors.toList());
+        Map<Long, Pet> byId = petRepository.findAllById(page.petIds()).stream()
+                .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        List<PetRecommendation> items = new ArrayList<>(page.ids().length);
+        for (int i = 0; i < page.ids().length; i++) {
+            Pet pet = byId.get(page.ids()[i]);
+            if (pet != null) {
+                items.add(new PetRecommendation(pet.getId(), pet.getImageUrl(),
+                        shortDescription(pet.getDescription()), null, page.scores()[i]));
+            }
+        }
+        return new RecommendationPage(items, page.nextCursor());
     }
 
-    private double calculateScore(Pet pet, User user) {
-        double score = 0.0;
+    /**
+     * Returns the available pets most like the given one, closest first.
+     * @return The similar pets, or null if the pet doesn't exist.
+     * @throws IllegalArgumentException if the limit is invalid.
+     */
+    public List<PetSummary> getSimilarPets(Long petId, int limit) {
+        checkLimit(limit);
+        PetFeatureRow pet = petRepository.findProjectedById(petId).orElse(null);
+        if (pet == null) return null;
+
+        List<Long> similar = Arrays.stream(similarPetIndex.similar(pet, limit)).boxed().collect(Collectors.toList());
+        return inOrder(similar, petRepository.findSummariesByIdIn(similar), PetSummary::getId);
+    }
+
+    /**
+     * Starts a swipe session for a user and returns its first page.
+     * @param scorerName The ranking strategy for the whole session, or null for the user's cohort.
+     * @return The first page, or null if the user doesn't exist.
+     * @throws IllegalArgumentException if the limit or scorer is invalid.
+     */
+    public RecommendationSessionPage startSession(Long userId, int limit, String scorerName) {
+        checkLimit(limit);
+        PetScorer scorer = petScorerRegistry.select(userId, scorerName);
+        User user = findUser(userId);
+        if (user == null) return null;
+        return sessionPage(user, recommendationSessionStore.create(userId, scorer.name()), limit, null);
+    }
+
+    /**
+     * Returns the next page of a swipe session, skipping every pet the session has seen.
+     * @param cursor The {@code nextCursor} of the previous page, or null to start again from
+     *               the best unseen pet (e.g. after a rating changed the user's preferences).
+     * @return The page, or null if the user or session doesn't exist or the session expired.
+     * @throws IllegalArgumentException if the limit or cursor is invalid.
+     */
+    public RecommendationSessionPage getSessionPage(Long userId, String sessionId, int limit, String cursor) {
+        checkLimit(limit);
+        RecommendationSession session = recommendationSessionStore.get(sessionId, userId);
+        if (session == null) return null;
+        User user = findUser(userId);
+        if (user == null) return null;
+        return sessionPage(user, session, limit, cursor);
+    }
 
-        // Lots of points if preferred species!
-        if (user.getPreferredSpecies() != null && !user.getPreferredSpecies().equalsIgnoreCase("Any")) {
-            if (user.getPreferredSpecies().equalsIgnoreCase(pet.getSpecies())) {
-                score += 50;
+    /**
+     * Records pets the user has seen or rated so the session never recommends them again.
+     * @return False if the session doesn't exist or has expired.
+     */
+    public boolean markSeen(Long userId, String sessionId, List<Long> petIds) {
+        RecommendationSession session = recommendationSessionStore.get(sessionId, userId);
+        if (session == null) return false;
+        if (petIds != null) {
+            for (Long petId : petIds) {
+                if (petId != null) {
+                    session.markSeen(petId);
+                }
             }
-            else {
-                // adding some randomness so the user has a chance to change their mind about species
-                // had to make it deterministic so the comparator was happy
-                score += (pet.getId() % 50);
+        }
+        return true;
+    }
+
+    private RecommendationSessionPage sessionPage(User user, RecommendationSession session, int limit, String cursor) {
+        PetScorer scorer = petScorerRegistry.select(user.getId(), session.getScorer());
+        RankedPage page = rankPage(user, scorer, limit, cursor, session.seenSnapshot());
+        List<Long> petIds = page.petIds();
+        return new RecommendationSessionPage(session.getId(),
+                inOrder(petIds, petRepository.findCardSummariesByIdIn(petIds), PetCardSummary::getId),
+                page.nextCursor());
+    }
+
+    /**
+     * Loads a user including rating changes that are still waiting to be written.
+     */
+    private User findUser(Long userId) {
+        return entityCache.findUser(userId).map(ratingWriteBehind::applyPending).orElse(null);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Finds the next {@code limit} best available pets after the cursor. Each pet is scored
+     * at most once per page and only the best {@code limit} are kept, so the cost of a page grows
+     * with the page size rather than the catalog. The user's ranking is cached until their
+     * preferences change or new pets become available, and is usually built from a ranking
+     * shared with users of similar preferences (see {@link #rankForUser}).
+     * <p>
+     * On large catalogs only the candidates from {@link CandidateRetriever} are ranked at first;
+     * once they run out, every other pet follows, best first. That is the trade-off of candidate
+     * retrieval: a pet that wasn't retrieved is shown after all candidates even if it scores
+     * higher than some of them. Either way, paging through to the end shows each available pet
+     * exactly once, and small catalogs come in the order of the full ranking. The exception is
+     * a shared ranking cut off at the cache depth, which can miss a pet (see {@link #rankForUser}).
+     * @param excluded Pet IDs to skip; must be thread-safe.
+     */
+    private RankedPage rankPage(User user, PetScorer scorer, int limit, String cursor, LongPredicate excluded) {
+        PetFeatureIndex.Snapshot pets = petFeatureIndex.snapshot();
+        ScoringPreferences prefs = preferences(user, pets);
+        Cursor after = cursor != null && !cursor.isEmpty() ? Cursor.parse(cursor) : null;
+
+        // one extra entry tells us whether there is another page
+        TopKHeap top = new TopKHeap(limit + 1);
+        RecommendationCache.RankedRecommendations ranked = recommendationCache.get(user, pets.generation, scorer.name());
+        if (ranked == null) {
+            ranked = rankForUser(pets, prefs, user, scorer);
+            recommendationCache.put(user, ranked);
+        }
+        int[] candidates = null;
+        long start = System.nanoTime();
+        int scored = 0;
+
+        if (after == null || !after.rest()) {
+            // the cached list is best first, so we can stop as soon as the page is full
+            Set<Long> fromCache = new HashSet<>();
+            for (int i = 0; i < ranked.ids().length && top.size() <= limit; i++) {
+                long petId = ranked.ids()[i];
+                if (excluded.test(petId) || !pets.isAvailable(petId)) {
+                    continue;
+                }
+                if (after != null && !TopKHeap.isBetter(after.score(), after.id(), ranked.scores()[i], petId)) {
+                    continue;
+                }
+                top.offer(ranked.scores()[i], petId);
+                fromCache.add(petId);
+            }
+            if (ranked.complete() || top.size() > limit) {
+                return page(top, null, limit, false);
+            }
+
+            // paged or filtered past the cached depth: rank the rest of the candidates (or the
+            // whole index on small catalogs) into the same page
+            IntPredicate include = slot -> pets.available[slot] && !excluded.test(pets.ids[slot])
+                    && !fromCache.contains(pets.ids[slot]);
+            candidates = candidates(pets, prefs, explorationSeed(user.getId(), pets));
+            if (candidates != null) {
+                top.offerAll(rankCandidates(pets, candidates, limit + 1, include, prefs, scorer, after != null,
+                        after != null ? after.score() : 0, after != null ? after.id() : 0));
+                scored += candidates.length;
+            } else {
+                top.offerAll(rankAfter(pets, limit + 1, include, prefs, scorer, after));
+                scored += pets.size;
+            }
+            if (candidates == null || top.size() > limit) {
+                petScorerRegistry.record(scorer, System.nanoTime() - start, scored);
+                return page(top, null, limit, false);
             }
         } else {
-            score += 25; // decided on 25 as the neutral bonus
+            candidates = candidates(pets, prefs, explorationSeed(user.getId(), pets));
+        }
+
+        // the candidates ran out: continue with the pets that were neither retrieved nor in the
+        // cached list, which a shared ranking can fill from other candidates
+        int[] retrieved = candidates;
+        long[] cachedIds = ranked.ids().clone();
+        Arrays.sort(cachedIds);
+        IntPredicate rest = slot -> pets.available[slot] && !excluded.test(pets.ids[slot])
+                && (retrieved == null || Arrays.binarySearch(retrieved, slot) < 0)
+                && Arrays.binarySearch(cachedIds, pets.ids[slot]) < 0;
+        TopKHeap others = rankAfter(pets, limit + 1 - top.size(), rest, prefs, scorer,
+                after != null && after.rest() ? after : null);
+        scored += pets.size;
+        petScorerRegistry.record(scorer, System.nanoTime() - start, scored);
+        return page(top, others, limit, after != null && after.rest());
+    }
+
+    private TopKHeap rankAfter(PetFeatureIndex.Snapshot pets, int k, IntPredicate include, ScoringPreferences prefs,
+                               PetScorer scorer, Cursor after) {
+        ParallelRanker.RangeScorer score = rangeScorer(pets, prefs, scorer);
+        return after != null
+                ? parallelRanker.topKAfter(pets, k, include, score, after.score(), after.id())
+                : parallelRanker.topK(pets, k, include, score);
+    }
+
+    /**
+     * Cuts a page from the ranked candidates followed by the ranked pets that weren't retrieved.
+     * @param others The pets that weren't retrieved, or null if the page doesn't reach them.
+     * @param restOnly Whether {@code top} is empty because the cursor is already past the candidates.
+     */
+    private static RankedPage page(TopKHeap top, TopKHeap others, int limit, boolean restOnly) {
+        double[] topScores = new double[top.size()];
+        long[] topIds = top.drainBestFirst(topScores);
+        double[] otherScores = new double[others == null ? 0 : others.size()];
+        long[] otherIds = others == null ? new long[0] : others.drainBestFirst(otherScores);
+
+        int total = topIds.length + otherIds.length;
+        int count = Math.min(limit, total);
+        long[] ids = new long[count];
+        double[] scores = new double[count];
+        for (int i = 0; i < count; i++) {
+            boolean candidate = i < topIds.length;
+            ids[i] = candidate ? topIds[i] : otherIds[i - topIds.length];
+            scores[i] = candidate ? topScores[i] : otherScores[i - topIds.length];
+        }
+        String nextCursor = null;
+        if (total > limit) {
+            boolean rest = restOnly || count > topIds.length;
+            nextCursor = new Cursor(scores[count - 1], ids[count - 1], rest).toString();
+        }
+        return new RankedPage(ids, scores, nextCursor);
+    }
+
+    /**
+     * Position in the paging order: after the pet with this score and ID, among the candidates
+     * or, once those ran out, among the pets that weren't retrieved ({@code rest}).
+     * Formatted as {@code score_id}, with {@code _rest} appended in the second part.
+     */
+    private record Cursor(double score, long id, boolean rest) {
+
+        private static final String REST = "rest";
+
+        static Cursor parse(String cursor) {
+            String[] parts = cursor.split(CURSOR_SEPARATOR, -1);
+            try {
+                if (parts.length == 2 || (parts.length == 3 && parts[2].equals(REST))) {
+                    return new Cursor(Double.parseDouble(parts[0]), Long.parseLong(parts[1]), parts.length == 3);
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Invalid recommendation cursor: " + cursor);
         }
 
-        // points for preferred age
-        if (user.getTargetAge() != null && user.getAgeTolerance() != null) {
-            int ageDiff = Math.abs(pet.getAge() - user.getTargetAge());
-            // decided to do fractions and stuff with max 30 points to account for tolerances
-            double ageScore = Math.max(0, 30 - (ageDiff / (double) user.getAgeTolerance()) * 30);
-            score += ageScore;
+        @Override
+        public String toString() {
+            return score + CURSOR_SEPARATOR + id + (rest ? CURSOR_SEPARATOR + REST : "");
         }
+    }
+
+    /**
+     * A page of pet IDs, best first, with their scores.
+     */
+    private record RankedPage(long[] ids, double[] scores, String nextCursor) {
 
-        // points for weight preferencce
-        if (user.getTargetWeight() != null && user.getWeightTolerance() != null) {
-            int weightDiff = Math.abs(pet.getWeight() - user.getTargetWeight());
-            // similar to age
-            double weightScore = Math.max(0, 20 - (weightDiff / (double) user.getWeightTolerance()) * 20);
-            score += weightScore;
+        List<Long> petIds() {
+            return Arrays.stream(ids).boxed().collect(Collectors.toList());
         }
+    }
 
-        // points for gender
-        if (user.getPreferredGender() != null && !user.getPreferredGender().equalsIgnoreCase("Any")) {
-            if (user.getPreferredGender().equalsIgnoreCase(pet.getGender())) {
-                score += 10;
+    /**
+     * Ranks a user's best available pets, as deep as the cache keeps. Users without a
+     * collaborative-filtering bonus start from the shared ranking of their preference
+     * signature and re-score it with their exact preferences, so only the first user of a
+     * signature scores the catalog. The shared list was picked with bucketed age and weight
+     * preferences, so towards its end it can miss a pet the user's own ranking would have kept.
+     */
+    private RecommendationCache.RankedRecommendations rankForUser(PetFeatureIndex.Snapshot pets,
+                                                                  ScoringPreferences prefs, User user,
+                                                                  PetScorer scorer) {
+        RecommendationCache.PreferenceKey key = RecommendationCache.PreferenceKey.of(user);
+        if (!prefs.collaborative.isEmpty() || !recommendationCache.isSharingEnabled()) {
+            return rankForCache(pets, prefs, key, explorationSeed(user.getId(), pets), scorer);
+        }
+        ScoringPreferences bucketed = recommendationCache.bucketed(prefs);
+        RecommendationCache.PreferenceSignature signature =
+                RecommendationCache.PreferenceSignature.of(bucketed, scorer.name());
+        RecommendationCache.RankedRecommendations shared = recommendationCache.getShared(signature, pets.generation);
+        if (shared == null) {
+            shared = rankForCache(pets, bucketed, null, explorationSeed(signature.hashCode(), pets), scorer);
+            recommendationCache.putShared(signature, shared);
+        }
+        TopKHeap top = new TopKHeap(shared.ids().length);
+        for (long petId : shared.ids()) {
+            int slot = pets.slotOf(petId);
+            if (slot >= 0) {
+                top.offer(scorer.score(pets, prefs, slot), petId);
             }
-        } else {
-            score += 5; // neutral bonus
         }
+        double[] scores = new double[top.size()];
+        long[] ids = top.drainBestFirst(scores);
+        return new RecommendationCache.RankedRecommendations(key, scorer.name(), pets.generation, ids, scores,
+                shared.complete());
+    }
+
+    /**
+     * Ranks the best available pets for the given preferences, as deep as the cache keeps. Large
+     * catalogs only rank the retrieved candidates, so the result is never marked complete.
+     * @param key The user preferences the ranking is cached under, or null for a shared ranking.
+     */
+    private RecommendationCache.RankedRecommendations rankForCache(PetFeatureIndex.Snapshot pets,
+                                                                   ScoringPreferences prefs,
+                                                                   RecommendationCache.PreferenceKey key,
+                                                                   long explorationSeed, PetScorer scorer) {
+        long start = System.nanoTime();
+        int[] candidates = candidates(pets, prefs, explorationSeed);
+        TopKHeap top = candidates != null
+                ? rankCandidates(pets, candidates, recommendationCache.depth(), slot -> pets.available[slot], prefs,
+                        scorer, false, 0, 0)
+                : parallelRanker.topK(pets, recommendationCache.depth(), slot -> pets.available[slot],
+                        rangeScorer(pets, prefs, scorer));
+        petScorerRegistry.record(scorer, System.nanoTime() - start, candidates != null ? candidates.length : pets.size);
+        double[] scores = new double[top.size()];
+        long[] ids = top.drainBestFirst(scores);
+        boolean complete = candidates == null && ids.length == countAvailable(pets);
+        return new RecommendationCache.RankedRecommendations(key, scorer.name(), pets.generation, ids, scores,
+                complete);
+    }
 
-        // points for breed
-        if (user.getPreferredBreed() != null && !user.getPreferredBreed().isEmpty()) {
-            if (pet.getBreed() != null && pet.getBreed().equalsIgnoreCase(user.getPreferredBreed())) {
-                score += 20;
+    /**
+     * Second stage of candidate retrieval: scores only the given slots, keeping those ranked
+     * after the cursor when {@code bounded}.
+     */
+    private TopKHeap rankCandidates(PetFeatureIndex.Snapshot pets, int[] slots, int k, IntPredicate include,
+                                    ScoringPreferences prefs, PetScorer scorer, boolean bounded, double afterScore,
+                                    long afterId) {
+        TopKHeap top = new TopKHeap(k);
+        for (int slot : slots) {
+            if (!include.test(slot)) {
+                continue;
+            }
+            double score = calculateScore(pets, slot, prefs, scorer);
+            if (bounded && !TopKHeap.isBetter(afterScore, afterId, score, pets.ids[slot])) {
+                continue;
             }
+            top.offer(score, pets.ids[slot]);
         }
+        return top;
+    }
 
-        // points for coat length
-        if (user.getPreferredCoatLength() != null && !user.getPreferredCoatLength().isEmpty()) {
-            if (pet.getCoatLength() != null && pet.getCoatLength().equalsIgnoreCase(user.getPreferredCoatLength())) {
-                score += 10;
+    /**
+     * The retrieved candidates plus the pets collaborative filtering recommends.
+     * @return Sorted, distinct slots, or null to score every pet.
+     */
+    private int[] candidates(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, long explorationSeed) {
+        int[] candidates = candidateRetriever.candidates(pets, prefs, explorationSeed);
+        if (candidates == null || prefs.collaborative.isEmpty()) {
+            return candidates;
+        }
+        int[] boosted = prefs.collaborative.slots();
+        int[] merged = new int[candidates.length + boosted.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < candidates.length || j < boosted.length) {
+            int next = j == boosted.length || (i < candidates.length && candidates[i] <= boosted[j])
+                    ? candidates[i++] : boosted[j++];
+            if (count == 0 || merged[count - 1] != next) {
+                merged[count++] = next;
             }
         }
+        return Arrays.copyOf(merged, count);
+    }
+
+    // stable for a user (or signature) until the catalog changes, so every page sees the same exploration sample
+    private static long explorationSeed(long owner, PetFeatureIndex.Snapshot pets) {
+        return 31 * owner + pets.generation;
+    }
 
-        // points for health status
-        // decided to allow user to prefer sickly animals but idk how I feel about that
-        if (user.getPreferredHealthStatus() != null && !user.getPreferredHealthStatus().isEmpty()) {
-            if (pet.getHealthStatus() != null && pet.getHealthStatus().equalsIgnoreCase(user.getPreferredHealthStatus())) {
-                score += 5;
+    private static int countAvailable(PetFeatureIndex.Snapshot pets) {
+        int count = 0;
+        for (int slot = 0; slot < pets.size; slot++) {
+            if (pets.available[slot]) {
+                count++;
             }
         }
+        return count;
+    }
 
-        // checking for silly values
-        if (Double.isNaN(score) || Double.isInfinite(score)) {
-            return 0;
+    private static String shortDescription(String description) {
+        if (description == null || description.length() <= SHORT_DESCRIPTION_LENGTH) {
+            return description;
         }
+        return description.substring(0, SHORT_DESCRIPTION_LENGTH).trim() + "...";
+    }
 
-        return score;
+    /**
+     * Scores every matching pet in the index and returns the IDs of the best {@code k}, best first.
+     * Ties keep ascending pet ID order.
+     */
+    private List<Long> rank(PetFeatureIndex.Snapshot pets, int k, ScoringPreferences prefs, PetScorer scorer,
+                            IntPredicate include) {
+        long start = System.nanoTime();
+        TopKHeap all = parallelRanker.topK(pets, k, include, rangeScorer(pets, prefs, scorer));
+        petScorerRegistry.record(scorer, System.nanoTime() - start, pets.size);
+        return Arrays.stream(all.drainBestFirst(null)).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Puts pets loaded in no particular order back in ranking order, skipping pets deleted since.
+     */
+    private static <T> List<T> inOrder(List<Long> petIds, List<T> loaded, Function<T, Long> id) {
+        Map<Long, T> byId = loaded.stream().collect(Collectors.toMap(id, Function.identity()));
+        return petIds.stream()
+                .map(byId::get)
+                .filter(pet -> pet != null)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Resolves a user's preferences for scoring, including their collaborative-filtering bonus.
+     */
+    private ScoringPreferences preferences(User user, PetFeatureIndex.Snapshot pets) {
+        CollaborativeBoost collaborative = itemSimilarityModel.isEnabled()
+                ? CollaborativeBoost.of(pets, itemSimilarityModel.affinity(user.getId()), collaborativeWeight)
+                : CollaborativeBoost.NONE;
+        return ScoringPreferences.of(user, petFeatureIndex, collaborative);
     }
-}
 
+    /**
+     * Blocks of the strategy's scores with the user's collaborative-filtering bonus added.
+     */
+    private ParallelRanker.RangeScorer rangeScorer(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs,
+                                                   PetScorer scorer) {
+        if (prefs.collaborative.isEmpty()) {
+            return (from, to, out) -> scorer.score(pets, prefs, from, to, out);
+        }
+        return (from, to, out) -> {
+            scorer.score(pets, prefs, from, to, out);
+            prefs.collaborative.apply(from, to, out);
+        };
+    }
+
+    /**
+     * Scores one snapshot slot: the strategy's score plus the user's collaborative-filtering bonus.
+     */
+    double calculateScore(PetFeatureIndex.Snapshot pets, int slot, ScoringPreferences prefs, PetScorer scorer) {
+        return scorer.score(pets, prefs, slot) + prefs.collaborative.bonus(slot);
+    }
+}
@@ -0,0 +1,63 @@
+package petadoption.api.recommendation;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * A user's swipe session. Remembers which pets the user has already seen or rated
+ * so they are not recommended again, without the client resending its history.
+ * Pet IDs are dense database sequence values, so they are kept in a bitmap indexed
+ * by ID; the rare ID outside the int range goes to a small overflow set.
+ */
+public class RecommendationSession {
+
+    private final String id;
+    private final Long userId;
+    private final String scorer;
+    private final BitSet seen = new BitSet();
+    private final Set<Long> seenOverflow = new HashSet<>();
+
+    RecommendationSession(String id, Long userId, String scorer) {
+        this.id = id;
+        this.userId = userId;
+        this.scorer = scorer;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return The ranking strategy every page of the session uses, or null for the user's cohort.
+     */
+    public String getScorer() {
+        return scorer;
+    }
+
+    synchronized void markSeen(long petId) {
+        if (petId >= 0 && petId <= Integer.MAX_VALUE) {
+            seen.set((int) petId);
+        } else {
+            seenOverflow.add(petId);
+        }
+    }
+
+    /**
+     * @return A copy of the seen set as a predicate. Ranking reads it from several
+     *         threads, so it must not change while a page is being built.
+     */
+    synchronized LongPredicate seenSnapshot() {
+        BitSet bits = (BitSet) seen.clone();
+        if (seenOverflow.isEmpty()) {
+            return petId -> petId >= 0 && petId <= Integer.MAX_VALUE && bits.get((int) petId);
+        }
+        Set<Long> overflow = Set.copyOf(seenOverflow);
+        return petId -> petId >= 0 && petId <= Integer.MAX_VALUE ? bits.get((int) petId) : overflow.contains(petId);
+    }
+}
@@ -0,0 +1,22 @@
+package petadoption.api.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import petadoption.api.pet.PetCardSummary;
+
+import java.util.List;
+
+/**
+ * One page of a swipe session. Pets the session has marked as seen are never included.
+ * Pass {@code nextCursor} back with the same session to continue down the ranking;
+ * it is null when there are no more pets.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationSessionPage {
+    private String sessionId;
+    private List<PetCardSummary> pets;
+    private String nextCursor;
+}
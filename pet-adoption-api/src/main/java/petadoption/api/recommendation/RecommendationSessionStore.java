@@ -0,0 +1,49 @@
+package petadoption.api.recommendation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Keeps swipe sessions in memory. A session expires once it has not been used for the
+ * configured TTL, and the oldest sessions are evicted past the size limit.
+ */
+@Component
+public class RecommendationSessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationSessionStore.class);
+
+    private final Cache<String, RecommendationSession> sessions;
+
+    public RecommendationSessionStore(@Value("${recommendation.session.max-sessions:100000}") long maxSessions,
+                                      @Value("${recommendation.session.ttl-minutes:30}") long ttlMinutes) {
+        this.sessions = CacheBuilder.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .build();
+        log.info("Recommendation sessions expire after {} idle minutes, at most {} kept", ttlMinutes, maxSessions);
+    }
+
+    RecommendationSession create(Long userId, String scorer) {
+        RecommendationSession session = new RecommendationSession(UUID.randomUUID().toString(), userId, scorer);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * @return The session, or null if it doesn't exist, has expired or belongs to another user.
+     */
+    RecommendationSession get(String sessionId, Long userId) {
+        if (sessionId == null) {
+            return null;
+        }
+        RecommendationSession session = sessions.getIfPresent(sessionId);
+        return session != null && session.getUserId().equals(userId) ? session : null;
+    }
+}
@@ -0,0 +1,119 @@
+package petadoption.api.recommendation;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The default ranking strategy: the hand-tuned preference rules. Blocks of pets go
+ * through a {@link ScoringKernel}, which uses SIMD when the Vector API is available.
+ */
+@Component
+public class RuleBasedScorer implements PetScorer {
+
+    public static final String NAME = "rules";
+
+    private static final Logger log = LoggerFactory.getLogger(RuleBasedScorer.class);
+
+    @Value("${recommendation.vector.enabled:true}")
+    private boolean vectorScoringEnabled;
+
+    private ScoringKernel scoringKernel;
+
+    @PostConstruct
+    void selectScoringKernel() {
+        scoringKernel = ScoringKernels.select(vectorScoringEnabled);
+        log.info("Rule-based scoring uses {}", scoringKernel.getClass().getSimpleName());
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int from, int to, double[] out) {
+        scoringKernel.score(pets, prefs, from, to, out);
+    }
+
+    @Override
+    public double score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int slot) {
+        return score(prefs, pets.ids[slot], pets.ages[slot], pets.weights[slot], pets.species[slot],
+                pets.genders[slot], pets.breeds[slot], pets.coatLengths[slot], pets.healthStatuses[slot]);
+    }
+
+    static double score(ScoringPreferences prefs, long petId, int age, int weight,
+                        int species, int gender, int breed, int coatLength, int healthStatus) {
+        double score = 0.0;
+
+        // Lots of points if preferred species!
+        if (prefs.speciesSet) {
+            if (species == prefs.species) {
+                score += 50;
+            }
+            else {
+                // adding some randomness so the user has a chance to change their mind about species
+                // had to make it deterministic so the comparator was happy
+                score += (petId % 50);
+            }
+        } else {
+            score += 25; // decided on 25 as the neutral bonus
+        }
+
+        // points for preferred age
+        if (prefs.ageSet) {
+            int ageDiff = Math.abs(age - prefs.targetAge);
+            // decided to do fractions and stuff with max 30 points to account for tolerances
+            double ageScore = Math.max(0, 30 - (ageDiff / prefs.ageTolerance) * 30);
+            score += ageScore;
+        }
+
+        // points for weight preferencce
+        if (prefs.weightSet) {
+            int weightDiff = Math.abs(weight - prefs.targetWeight);
+            // similar to age
+            double weightScore = Math.max(0, 20 - (weightDiff / prefs.weightTolerance) * 20);
+            score += weightScore;
+        }
+
+        // points for gender
+        if (prefs.genderSet) {
+            if (gender == prefs.gender) {
+                score += 10;
+            }
+        } else {
+            score += 5; // neutral bonus
+        }
+
+        // points for breed
+        if (prefs.breedSet) {
+            if (breed == prefs.breed) {
+                score += 20;
+            }
+        }
+
+        // points for coat length
+        if (prefs.coatLengthSet) {
+            if (coatLength == prefs.coatLength) {
+                score += 10;
+            }
+        }
+
+        // points for health status
+        // decided to allow user to prefer sickly animals but idk how I feel about that
+        if (prefs.healthStatusSet) {
+            if (healthStatus == prefs.healthStatus) {
+                score += 5;
+            }
+        }
+
+        // checking for silly values
+        if (Double.isNaN(score) || Double.isInfinite(score)) {
+            return 0;
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,16 @@
+package petadoption.api.recommendation;
+
+/**
+ * Scores one pet at a time. Used when the Vector API module isn't available.
+ */
+final class ScalarScoringKernel implements ScoringKernel {
+
+    @Override
+    public void score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int from, int to, double[] out) {
+        for (int slot = from; slot < to; slot++) {
+            out[slot - from] = RuleBasedScorer.score(prefs, pets.ids[slot], pets.ages[slot],
+                    pets.weights[slot], pets.species[slot], pets.genders[slot], pets.breeds[slot],
+                    pets.coatLengths[slot], pets.healthStatuses[slot]);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package petadoption.api.recommendation;
+
+/**
+ * Scores a block of pets from a feature index snapshot against one user's preferences.
+ */
+interface ScoringKernel {
+
+    /**
+     * Writes the scores of snapshot slots {@code from} (inclusive) to {@code to} (exclusive)
+     * into {@code out[0 .. to - from)}. Must give exactly the same result as
+     * {@link RuleBasedScorer#score(ScoringPreferences, long, int, int, int, int, int, int, int)}.
+     */
+    void score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int from, int to, double[] out);
+}
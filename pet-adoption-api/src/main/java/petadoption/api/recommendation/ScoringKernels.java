@@ -0,0 +1,34 @@
+package petadoption.api.recommendation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the scoring kernel. The SIMD kernel needs the incubating
+ * {@code jdk.incubator.vector} module, which is only present when the JVM is
+ * started with {@code --add-modules jdk.incubator.vector}; otherwise the
+ * scalar kernel is used.
+ */
+final class ScoringKernels {
+
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringKernels.class);
+
+    private ScoringKernels() {
+    }
+
+    static ScoringKernel select(boolean preferVector) {
+        if (preferVector && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // loaded reflectively so the class is never linked when the module is missing
+                return (ScoringKernel) Class.forName("petadoption.api.recommendation.VectorScoringKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Could not load the vector scoring kernel, falling back to scalar scoring: {}", e.toString());
+            }
+        }
+        return new ScalarScoringKernel();
+    }
+}
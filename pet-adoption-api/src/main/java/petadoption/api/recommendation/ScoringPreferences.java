@@ -0,0 +1,116 @@
+package petadoption.api.recommendation;
+
+import petadoption.api.user.User;
+
+/**
+ * A user's recommendation preferences resolved once per request into the
+ * primitive form the scorer compares against {@link PetFeatureIndex} columns.
+ */
+final class ScoringPreferences {
+
+    final boolean speciesSet;
+    final int species;
+
+    final boolean ageSet;
+    final int targetAge;
+    final double ageTolerance;
+
+    final boolean weightSet;
+    final int targetWeight;
+    final double weightTolerance;
+
+    final boolean genderSet;
+    final int gender;
+
+    final boolean breedSet;
+    final int breed;
+
+    final boolean coatLengthSet;
+    final int coatLength;
+
+    final boolean healthStatusSet;
+    final int healthStatus;
+
+    final CollaborativeBoost collaborative;
+
+    private ScoringPreferences(User user, PetFeatureIndex index, CollaborativeBoost collaborative) {
+        this.collaborative = collaborative;
+
+        // "Any" and null both mean no preference for species and gender
+        speciesSet = user.getPreferredSpecies() != null && !user.getPreferredSpecies().equalsIgnoreCase("Any");
+        species = speciesSet ? index.speciesCode(user.getPreferredSpecies()) : PetFeatureIndex.UNKNOWN_VALUE;
+
+        ageSet = user.getTargetAge() != null && user.getAgeTolerance() != null;
+        targetAge = ageSet ? user.getTargetAge() : 0;
+        ageTolerance = ageSet ? user.getAgeTolerance() : 0;
+
+        weightSet = user.getTargetWeight() != null && user.getWeightTolerance() != null;
+        targetWeight = weightSet ? user.getTargetWeight() : 0;
+        weightTolerance = weightSet ? user.getWeightTolerance() : 0;
+
+        genderSet = user.getPreferredGender() != null && !user.getPreferredGender().equalsIgnoreCase("Any");
+        gender = genderSet ? index.genderCode(user.getPreferredGender()) : PetFeatureIndex.UNKNOWN_VALUE;
+
+        // empty string means no preference for the remaining attributes
+        breedSet = user.getPreferredBreed() != null && !user.getPreferredBreed().isEmpty();
+        breed = breedSet ? index.breedCode(user.getPreferredBreed()) : PetFeatureIndex.UNKNOWN_VALUE;
+
+        coatLengthSet = user.getPreferredCoatLength() != null && !user.getPreferredCoatLength().isEmpty();
+        coatLength = coatLengthSet ? index.coatLengthCode(user.getPreferredCoatLength()) : PetFeatureIndex.UNKNOWN_VALUE;
+
+        healthStatusSet = user.getPreferredHealthStatus() != null && !user.getPreferredHealthStatus().isEmpty();
+        healthStatus = healthStatusSet ? index.healthStatusCode(user.getPreferredHealthStatus()) : PetFeatureIndex.UNKNOWN_VALUE;
+    }
+
+    private ScoringPreferences(ScoringPreferences prefs, int targetAge, double ageTolerance, int targetWeight,
+                               double weightTolerance) {
+        collaborative = prefs.collaborative;
+        speciesSet = prefs.speciesSet;
+        species = prefs.species;
+        ageSet = prefs.ageSet;
+        this.targetAge = targetAge;
+        this.ageTolerance = ageTolerance;
+        weightSet = prefs.weightSet;
+        this.targetWeight = targetWeight;
+        this.weightTolerance = weightTolerance;
+        genderSet = prefs.genderSet;
+        gender = prefs.gender;
+        breedSet = prefs.breedSet;
+        breed = prefs.breed;
+        coatLengthSet = prefs.coatLengthSet;
+        coatLength = prefs.coatLength;
+        healthStatusSet = prefs.healthStatusSet;
+        healthStatus = prefs.healthStatus;
+    }
+
+    static ScoringPreferences of(User user, PetFeatureIndex index) {
+        return new ScoringPreferences(user, index, CollaborativeBoost.NONE);
+    }
+
+    /**
+     * Like {@link #of(User, PetFeatureIndex)}, with a collaborative-filtering bonus added on top of the rules.
+     */
+    static ScoringPreferences of(User user, PetFeatureIndex index, CollaborativeBoost collaborative) {
+        return new ScoringPreferences(user, index, collaborative);
+    }
+
+    /**
+     * A copy with the age and weight targets snapped to the middle of their bucket and the
+     * tolerances rounded to a whole number of buckets (at least one), so that users with
+     * nearly the same preferences resolve to equal ones.
+     */
+    ScoringPreferences bucketed(int ageBucket, int weightBucket) {
+        return new ScoringPreferences(this,
+                ageSet ? bucketCenter(targetAge, ageBucket) : 0, ageSet ? roundTolerance(ageTolerance, ageBucket) : 0,
+                weightSet ? bucketCenter(targetWeight, weightBucket) : 0,
+                weightSet ? roundTolerance(weightTolerance, weightBucket) : 0);
+    }
+
+    private static int bucketCenter(int value, int bucket) {
+        return Math.floorDiv(value, bucket) * bucket + bucket / 2;
+    }
+
+    private static double roundTolerance(double tolerance, int bucket) {
+        return Math.max(1, Math.round(tolerance / bucket)) * (double) bucket;
+    }
+}
@@ -0,0 +1,227 @@
+package petadoption.api.recommendation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetFeatures;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbor index of the available pets, answering "more like this pet".
+ * Each pet is a vector of its age, weight and size class plus one-hot species, breed,
+ * coat length and health status, searched through an {@link HnswGraph}.
+ * Pets are inserted as they are saved; adopted and deleted pets are tombstoned, and the
+ * graph is rebuilt without them once they outnumber the live pets.
+ */
+@Component
+public class SimilarPetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarPetIndex.class);
+
+    private static final int NUMERIC_DIMS = 3;
+    private static final int CATEGORICAL_DIMS = 4;
+    // one unit of distance is 2 years of age, 10 lbs or one size class; a different category costs 2
+    private static final float AGE_SCALE = 2f;
+    private static final float WEIGHT_SCALE = 10f;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1000;
+
+    private final PetFeatureIndex petFeatureIndex;
+    private final PetAttributeVocabulary vocabulary;
+    private final boolean enabled;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+
+    // writers are serialized on this object; the lock only keeps readers off a graph being modified
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile HnswGraph graph;
+
+    public SimilarPetIndex(PetFeatureIndex petFeatureIndex, PetAttributeVocabulary vocabulary,
+                           @Value("${recommendation.similar.enabled:true}") boolean enabled,
+                           @Value("${recommendation.similar.m:16}") int m,
+                           @Value("${recommendation.similar.ef-construction:100}") int efConstruction,
+                           @Value("${recommendation.similar.ef-search:64}") int efSearch) {
+        this.petFeatureIndex = petFeatureIndex;
+        this.vocabulary = vocabulary;
+        this.enabled = enabled;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.graph = newGraph();
+    }
+
+    /**
+     * Indexes every available pet in the {@link PetFeatureIndex}. Runs once when the application
+     * is ready, after the feature index has been loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        HnswGraph built = newGraph();
+        PetFeatureIndex.Snapshot pets = petFeatureIndex.snapshot();
+        for (int slot = 0; slot < pets.size; slot++) {
+            if (pets.available[slot]) {
+                // the feature index interns codes in the same vocabulary
+                String species = vocabulary.valueOf(Attribute.SPECIES, pets.species[slot]);
+                built.insert(pets.ids[slot], numericFeatures(pets.ages[slot], pets.weights[slot], species),
+                        new int[]{pets.species[slot], pets.breeds[slot], pets.coatLengths[slot], pets.healthStatuses[slot]});
+            }
+        }
+        swap(built);
+        log.info("Built similar-pet index with {} pets in {} ms", built.liveCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChange(PetChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.getKind()) {
+            case SAVED -> upsertAll(event.getPets());
+            case DELETED -> removeAll(event.getPetIds());
+            case CLEARED -> clear();
+        }
+    }
+
+    /**
+     * Inserts available pets and tombstones the ones no longer available.
+     */
+    public synchronized void upsertAll(Collection<? extends PetFeatures> pets) {
+        HnswGraph current = graph;
+        for (PetFeatures pet : pets) {
+            if (pet == null || pet.getId() == null) {
+                continue;
+            }
+            // one pet per lock hold, so a large import doesn't stall queries
+            lock.writeLock().lock();
+            try {
+                if (Boolean.TRUE.equals(pet.getAvailable())) {
+                    insert(current, pet);
+                } else {
+                    current.remove(pet.getId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void removeAll(Collection<Long> petIds) {
+        HnswGraph current = graph;
+        lock.writeLock().lock();
+        try {
+            petIds.forEach(current::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void clear() {
+        swap(newGraph());
+    }
+
+    /**
+     * Finds the available pets closest to the given one. The pet itself doesn't need to be
+     * indexed, so this works for adopted pets too.
+     * @return Up to {@code limit} pet IDs, closest first. Never includes the pet itself.
+     */
+    public long[] similar(PetFeatures pet, int limit) {
+        if (!enabled) {
+            return new long[0];
+        }
+        float[] numeric = numericFeatures(pet);
+        int[] categorical = {
+                vocabulary.lookup(Attribute.SPECIES, pet.getSpecies()),
+                vocabulary.lookup(Attribute.BREED, pet.getBreed()),
+                vocabulary.lookup(Attribute.COAT_LENGTH, pet.getCoatLength()),
+                vocabulary.lookup(Attribute.HEALTH_STATUS, pet.getHealthStatus())};
+        long excluded = pet.getId() != null ? pet.getId() : Long.MIN_VALUE;
+        lock.readLock().lock();
+        try {
+            return graph.search(numeric, categorical, limit, efSearch, excluded);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return How many pets searches can return.
+     */
+    public int size() {
+        return graph.liveCount();
+    }
+
+    private HnswGraph newGraph() {
+        return new HnswGraph(NUMERIC_DIMS, CATEGORICAL_DIMS, m, efConstruction, 42);
+    }
+
+    private void insert(HnswGraph target, PetFeatures pet) {
+        int[] categorical = {
+                vocabulary.intern(Attribute.SPECIES, pet.getSpecies()),
+                vocabulary.intern(Attribute.BREED, pet.getBreed()),
+                vocabulary.intern(Attribute.COAT_LENGTH, pet.getCoatLength()),
+                vocabulary.intern(Attribute.HEALTH_STATUS, pet.getHealthStatus())};
+        target.insert(pet.getId(), numericFeatures(pet), categorical);
+    }
+
+    private static float[] numericFeatures(PetFeatures pet) {
+        int age = pet.getAge() != null ? pet.getAge() : 0;
+        int weight = pet.getWeight() != null ? pet.getWeight() : 0;
+        return numericFeatures(age, weight, pet.getSpecies());
+    }
+
+    private static float[] numericFeatures(int age, int weight, String species) {
+        return new float[]{age / AGE_SCALE, weight / WEIGHT_SCALE, sizeClass(Pet.sizeOf(species, weight))};
+    }
+
+    private static float sizeClass(String size) {
+        return switch (size) {
+            case "small" -> 0;
+            case "medium" -> 1;
+            case "large" -> 2;
+            default -> 3;
+        };
+    }
+
+    /**
+     * Rebuilds the graph from its live pets once tombstones outnumber them. The old graph keeps
+     * serving queries while the new one is built, since only this (synchronized) writer modifies it.
+     */
+    private void compactIfNeeded() {
+        HnswGraph current = graph;
+        int tombstones = current.tombstoneCount();
+        if (tombstones < MIN_TOMBSTONES_TO_COMPACT || tombstones <= current.liveCount()) {
+            return;
+        }
+        long start = System.nanoTime();
+        HnswGraph compacted = current.compact();
+        swap(compacted);
+        log.info("Compacted similar-pet index: dropped {} tombstones, {} pets left, took {} ms",
+                tombstones, compacted.liveCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void swap(HnswGraph replacement) {
+        lock.writeLock().lock();
+        try {
+            graph = replacement;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package petadoption.api.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Bounded min-heap that keeps the best K (score, pet ID) pairs seen so far.
+ * Higher scores win and ties go to the lower pet ID, matching the order of
+ * the full recommendation ranking. Uses primitive arrays that grow up to the
+ * capacity, so a large K only costs memory once that many pets are offered.
+ */
+final class TopKHeap {
+
+    private final int capacity;
+    private double[] scores;
+    private long[] ids;
+    private int size;
+
+    TopKHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        int initial = Math.min(capacity, 16);
+        this.scores = new double[initial];
+        this.ids = new long[initial];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Offers a candidate, keeping it only if it beats the current worst entry.
+     */
+    void offer(double score, long id) {
+        if (size < capacity) {
+            if (size == ids.length) {
+                int grown = (int) Math.min(capacity, Math.max(16L, 2L * ids.length));
+                scores = Arrays.copyOf(scores, grown);
+                ids = Arrays.copyOf(ids, grown);
+            }
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (capacity > 0 && isBetter(score, id, scores[0], ids[0])) {
+            scores[0] = score;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers every entry of another heap. Used to merge per-worker results.
+     */
+    void offerAll(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.scores[i], other.ids[i]);
+        }
+    }
+
+    /**
+     * Empties the heap.
+     * @return The kept pet IDs, best first; {@code scoresOut} (if not null) receives the matching scores.
+     */
+    long[] drainBestFirst(double[] scoresOut) {
+        long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            scores[0] = scores[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    static boolean isBetter(double score, long id, double otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            // root holds the worst entry
+            if (!isBetter(scores[parent], ids[parent], scores[i], ids[i])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && isBetter(scores[worst], ids[worst], scores[right], ids[right])) {
+                worst = right;
+            }
+            if (!isBetter(scores[i], ids[i], scores[worst], ids[worst])) {
+                break;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+}
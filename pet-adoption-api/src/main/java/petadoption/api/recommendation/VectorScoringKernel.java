@@ -0,0 +1,96 @@
+package petadoption.api.recommendation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of the rule-based scorer. Each iteration scores as many pets as
+ * fit in a preferred-width double vector, reading straight from the snapshot's
+ * primitive columns. Per lane it performs the same floating point operations in
+ * the same order as {@link RuleBasedScorer#score}, so results are
+ * bit-for-bit identical to the scalar kernel. Only instantiated through
+ * {@link ScoringKernels} when {@code jdk.incubator.vector} is present.
+ */
+final class VectorScoringKernel implements ScoringKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // int and long lanes matching the double lane count, so columns line up lane for lane
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+    private static final VectorSpecies<Long> LONGS =
+            VectorSpecies.of(long.class, VectorShape.forBitSize(DOUBLES.length() * Long.SIZE));
+
+    @Override
+    public void score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int from, int to, double[] out) {
+        int lanes = DOUBLES.length();
+        int upper = from + DOUBLES.loopBound(to - from);
+        int slot = from;
+        for (; slot < upper; slot += lanes) {
+            DoubleVector score = DoubleVector.zero(DOUBLES);
+
+            if (prefs.speciesSet) {
+                VectorMask<Double> match = matches(pets.species, slot, prefs.species);
+                LongVector ids = LongVector.fromArray(LONGS, pets.ids, slot);
+                LongVector exploration = ids.sub(ids.lanewise(VectorOperators.DIV, 50L).mul(50L));
+                DoubleVector bonus = ((DoubleVector) exploration.convertShape(VectorOperators.L2D, DOUBLES, 0))
+                        .blend(50.0, match);
+                score = score.add(bonus);
+            } else {
+                score = score.add(25.0);
+            }
+
+            if (prefs.ageSet) {
+                score = score.add(tolerance(pets.ages, slot, prefs.targetAge, prefs.ageTolerance, 30.0));
+            }
+            if (prefs.weightSet) {
+                score = score.add(tolerance(pets.weights, slot, prefs.targetWeight, prefs.weightTolerance, 20.0));
+            }
+
+            if (prefs.genderSet) {
+                score = score.add(DoubleVector.broadcast(DOUBLES, 10.0), matches(pets.genders, slot, prefs.gender));
+            } else {
+                score = score.add(5.0);
+            }
+            if (prefs.breedSet) {
+                score = score.add(DoubleVector.broadcast(DOUBLES, 20.0), matches(pets.breeds, slot, prefs.breed));
+            }
+            if (prefs.coatLengthSet) {
+                score = score.add(DoubleVector.broadcast(DOUBLES, 10.0), matches(pets.coatLengths, slot, prefs.coatLength));
+            }
+            if (prefs.healthStatusSet) {
+                score = score.add(DoubleVector.broadcast(DOUBLES, 5.0), matches(pets.healthStatuses, slot, prefs.healthStatus));
+            }
+
+            VectorMask<Double> invalid = score.test(VectorOperators.IS_NAN).or(score.test(VectorOperators.IS_INFINITE));
+            score.blend(0.0, invalid).intoArray(out, slot - from);
+        }
+        // leftover pets that don't fill a whole vector
+        for (; slot < to; slot++) {
+            out[slot - from] = RuleBasedScorer.score(prefs, pets.ids[slot], pets.ages[slot],
+                    pets.weights[slot], pets.species[slot], pets.genders[slot], pets.breeds[slot],
+                    pets.coatLengths[slot], pets.healthStatuses[slot]);
+        }
+    }
+
+    private static VectorMask<Double> matches(int[] codes, int slot, int preferred) {
+        return IntVector.fromArray(INTS, codes, slot).eq(preferred).cast(DOUBLES);
+    }
+
+    /**
+     * max(0, maxPoints - (|value - target| / tolerance) * maxPoints), per lane.
+     */
+    private static DoubleVector tolerance(int[] values, int slot, int target, double tolerance, double maxPoints) {
+        DoubleVector diff = (DoubleVector) IntVector.fromArray(INTS, values, slot)
+                .sub(target)
+                .abs()
+                .convertShape(VectorOperators.I2D, DOUBLES, 0);
+        return DoubleVector.broadcast(DOUBLES, maxPoints)
+                .sub(diff.div(tolerance).mul(maxPoints))
+                .max(0.0);
+    }
+}
@@ -0,0 +1,89 @@
+package petadoption.api.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable bit set over slot numbers. Unlike {@link java.util.BitSet} it can count an
+ * intersection without materializing it, which is what facet counting does most.
+ * Not thread-safe.
+ */
+final class Bitmap {
+
+    private long[] words;
+
+    Bitmap() {
+        this(64);
+    }
+
+    Bitmap(int capacity) {
+        words = new long[Math.max(1, (capacity + 63) >>> 6)];
+    }
+
+    private Bitmap(long[] words) {
+        this.words = words;
+    }
+
+    void set(int bit) {
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << bit;
+    }
+
+    void clear(int bit) {
+        int word = bit >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << bit);
+        }
+    }
+
+    boolean get(int bit) {
+        int word = bit >>> 6;
+        return word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of bits set in both this bitmap and {@code other}.
+     */
+    int andCardinality(Bitmap other) {
+        int length = Math.min(words.length, other.words.length);
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Keeps only the bits also set in {@code other}.
+     */
+    void and(Bitmap other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            words[i] &= other.words[i];
+        }
+        Arrays.fill(words, length, words.length, 0);
+    }
+
+    void or(Bitmap other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    Bitmap copy() {
+        return new Bitmap(words.clone());
+    }
+}
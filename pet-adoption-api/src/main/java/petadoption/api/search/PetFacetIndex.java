@@ -0,0 +1,308 @@
+package petadoption.api.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetFacetRow;
+import petadoption.api.pet.PetRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory bitmap index of available pets per facet value, for the adopt page's filter
+ * counts. Each available pet holds a slot; every facet value keeps a bitmap of the slots
+ * having it. Selected values of one facet are OR-ed and the facets AND-ed together.
+ * <p>
+ * A facet's counts ignore the facet's own selection, so the page can show how many pets
+ * each alternative value would add (e.g. "Cat (12)" while "Dog" is selected).
+ * Values are matched case-insensitively and reported as first seen.
+ */
+@Component
+public class PetFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PetFacetIndex.class);
+
+    public enum Facet {
+        SPECIES("species"), BREED("breed"), GENDER("gender"), COAT_LENGTH("coatLength"), SIZE("size"),
+        SHELTER("shelter");
+
+        private final String param;
+
+        Facet(String param) {
+            this.param = param;
+        }
+
+        /**
+         * @return The facet's name in requests and responses.
+         */
+        public String param() {
+            return param;
+        }
+    }
+
+    public record FacetCount(String value, int count) {
+    }
+
+    /**
+     * @param total The number of available pets matching every selected facet.
+     * @param facets Per facet, its values with matching pets, most pets first.
+     */
+    public record FacetCounts(int total, Map<String, List<FacetCount>> facets) {
+    }
+
+    private static final Facet[] FACETS = Facet.values();
+
+    private final PetRepository petRepository;
+
+    // writers are serialized on this object; the lock only keeps readers off an index being modified
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotByPet = new HashMap<>();
+    private final List<Map<String, Value>> values = new ArrayList<>();
+    private Bitmap live = new Bitmap();
+    private String[][] slotKeys = new String[64][];
+    private int slots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    public PetFacetIndex(PetRepository petRepository) {
+        this.petRepository = petRepository;
+        for (int i = 0; i < FACETS.length; i++) {
+            values.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Indexes every available pet. Runs once when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        List<PetFacetRow> rows = petRepository.findFacetRowsByAvailableTrue();
+        lock.writeLock().lock();
+        try {
+            reset();
+            for (PetFacetRow row : rows) {
+                add(row.getId(), row.getSpecies(), row.getBreed(), row.getGender(), row.getCoatLength(),
+                        row.getWeight(), row.getAdoptionCenterId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built pet facet index with {} pets in {} ms", rows.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChange(PetChangeEvent event) {
+        switch (event.getKind()) {
+            case SAVED -> upsertAll(event.getPets());
+            case DELETED -> removeAll(event.getPetIds());
+            case CLEARED -> clear();
+        }
+    }
+
+    /**
+     * Indexes available pets and removes the ones no longer available.
+     */
+    public synchronized void upsertAll(Collection<Pet> pets) {
+        lock.writeLock().lock();
+        try {
+            for (Pet pet : pets) {
+                if (pet == null || pet.getId() == null) {
+                    continue;
+                }
+                remove(pet.getId());
+                if (Boolean.TRUE.equals(pet.getAvailable())) {
+                    add(pet.getId(), pet.getSpecies(), pet.getBreed(), pet.getGender(), pet.getCoatLength(),
+                            pet.getWeight(), pet.getAdoptionCenterId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public synchronized void removeAll(Collection<Long> petIds) {
+        lock.writeLock().lock();
+        try {
+            petIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public synchronized void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts available pets per facet value under a filter.
+     * @param filters Selected values per facet; a pet matches a facet if it has any of them.
+     *                Facets that are missing or have no values don't filter.
+     */
+    public FacetCounts count(Map<Facet, ? extends Collection<String>> filters) {
+        lock.readLock().lock();
+        try {
+            Bitmap[] selected = new Bitmap[FACETS.length];
+            Bitmap matching = live.copy();
+            for (Facet facet : FACETS) {
+                Collection<String> wanted = filters.get(facet);
+                if (wanted == null || wanted.isEmpty()) {
+                    continue;
+                }
+                Bitmap union = new Bitmap();
+                for (String value : wanted) {
+                    Value indexed = values.get(facet.ordinal()).get(key(value));
+                    if (indexed != null) {
+                        union.or(indexed.slots);
+                    }
+                }
+                selected[facet.ordinal()] = union;
+                matching.and(union);
+            }
+
+            Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+            for (Facet facet : FACETS) {
+                Bitmap base = matching;
+                if (selected[facet.ordinal()] != null) {
+                    base = live.copy();
+                    for (int other = 0; other < FACETS.length; other++) {
+                        if (other != facet.ordinal() && selected[other] != null) {
+                            base.and(selected[other]);
+                        }
+                    }
+                }
+                List<FacetCount> counts = new ArrayList<>();
+                for (Value value : values.get(facet.ordinal()).values()) {
+                    int count = base.andCardinality(value.slots);
+                    if (count > 0) {
+                        counts.add(new FacetCount(value.label, count));
+                    }
+                }
+                counts.sort(Comparator.comparingInt(FacetCount::count).reversed().thenComparing(FacetCount::value));
+                facets.put(facet.param(), counts);
+            }
+            return new FacetCounts(matching.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByPet.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(long petId, String species, String breed, String gender, String coatLength, Integer weight,
+                     Long adoptionCenterId) {
+        String[] labels = new String[FACETS.length];
+        labels[Facet.SPECIES.ordinal()] = species;
+        labels[Facet.BREED.ordinal()] = breed;
+        labels[Facet.GENDER.ordinal()] = gender;
+        labels[Facet.COAT_LENGTH.ordinal()] = coatLength;
+        labels[Facet.SIZE.ordinal()] = Pet.sizeOf(species, weight);
+        labels[Facet.SHELTER.ordinal()] = adoptionCenterId != null ? adoptionCenterId.toString() : null;
+
+        int slot = allocateSlot();
+        String[] keys = new String[FACETS.length];
+        for (int i = 0; i < FACETS.length; i++) {
+            String key = key(labels[i]);
+            if (key == null) {
+                continue;
+            }
+            String label = labels[i].trim();
+            Value value = values.get(i).computeIfAbsent(key, k -> new Value(label));
+            value.slots.set(slot);
+            value.pets++;
+            keys[i] = key;
+        }
+        slotKeys[slot] = keys;
+        slotByPet.put(petId, slot);
+        live.set(slot);
+    }
+
+    private void remove(long petId) {
+        Integer slot = slotByPet.remove(petId);
+        if (slot == null) {
+            return;
+        }
+        String[] keys = slotKeys[slot];
+        for (int i = 0; i < FACETS.length; i++) {
+            if (keys[i] == null) {
+                continue;
+            }
+            Value value = values.get(i).get(keys[i]);
+            value.slots.clear(slot);
+            if (--value.pets == 0) {
+                values.get(i).remove(keys[i]);
+            }
+        }
+        slotKeys[slot] = null;
+        live.clear(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // reusing freed slots keeps the bitmaps as small as the number of available pets
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slots == slotKeys.length) {
+            slotKeys = Arrays.copyOf(slotKeys, slots * 2);
+        }
+        return slots++;
+    }
+
+    private void reset() {
+        slotByPet.clear();
+        values.forEach(Map::clear);
+        live = new Bitmap();
+        slotKeys = new String[64][];
+        slots = 0;
+        freeCount = 0;
+    }
+
+    private static String key(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Value {
+        private final String label;
+        private final Bitmap slots = new Bitmap();
+        private int pets;
+
+        Value(String label) {
+            this.label = label;
+        }
+    }
+}
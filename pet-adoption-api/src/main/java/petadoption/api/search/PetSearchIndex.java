@@ -0,0 +1,379 @@
+package petadoption.api.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.pet.PetSearchRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the name, species, breed and description of available pets,
+ * ranked with BM25. Name matches count three times and species/breed matches twice, as if
+ * those words appeared that often. The last query word also matches longer terms starting
+ * with it, at half weight, so results appear while the user types.
+ * <p>
+ * Pets are indexed as they are saved (including CSV imports); adopted and deleted pets are
+ * tombstoned, and the postings are rebuilt without them once they outnumber the live pets.
+ * At startup rows are read in batches and tokenized in parallel.
+ */
+@Component
+public class PetSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PetSearchIndex.class);
+
+    static final float NAME_WEIGHT = 3;
+    static final float SPECIES_WEIGHT = 2;
+    static final float BREED_WEIGHT = 2;
+    static final float DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_DEAD_TO_COMPACT = 1000;
+
+    private final PetRepository petRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    // writers are serialized on this object; the lock only keeps readers off an index being modified
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+
+    public PetSearchIndex(PetRepository petRepository,
+                          @Value("${search.enabled:true}") boolean enabled,
+                          @Value("${search.rebuild-batch-size:2000}") int batchSize) {
+        this.petRepository = petRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Indexes every available pet. Runs once when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Index built = new Index();
+        long afterId = 0;
+        while (true) {
+            List<PetSearchRow> rows = petRepository.findSearchRowsByAvailableTrueAndIdGreaterThanOrderByIdAsc(afterId,
+                    PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // tokenizing dominates, so it runs on every core; postings are appended in ID order
+            List<Document> documents = rows.parallelStream()
+                    .map(row -> Document.of(row.getId(), row.getName(), row.getSpecies(), row.getBreed(),
+                            row.getDescription()))
+                    .toList();
+            documents.forEach(built::add);
+            afterId = rows.get(rows.size() - 1).getId();
+        }
+        swap(built);
+        log.info("Built pet search index with {} pets and {} terms in {} ms", built.liveDocs, built.postings.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPetChange(PetChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.getKind()) {
+            case SAVED -> upsertAll(event.getPets());
+            case DELETED -> removeAll(event.getPetIds());
+            case CLEARED -> clear();
+        }
+    }
+
+    /**
+     * Indexes available pets and removes the ones no longer available.
+     */
+    public synchronized void upsertAll(Collection<Pet> pets) {
+        // last write wins if the same pet shows up twice
+        Map<Long, Pet> byId = new LinkedHashMap<>();
+        for (Pet pet : pets) {
+            if (pet != null && pet.getId() != null) {
+                byId.put(pet.getId(), pet);
+            }
+        }
+        List<Document> documents = byId.values().parallelStream()
+                .filter(pet -> Boolean.TRUE.equals(pet.getAvailable()))
+                .map(pet -> Document.of(pet.getId(), pet.getName(), pet.getSpecies(), pet.getBreed(),
+                        pet.getDescription()))
+                .toList();
+        lock.writeLock().lock();
+        try {
+            byId.keySet().forEach(index::remove);
+            documents.forEach(index::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void removeAll(Collection<Long> petIds) {
+        lock.writeLock().lock();
+        try {
+            petIds.forEach(index::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void clear() {
+        swap(new Index());
+    }
+
+    /**
+     * Finds the available pets best matching a free-text query.
+     * @return Up to {@code limit} pet IDs, best match first; empty if the query has no searchable words.
+     */
+    public long[] search(String query, int limit) {
+        if (!enabled || limit <= 0) {
+            return new long[0];
+        }
+        List<String> terms = SearchTokenizer.tokens(query);
+        if (terms.isEmpty()) {
+            return new long[0];
+        }
+        // a query ending mid-word expands its last word to the terms it starts
+        boolean expandLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+        lock.readLock().lock();
+        try {
+            return index.search(terms, expandLast, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return How many pets searches can return.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        Index current = index;
+        int dead = current.slots - current.liveDocs;
+        if (dead < MIN_DEAD_TO_COMPACT || dead <= current.liveDocs) {
+            return;
+        }
+        long start = System.nanoTime();
+        Index compacted = new Index();
+        for (int slot = 0; slot < current.slots; slot++) {
+            if (current.documents[slot] != null) {
+                compacted.add(current.documents[slot]);
+            }
+        }
+        swap(compacted);
+        log.info("Compacted pet search index: dropped {} removed pets, {} left, took {} ms",
+                dead, compacted.liveDocs, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void swap(Index replacement) {
+        lock.writeLock().lock();
+        try {
+            index = replacement;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A tokenized pet: its distinct terms with field-weighted frequencies.
+     */
+    record Document(long petId, String[] terms, float[] frequencies, float length) {
+
+        static Document of(long petId, String name, String species, String breed, String description) {
+            Map<String, Float> frequencies = new HashMap<>();
+            float length = addField(frequencies, name, NAME_WEIGHT)
+                    + addField(frequencies, species, SPECIES_WEIGHT)
+                    + addField(frequencies, breed, BREED_WEIGHT)
+                    + addField(frequencies, description, DESCRIPTION_WEIGHT);
+            String[] terms = new String[frequencies.size()];
+            float[] weights = new float[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                terms[i] = entry.getKey();
+                weights[i++] = entry.getValue();
+            }
+            return new Document(petId, terms, weights, length);
+        }
+
+        private static float addField(Map<String, Float> frequencies, String text, float weight) {
+            List<String> tokens = SearchTokenizer.tokens(text);
+            for (String token : tokens) {
+                frequencies.merge(token, weight, Float::sum);
+            }
+            return tokens.size() * weight;
+        }
+    }
+
+    /**
+     * Documents in insertion slots plus per-term postings of (slot, frequency), in slot order.
+     * Removing a document clears its slot and lowers the document frequency of its terms;
+     * its postings entries are skipped until the next compaction.
+     */
+    private static final class Index {
+        private Document[] documents = new Document[64];
+        private int slots;
+        private int liveDocs;
+        private double totalLength;
+        private final Map<Long, Integer> slotByPet = new HashMap<>();
+        private final TreeMap<String, Postings> postings = new TreeMap<>();
+
+        void add(Document document) {
+            remove(document.petId());
+            if (slots == documents.length) {
+                documents = Arrays.copyOf(documents, slots * 2);
+            }
+            int slot = slots++;
+            documents[slot] = document;
+            slotByPet.put(document.petId(), slot);
+            liveDocs++;
+            totalLength += document.length();
+            for (int i = 0; i < document.terms().length; i++) {
+                postings.computeIfAbsent(document.terms()[i], term -> new Postings())
+                        .add(slot, document.frequencies()[i]);
+            }
+        }
+
+        void remove(long petId) {
+            Integer slot = slotByPet.remove(petId);
+            if (slot == null) {
+                return;
+            }
+            Document document = documents[slot];
+            documents[slot] = null;
+            liveDocs--;
+            totalLength -= document.length();
+            for (String term : document.terms()) {
+                Postings list = postings.get(term);
+                if (--list.documentFrequency == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        long[] search(List<String> terms, boolean expandLast, int limit) {
+            if (liveDocs == 0) {
+                return new long[0];
+            }
+            double averageLength = Math.max(1e-9, totalLength / liveDocs);
+            Map<Postings, Double> weighted = new LinkedHashMap<>();
+            for (int t = 0; t < terms.size(); t++) {
+                String term = terms.get(t);
+                Postings exact = postings.get(term);
+                if (exact != null) {
+                    weighted.merge(exact, 1.0, Math::max);
+                }
+                if (expandLast && t == terms.size() - 1 && term.length() >= MIN_PREFIX_LENGTH) {
+                    SortedMap<String, Postings> expansions = postings.subMap(term, term + Character.MAX_VALUE);
+                    int expanded = 0;
+                    for (Postings list : expansions.values()) {
+                        if (list != exact) {
+                            weighted.merge(list, PREFIX_WEIGHT, Math::max);
+                            if (++expanded == MAX_PREFIX_EXPANSIONS) {
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            if (weighted.isEmpty()) {
+                return new long[0];
+            }
+
+            double[] scores = new double[slots];
+            int[] touched = new int[Math.min(slots, 1024)];
+            int touchedCount = 0;
+            for (Map.Entry<Postings, Double> entry : weighted.entrySet()) {
+                Postings list = entry.getKey();
+                double idf = Math.log(1 + (liveDocs - list.documentFrequency + 0.5) / (list.documentFrequency + 0.5));
+                double weight = entry.getValue() * idf;
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    Document document = documents[slot];
+                    if (document == null) {
+                        continue;
+                    }
+                    double tf = list.frequencies[i];
+                    double norm = K1 * (1 - B + B * document.length() / averageLength);
+                    if (scores[slot] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = slot;
+                    }
+                    scores[slot] += weight * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+
+            // min-heap of the best slots; ties go to the lower pet ID
+            PriorityQueue<Integer> best = new PriorityQueue<>((a, b) -> scores[a] != scores[b]
+                    ? Double.compare(scores[a], scores[b])
+                    : Long.compare(documents[b].petId(), documents[a].petId()));
+            for (int i = 0; i < touchedCount; i++) {
+                best.offer(touched[i]);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            long[] ids = new long[best.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = documents[best.poll()].petId();
+            }
+            return ids;
+        }
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+        // live documents only; dead entries stay in the arrays until compaction
+        private int documentFrequency;
+
+        void add(int slot, float frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size++] = frequency;
+            documentFrequency++;
+        }
+    }
+}
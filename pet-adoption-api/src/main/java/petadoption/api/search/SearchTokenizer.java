@@ -0,0 +1,61 @@
+package petadoption.api.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into search terms: runs of letters and digits, lower-cased, without common
+ * English stop words, with a trailing plural "s" removed so "dogs" and "dog" match.
+ * Documents and queries go through the same steps.
+ */
+final class SearchTokenizer {
+
+    static final int MAX_TERM_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "he", "her",
+            "his", "i", "in", "is", "it", "its", "me", "my", "of", "on", "or", "our", "she", "so", "that", "the",
+            "their", "them", "they", "this", "to", "very", "was", "we", "who", "will", "with", "you", "your");
+
+    private SearchTokenizer() {
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = normalize(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                if (term != null) {
+                    tokens.add(term);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return The term for a word, or null if it is a stop word.
+     */
+    static String normalize(String word) {
+        String term = word.toLowerCase(Locale.ROOT);
+        if (STOP_WORDS.contains(term)) {
+            return null;
+        }
+        if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us")
+                && !term.endsWith("is")) {
+            term = term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+}
@@ -0,0 +1,74 @@
+package petadoption.api.user;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import petadoption.api.pet.Pet;
+
+import java.time.LocalDateTime;
+
+/**
+ * One rating of a pet by a user. Rows are only ever inserted. The pet's attributes
+ * are copied in because the pet may change or be deleted before the log is replayed.
+ * {@link RatingEventLog} publishes each event once it is stored, with its ID set.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = RatingEvent.TABLE_NAME,
+        indexes = @Index(name = "idx_rating_events_user_event", columnList = "USER_ID, EVENT_ID"))
+public class RatingEvent {
+    public static final String TABLE_NAME = "RATING_EVENTS";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "EVENT_ID")
+    private Long id;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long userId;
+
+    @Column(name = "PET_ID", nullable = false)
+    private Long petId;
+
+    @Column(name = "RATING", nullable = false)
+    private Double rating;
+
+    @Column(name = "PET_AGE")
+    private Integer petAge;
+
+    @Column(name = "PET_WEIGHT")
+    private Integer petWeight;
+
+    @Column(name = "PET_SPECIES")
+    private String petSpecies;
+
+    @Column(name = "PET_BREED")
+    private String petBreed;
+
+    @Column(name = "PET_GENDER")
+    private String petGender;
+
+    @Column(name = "PET_COAT_LENGTH")
+    private String petCoatLength;
+
+    @Column(name = "PET_HEALTH_STATUS")
+    private String petHealthStatus;
+
+    @Column(name = "RATED_AT", nullable = false)
+    private LocalDateTime ratedAt;
+
+    public RatingEvent(Long userId, Pet pet, double rating) {
+        this.userId = userId;
+        this.petId = pet.getId();
+        this.rating = rating;
+        this.petAge = pet.getAge();
+        this.petWeight = pet.getWeight();
+        this.petSpecies = pet.getSpecies();
+        this.petBreed = pet.getBreed();
+        this.petGender = pet.getGender();
+        this.petCoatLength = pet.getCoatLength();
+        this.petHealthStatus = pet.getHealthStatus();
+        this.ratedAt = LocalDateTime.now();
+    }
+}
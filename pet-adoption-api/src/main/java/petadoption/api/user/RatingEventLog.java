@@ -0,0 +1,202 @@
+package petadoption.api.user;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends rating events to the {@link RatingEvent} table. Events are queued and
+ * inserted in JDBC batches on a short interval, in the order they were appended.
+ * Once inserted, each event gets its {@code EVENT_ID} and is published, in log order,
+ * so listeners see exactly the events a replay of the log would.
+ * A batch that fails to insert is kept aside and retried before anything newer.
+ * When the queue is full the caller flushes it and then waits a bounded time for
+ * room; if the database still isn't taking writes, {@link #append} fails rather
+ * than dropping the event or blocking the request indefinitely.
+ */
+@Component
+public class RatingEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingEventLog.class);
+
+    private static final String INSERT_SQL = "INSERT INTO " + RatingEvent.TABLE_NAME + " (USER_ID, PET_ID, RATING, "
+            + "PET_AGE, PET_WEIGHT, PET_SPECIES, PET_BREED, PET_GENDER, PET_COAT_LENGTH, PET_HEALTH_STATUS, RATED_AT) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<RatingEvent> queue;
+    // events of a failed batch, older than anything in the queue; at most one batch
+    private final Deque<RatingEvent> retry = new ArrayDeque<>();
+    private final int batchSize;
+    private final long appendTimeoutMs;
+    private final int fetchSize;
+    // built on first use; a race only builds it twice
+    private volatile JdbcTemplate streamingTemplate;
+
+    public RatingEventLog(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                          @Value("${user.rating.event-log.capacity:10000}") int capacity,
+                          @Value("${user.rating.event-log.batch-size:500}") int batchSize,
+                          @Value("${user.rating.event-log.append-timeout-ms:2000}") long appendTimeoutMs,
+                          @Value("${user.rating.event-log.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.appendTimeoutMs = Math.max(0, appendTimeoutMs);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Queues an event for insertion.
+     * @throws DataAccessResourceFailureException If the queue stays full for the append timeout,
+     *         i.e. the database hasn't accepted the queued events. The event is not logged.
+     */
+    public void append(RatingEvent event) {
+        if (queue.offer(event)) {
+            return;
+        }
+        flush();
+        try {
+            if (queue.offer(event, appendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new DataAccessResourceFailureException("Rating event log is full, " + queuedCount()
+                + " events are waiting for the database");
+    }
+
+    synchronized int queuedCount() {
+        return retry.size() + queue.size();
+    }
+
+    /**
+     * Inserts the retried events, then every queued event. A failed batch is kept and
+     * retried first on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${user.rating.event-log.flush-interval-ms:500}")
+    public synchronized void flush() {
+        List<RatingEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (!retry.isEmpty()) {
+                while (!retry.isEmpty() && batch.size() < batchSize) {
+                    batch.add(retry.pollFirst());
+                }
+            } else if (queue.drainTo(batch, batchSize) == 0) {
+                return;
+            }
+            try {
+                insert(batch);
+            } catch (DataAccessException e) {
+                log.error("Failed to insert {} rating events, will retry", batch.size(), e);
+                // back in front, in their original order
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    retry.addFirst(batch.get(i));
+                }
+                return;
+            }
+            batch.forEach(eventPublisher::publishEvent);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Queries the log, streaming rows to the handler instead of loading the whole result.
+     * Only inserted events are read; call {@link #flush} first to include the queued ones.
+     */
+    public void stream(String sql, RowCallbackHandler handler, Object... args) {
+        streamingTemplate().query(sql, handler, args);
+    }
+
+    /**
+     * A template whose queries stream rows. MySQL's Connector/J buffers every row of a plain
+     * statement unless the fetch size is Integer.MIN_VALUE, whatever fetch size is configured;
+     * other databases take it as a hint.
+     */
+    private JdbcTemplate streamingTemplate() {
+        JdbcTemplate template = streamingTemplate;
+        if (template == null) {
+            DataSource dataSource = jdbcTemplate.getDataSource();
+            template = new JdbcTemplate(dataSource);
+            template.setFetchSize(isMySql(dataSource) ? Integer.MIN_VALUE : fetchSize);
+            streamingTemplate = template;
+        }
+        return template;
+    }
+
+    private boolean isMySql(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "MySQL".equalsIgnoreCase(JdbcUtils.commonDatabaseName(product));
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine the database product, reading the rating log with fetch size {}",
+                    fetchSize, e);
+            return false;
+        }
+    }
+
+    /**
+     * Inserts a batch and sets the generated {@code EVENT_ID} of each event.
+     */
+    private void insert(List<RatingEvent> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (RatingEvent event : batch) {
+            rows.add(new Object[]{event.getUserId(), event.getPetId(), event.getRating(), event.getPetAge(),
+                    event.getPetWeight(), event.getPetSpecies(), event.getPetBreed(), event.getPetGender(),
+                    event.getPetCoatLength(), event.getPetHealthStatus(), Timestamp.valueOf(event.getRatedAt())});
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"EVENT_ID"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        new ArgumentPreparedStatementSetter(rows.get(i)).setValues(ps);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < batch.size() && i < generated.size(); i++) {
+            Number id = (Number) generated.get(i).values().iterator().next();
+            batch.get(i).setId(id.longValue());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package petadoption.api.user;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Read access to the rating log. Writes go through {@link RatingEventLog} in batches.
+ */
+@Repository
+public interface RatingEventRepository extends JpaRepository<RatingEvent, Long> {
+    List<RatingEvent> findByUserIdOrderByIdAsc(Long userId);
+    long countByUserId(Long userId);
+}
@@ -0,0 +1,127 @@
+package petadoption.api.user;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import petadoption.api.cache.EntityCache;
+import petadoption.api.pet.Pet;
+import petadoption.api.recommendation.RecommendationCache;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds every rated user's preference fields by replaying the rating log through
+ * the current rating rules. Events are streamed in (user, event) order, so only one
+ * user's state and one batch of updates are held in memory at a time. Fields the
+ * rules don't touch (e.g. the age and weight tolerances) are left alone; the ones
+ * they do are rebuilt from blank, so preferences a user entered by hand before
+ * their first rating are replaced.
+ */
+@Component
+public class RatingReplayJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingReplayJob.class);
+
+    private static final String SELECT_SQL = "SELECT USER_ID, PET_ID, RATING, PET_AGE, PET_WEIGHT, PET_SPECIES, "
+            + "PET_BREED, PET_GENDER, PET_COAT_LENGTH, PET_HEALTH_STATUS FROM " + RatingEvent.TABLE_NAME
+            + " ORDER BY USER_ID, EVENT_ID";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RatingEventLog ratingEventLog;
+    private final RatingWriteBehind ratingWriteBehind;
+    private final RecommendationCache recommendationCache;
+    private final EntityCache entityCache;
+    private final int batchSize;
+
+    public RatingReplayJob(JdbcTemplate jdbcTemplate, RatingEventLog ratingEventLog,
+                           RatingWriteBehind ratingWriteBehind, RecommendationCache recommendationCache,
+                           EntityCache entityCache,
+                           @Value("${user.rating.replay.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ratingEventLog = ratingEventLog;
+        this.ratingWriteBehind = ratingWriteBehind;
+        this.recommendationCache = recommendationCache;
+        this.entityCache = entityCache;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Replays the whole log. Meant to run while ratings are quiet; ratings made during
+     * the replay are applied on top of the pre-replay preferences.
+     * @return Counts of replayed users and events, and the elapsed time.
+     */
+    public synchronized Map<String, Object> replayAll() {
+        long start = System.nanoTime();
+        // make sure the log and the user rows are complete before overwriting them
+        ratingEventLog.flush();
+        ratingWriteBehind.flush();
+
+        Replay replay = new Replay();
+        ratingEventLog.stream(SELECT_SQL, replay::accept);
+        replay.finish();
+        recommendationCache.invalidateAll();
+        entityCache.invalidateAllUsers();
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Replayed {} rating events for {} users in {} ms", replay.events, replay.users, millis);
+        return Map.of("users", replay.users, "events", replay.events, "millis", millis);
+    }
+
+    private final class Replay {
+        private final List<Object[]> updates = new ArrayList<>(batchSize);
+        private Long userId;
+        private User preferences;
+        private long users;
+        private long events;
+
+        void accept(ResultSet rs) throws SQLException {
+            long rowUserId = rs.getLong("USER_ID");
+            if (userId == null || userId != rowUserId) {
+                finishUser();
+                userId = rowUserId;
+                preferences = new User();
+            }
+            // only the attributes the rating rules read were logged
+            Pet pet = new Pet();
+            pet.setId(rs.getLong("PET_ID"));
+            pet.setAge(rs.getObject("PET_AGE", Integer.class));
+            pet.setWeight(rs.getObject("PET_WEIGHT", Integer.class));
+            pet.setSpecies(rs.getString("PET_SPECIES"));
+            pet.setBreed(rs.getString("PET_BREED"));
+            pet.setGender(rs.getString("PET_GENDER"));
+            pet.setCoatLength(rs.getString("PET_COAT_LENGTH"));
+            pet.setHealthStatus(rs.getString("PET_HEALTH_STATUS"));
+            UserService.learnFromRating(preferences, pet, rs.getDouble("RATING"));
+            events++;
+        }
+
+        void finish() {
+            finishUser();
+            writeUpdates();
+        }
+
+        private void finishUser() {
+            if (userId == null) {
+                return;
+            }
+            updates.add(RatingWriteBehind.row(userId, preferences));
+            users++;
+            if (updates.size() >= batchSize) {
+                writeUpdates();
+            }
+        }
+
+        private void writeUpdates() {
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(RatingWriteBehind.UPDATE_PREFERENCES_SQL, updates);
+                updates.clear();
+            }
+        }
+    }
+}
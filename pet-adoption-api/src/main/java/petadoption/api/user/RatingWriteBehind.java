@@ -0,0 +1,199 @@
+package petadoption.api.user;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import petadoption.api.cache.EntityCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for the preference changes made by ratings. A rating updates
+ * the user's pending preferences in memory; several ratings by the same user fold
+ * into one pending row, and all pending rows are written in JDBC batches on a short
+ * interval. {@link #applyPending} gives readers the preferences including the
+ * changes not written yet. The buffer holds at most {@code capacity} users; when
+ * it is full, callers write synchronously instead.
+ */
+@Component
+public class RatingWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingWriteBehind.class);
+
+    static final String UPDATE_PREFERENCES_SQL = "UPDATE " + User.TABLE_NAME + " SET TARGET_AGE = ?, "
+            + "TARGET_WEIGHT = ?, PREFERRED_SPECIES = ?, PREFERRED_GENDER = ?, PREFERRED_BREED = ?, "
+            + "PREFERRED_COAT_LENGTH = ?, PREFERRED_HEALTH_STATUS = ?, SPECIES_DISLIKE_COUNT = ?, "
+            + "BREED_DISLIKE_COUNT = ? WHERE USER_ID = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityCache entityCache;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    public RatingWriteBehind(JdbcTemplate jdbcTemplate, EntityCache entityCache,
+                             @Value("${user.rating.write-behind.enabled:true}") boolean enabled,
+                             @Value("${user.rating.write-behind.capacity:10000}") int capacity,
+                             @Value("${user.rating.write-behind.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityCache = entityCache;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Applies a preference change to the user's pending preferences and copies the
+     * result onto {@code user}.
+     * @param user The user as currently seen, i.e. already passed through {@link #applyPending}.
+     * @param change Changes the preference fields of the user it is given.
+     * @return True if the change was buffered, false if the caller must save it itself.
+     */
+    boolean update(User user, Consumer<User> change) {
+        if (!enabled || user.getId() == null) {
+            return false;
+        }
+        while (true) {
+            Pending entry = pending.get(user.getId());
+            if (entry == null) {
+                if (pending.size() >= capacity) {
+                    return false;
+                }
+                entry = pending.computeIfAbsent(user.getId(), id -> new Pending(user));
+            }
+            synchronized (entry) {
+                if (entry.written) {
+                    // flushed and removed between the lookup and the lock, start a new entry
+                    continue;
+                }
+                change.accept(entry.preferences);
+                entry.version++;
+                copyPreferences(entry.preferences, user);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Overlays the preferences not yet written to the database onto a loaded user.
+     * @return The same user, for chaining.
+     */
+    public User applyPending(User user) {
+        Pending entry = user.getId() != null ? pending.get(user.getId()) : null;
+        if (entry != null) {
+            synchronized (entry) {
+                copyPreferences(entry.preferences, user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Drops a user's pending preferences, e.g. because the whole user is being saved or deleted.
+     */
+    void discard(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Pending entry = pending.remove(userId);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.written = true;
+            }
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes every pending user in JDBC batches. Entries changed while their batch was
+     * being written stay pending for the next flush; a failed batch is retried next time.
+     */
+    @Scheduled(fixedDelayString = "${user.rating.write-behind.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Pending>> entries = new ArrayList<>(pending.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<Long, Pending>> batch = entries.subList(from, Math.min(entries.size(), from + batchSize));
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            List<Long> userIds = new ArrayList<>(batch.size());
+            long[] versions = new long[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                Pending entry = batch.get(i).getValue();
+                synchronized (entry) {
+                    rows.add(row(batch.get(i).getKey(), entry.preferences));
+                    userIds.add(batch.get(i).getKey());
+                    versions[i] = entry.version;
+                }
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_PREFERENCES_SQL, rows);
+            } catch (DataAccessException e) {
+                log.error("Failed to write {} pending preference updates, will retry", rows.size(), e);
+                return;
+            }
+            entityCache.invalidateUsers(userIds);
+            for (int i = 0; i < batch.size(); i++) {
+                Pending entry = batch.get(i).getValue();
+                synchronized (entry) {
+                    if (entry.version == versions[i] && pending.remove(batch.get(i).getKey(), entry)) {
+                        entry.written = true;
+                    }
+                }
+            }
+            log.debug("Wrote {} coalesced preference updates", rows.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    static Object[] row(Long userId, User preferences) {
+        return new Object[]{preferences.getTargetAge(), preferences.getTargetWeight(),
+                preferences.getPreferredSpecies(), preferences.getPreferredGender(), preferences.getPreferredBreed(),
+                preferences.getPreferredCoatLength(), preferences.getPreferredHealthStatus(),
+                preferences.getSpeciesDislikeCount(), preferences.getBreedDislikeCount(), userId};
+    }
+
+    /**
+     * Copies the fields a rating can change.
+     */
+    private static void copyPreferences(User from, User to) {
+        to.setTargetAge(from.getTargetAge());
+        to.setTargetWeight(from.getTargetWeight());
+        to.setPreferredSpecies(from.getPreferredSpecies());
+        to.setPreferredGender(from.getPreferredGender());
+        to.setPreferredBreed(from.getPreferredBreed());
+        to.setPreferredCoatLength(from.getPreferredCoatLength());
+        to.setPreferredHealthStatus(from.getPreferredHealthStatus());
+        to.setSpeciesDislikeCount(from.getSpeciesDislikeCount());
+        to.setBreedDislikeCount(from.getBreedDislikeCount());
+    }
+
+    private static final class Pending {
+        private final User preferences = new User();
+        private long version;
+        private boolean written;
+
+        Pending(User user) {
+            preferences.setId(user.getId());
+            copyPreferences(user, preferences);
+        }
+    }
+}
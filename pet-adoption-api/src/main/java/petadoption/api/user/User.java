@@ -2,6 +2,7 @@ package petadoption.api.user;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.springframework.beans.BeanUtils;
 
 /**
  * Represents a user in the system (Adopter, Shelter, Admin).
@@ -38,6 +39,16 @@ public class User {
     @Column(name = "ADDRESS")
     private String address;
 
+    // normalized from ADDRESS on every save, see UserLocation
+    @Column(name = "CITY")
+    private String city;
+
+    @Column(name = "STATE")
+    private String state;
+
+    @Column(name = "POSTAL_CODE")
+    private String postalCode;
+
     @Column(name = "SHELTER_NAME")
     private String shelterName;
 
@@ -85,4 +96,22 @@ public class User {
 
     @Column(name="BREED_DISLIKE_COUNT", nullable=false)
     private Integer breedDislikeCount   = 0;
+
+    @PrePersist
+    @PreUpdate
+    void updateLocation() {
+        UserLocation location = UserLocation.parse(address);
+        city = location.city();
+        state = location.state();
+        postalCode = location.postalCode();
+    }
+
+    /**
+     * @return A detached copy with the same field values.
+     */
+    public User copy() {
+        User copy = new User();
+        BeanUtils.copyProperties(this, copy);
+        return copy;
+    }
 }
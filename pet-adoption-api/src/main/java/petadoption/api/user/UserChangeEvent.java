@@ -0,0 +1,43 @@
+package petadoption.api.user;
+
+/**
+ * Published whenever a user's profile is saved or the user is deleted, so in-memory
+ * views of users (shelter locations, etc.) can stay in sync with the database.
+ */
+public class UserChangeEvent {
+
+    public enum Kind { SAVED, DELETED }
+
+    private final Kind kind;
+    private final User user;
+    private final Long userId;
+
+    private UserChangeEvent(Kind kind, User user, Long userId) {
+        this.kind = kind;
+        this.user = user;
+        this.userId = userId;
+    }
+
+    public static UserChangeEvent saved(User user) {
+        return new UserChangeEvent(Kind.SAVED, user, user.getId());
+    }
+
+    public static UserChangeEvent deleted(Long userId) {
+        return new UserChangeEvent(Kind.DELETED, null, userId);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The saved user, or null for DELETED events.
+     */
+    public User getUser() {
+        return user;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
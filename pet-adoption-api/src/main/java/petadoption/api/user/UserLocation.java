@@ -0,0 +1,64 @@
+package petadoption.api.user;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * City, state and postal code parsed from a free-form address such as "Austin, TX" or
+ * "12 Main St, Austin, TX 78701". Values are normalized for equality matching: cities are
+ * lower case and states upper case, with whitespace collapsed. Must stay in sync with the
+ * backfill in {@code V5__add_user_location.sql}.
+ */
+public record UserLocation(String city, String state, String postalCode) {
+
+    private static final Pattern POSTAL_CODE = Pattern.compile("(\\d{5})(-\\d{4})?");
+    private static final Pattern STATE = Pattern.compile("[A-Za-z][A-Za-z .]*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    static final UserLocation NONE = new UserLocation(null, null, null);
+
+    /**
+     * Parses the last two comma-separated parts of an address: the city, then the state
+     * optionally followed by a postal code.
+     */
+    public static UserLocation parse(String address) {
+        if (address == null || address.isBlank()) {
+            return NONE;
+        }
+        String[] parts = address.split(",");
+        String last = parts[parts.length - 1].trim();
+        String postalCode = null;
+        Matcher postal = POSTAL_CODE.matcher(last);
+        if (postal.find()) {
+            postalCode = postal.group(1);
+            last = (last.substring(0, postal.start()) + last.substring(postal.end())).trim();
+        }
+        String state = STATE.matcher(last).matches() ? normalizeState(last) : null;
+        String city = parts.length > 1 ? normalizeCity(parts[parts.length - 2]) : null;
+        return new UserLocation(city, state, postalCode);
+    }
+
+    /**
+     * @return The city as stored in {@code USERS.CITY}, or null if blank.
+     */
+    public static String normalizeCity(String city) {
+        String collapsed = collapse(city);
+        return collapsed != null ? collapsed.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * @return The state as stored in {@code USERS.STATE}, or null if blank.
+     */
+    public static String normalizeState(String state) {
+        String collapsed = collapse(state);
+        return collapsed != null ? collapsed.toUpperCase(Locale.ROOT) : null;
+    }
+
+    private static String collapse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return WHITESPACE.matcher(value.trim()).replaceAll(" ");
+    }
+}
@@ -0,0 +1,84 @@
+package petadoption.api.user;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import petadoption.api.cache.EntityCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the location of users saved before {@code USERS.CITY}, {@code STATE} and
+ * {@code POSTAL_CODE} existed. The schema is kept up to date by Hibernate
+ * ({@code ddl-auto=update}), which adds the columns but, unlike the backfill in
+ * {@code V5__add_user_location.sql}, leaves them null, so the shelter location filter
+ * would find none of their pets. Locations come from {@link UserLocation#parse}, like every save.
+ */
+@Component
+public class UserLocationBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(UserLocationBackfill.class);
+
+    // keyset on USER_ID, since an address that has no location stays unparsed
+    private static final String SELECT_SQL = "SELECT USER_ID, ADDRESS FROM USERS WHERE USER_ID > ?"
+            + " AND ADDRESS IS NOT NULL AND CITY IS NULL AND STATE IS NULL AND POSTAL_CODE IS NULL"
+            + " ORDER BY USER_ID LIMIT ?";
+    // a user saved meanwhile already has its location
+    private static final String UPDATE_SQL = "UPDATE USERS SET CITY = ?, STATE = ?, POSTAL_CODE = ?"
+            + " WHERE USER_ID = ? AND CITY IS NULL AND STATE IS NULL AND POSTAL_CODE IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityCache entityCache;
+    private final int batchSize;
+
+    public UserLocationBackfill(JdbcTemplate jdbcTemplate, EntityCache entityCache,
+                                @Value("${user.location-backfill.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityCache = entityCache;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Parses the address of every user that has no location yet. Runs once when the application
+     * is ready, before the shelter location index is built from these columns.
+     * @return The number of users updated.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public int backfill() {
+        long start = System.nanoTime();
+        int updated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            List<Long> ids = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+                long userId = rs.getLong("USER_ID");
+                UserLocation location = UserLocation.parse(rs.getString("ADDRESS"));
+                if (!location.equals(UserLocation.NONE)) {
+                    rows.add(new Object[]{location.city(), location.state(), location.postalCode(), userId});
+                }
+                return userId;
+            }, afterId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+                updated += rows.size();
+            }
+        }
+        if (updated > 0) {
+            entityCache.invalidateAllUsers();
+            log.info("Backfilled the location of {} users in {} ms", updated, (System.nanoTime() - start) / 1_000_000);
+        }
+        return updated;
+    }
+}
@@ -2,16 +2,22 @@ package petadoption.api.user;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import petadoption.api.cache.EntityCache;
 import petadoption.api.notifications.NotificationsRepository;
 import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+import petadoption.api.recommendation.RecommendationCache;
 
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class UserService {
@@ -26,18 +32,82 @@ public class UserService {
     @Autowired
     private UserRepository userRepo;
 
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private PetAttributeVocabulary vocabulary;
+
+    @Autowired
+    private RatingWriteBehind ratingWriteBehind;
+
+    @Autowired
+    private RatingEventLog ratingEventLog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    /**
+     * Loads a user, including rating-driven preference changes that haven't been written yet.
+     */
     public Optional<User> findUser(Long userId) {
-        return userRepository.findById(userId);
+        return entityCache.findUser(userId).map(ratingWriteBehind::applyPending);
+    }
+
+    /**
+     * Loads a user by email address, including rating-driven preference changes that haven't been written yet.
+     */
+    public Optional<User> findUserByEmail(String emailAddress) {
+        return entityCache.findUserByEmail(emailAddress).map(ratingWriteBehind::applyPending);
     }
 
+    /**
+     * Saves the whole user. Its preferences replace any buffered rating changes.
+     */
     public User saveUser(User user) {
-        return userRepository.save(user);
+        canonicalizePreferences(user);
+        ratingWriteBehind.discard(user.getId());
+        User saved = userRepository.save(user);
+        recommendationCache.invalidate(saved.getId());
+        eventPublisher.publishEvent(UserChangeEvent.saved(saved));
+        return saved;
     }
 
     public List<User> findUserByUserType(String userType) {
         return userRepository.findByUserType(userType);
     }
+    /**
+     * Logs the rating and nudges the user's preferences towards (or away from) the rated pet.
+     * The change is buffered and written in the background unless the write-behind buffer is full.
+     * @param user The user as returned by {@link #findUser}.
+     * @return The user with the updated preferences.
+     */
     public User updatePreferencesAfterRating(User user, Pet pet, double rating) {
+        RatingEvent event = new RatingEvent(user.getId(), pet, rating);
+        // published once the log has stored it
+        ratingEventLog.append(event);
+        Consumer<User> change = preferences -> {
+            learnFromRating(preferences, pet, rating);
+            canonicalizePreferences(preferences);
+        };
+        if (ratingWriteBehind.update(user, change)) {
+            recommendationCache.invalidate(user.getId());
+            return user;
+        }
+        change.accept(user);
+        User saved = userRepository.save(user);
+        recommendationCache.invalidate(saved.getId());
+        eventPublisher.publishEvent(UserChangeEvent.saved(saved));
+        return saved;
+    }
+
+    /**
+     * The rating rules. Also used by {@link RatingReplayJob} to rebuild preferences from the rating log.
+     */
+    static void learnFromRating(User user, Pet pet, double rating) {
         // making a learning rate so I can tune it later
         double learningRate = 0.1;
         final int LOW_RATING_THRESHOLD       = 2;
@@ -92,8 +162,18 @@ public class UserService {
                 user.setBreedDislikeCount(0);
             }
         }
+    }
 
-        return userRepository.save(user);
+    /**
+     * Stores preference values in the same spelling as the pets they refer to,
+     * without adding unknown values to the pet vocabulary.
+     */
+    private void canonicalizePreferences(User user) {
+        user.setPreferredSpecies(vocabulary.canonicalIfKnown(Attribute.SPECIES, user.getPreferredSpecies()));
+        user.setPreferredBreed(vocabulary.canonicalIfKnown(Attribute.BREED, user.getPreferredBreed()));
+        user.setPreferredGender(vocabulary.canonicalIfKnown(Attribute.GENDER, user.getPreferredGender()));
+        user.setPreferredCoatLength(vocabulary.canonicalIfKnown(Attribute.COAT_LENGTH, user.getPreferredCoatLength()));
+        user.setPreferredHealthStatus(vocabulary.canonicalIfKnown(Attribute.HEALTH_STATUS, user.getPreferredHealthStatus()));
     }
 
     @Transactional
@@ -105,7 +185,8 @@ public class UserService {
 
             try{
                 user.setPassword(passwordEncoder.encode(password));
-                userRepository.save(user);
+                User saved = userRepository.save(user);
+                eventPublisher.publishEvent(UserChangeEvent.saved(saved));
 
                 return new ResponseEntity<>("Password updated", HttpStatus.OK);
             }
@@ -121,5 +202,8 @@ public class UserService {
         notificationRepo.deleteBySender_Id(userId);
         notificationRepo.deleteByUser_Id(userId);
         userRepo.deleteById(userId);
+        ratingWriteBehind.discard(userId);
+        recommendationCache.invalidate(userId);
+        eventPublisher.publishEvent(UserChangeEvent.deleted(userId));
     }
 }
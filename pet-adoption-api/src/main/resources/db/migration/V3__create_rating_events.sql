@@ -0,0 +1,18 @@
+-- Append-only log of every rating, with the rated pet's attributes at the time,
+-- so user preferences can be rebuilt by replaying it.
+CREATE TABLE rating_events (
+    event_id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id           BIGINT       NOT NULL,
+    pet_id            BIGINT       NOT NULL,
+    rating            DOUBLE       NOT NULL,
+    pet_age           INT,
+    pet_weight        INT,
+    pet_species       VARCHAR(255),
+    pet_breed         VARCHAR(255),
+    pet_gender        VARCHAR(255),
+    pet_coat_length   VARCHAR(255),
+    pet_health_status VARCHAR(255),
+    rated_at          DATETIME(6)  NOT NULL,
+    PRIMARY KEY (event_id),
+    KEY idx_rating_events_user_event (user_id, event_id)
+);
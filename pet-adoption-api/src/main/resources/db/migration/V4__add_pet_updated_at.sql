@@ -0,0 +1,7 @@
+-- Change marker for the recommendation index snapshot: after a restart only
+-- pets written since the snapshot was taken are reloaded.
+ALTER TABLE pets ADD COLUMN updated_at DATETIME(6) NULL;
+
+UPDATE pets SET updated_at = CURRENT_TIMESTAMP(6) WHERE updated_at IS NULL;
+
+CREATE INDEX idx_pets_updated_at ON pets (updated_at);
@@ -0,0 +1,28 @@
+-- Normalized shelter location, parsed from the free-form address ("City, ST" or
+-- "street, City, ST 12345") the same way as petadoption.api.user.UserLocation,
+-- so the pet location filter can be a single indexed join.
+ALTER TABLE users
+    ADD COLUMN city        VARCHAR(255) NULL,
+    ADD COLUMN state       VARCHAR(255) NULL,
+    ADD COLUMN postal_code VARCHAR(10)  NULL;
+
+UPDATE users
+SET postal_code = REGEXP_SUBSTR(TRIM(SUBSTRING_INDEX(address, ',', -1)), '[0-9]{5}')
+WHERE address IS NOT NULL;
+
+UPDATE users
+SET state = UPPER(REGEXP_REPLACE(TRIM(REGEXP_REPLACE(SUBSTRING_INDEX(address, ',', -1),
+                                                     '[0-9]{5}(-[0-9]{4})?', '')), '[[:space:]]+', ' '))
+WHERE address IS NOT NULL
+  AND REGEXP_LIKE(TRIM(REGEXP_REPLACE(SUBSTRING_INDEX(address, ',', -1), '[0-9]{5}(-[0-9]{4})?', '')),
+                  '^[A-Za-z][A-Za-z .]*$');
+
+UPDATE users
+SET city = NULLIF(LOWER(REGEXP_REPLACE(TRIM(SUBSTRING_INDEX(SUBSTRING_INDEX(address, ',', -2), ',', 1)),
+                                       '[[:space:]]+', ' ')), '')
+WHERE address LIKE '%,%';
+
+CREATE INDEX idx_users_type_state_city ON users (user_type, state, city);
+
+-- the join from shelters to their available pets
+CREATE INDEX idx_pets_center_available ON pets (adoption_center_id, available);
@@ -0,0 +1,3 @@
+-- Keyset pagination of the public listing (WHERE available AND pet_id > ? ORDER BY pet_id)
+-- reads this index in order and stops after one page, however deep the page is.
+CREATE INDEX idx_pets_available_id ON pets (available, pet_id);
@@ -0,0 +1,11 @@
+-- Composite indexes for the filtered public listing (PetSpecifications). Every filtered
+-- query has AVAILABLE = TRUE, so each index leads with it and then seeks on the filter's
+-- most selective column; remaining conditions are checked on the rows the seek returns.
+-- Size filters become a weight range, so they use the weight indexes.
+CREATE INDEX idx_pets_filter_species_weight ON pets (available, species, weight);
+CREATE INDEX idx_pets_filter_breed ON pets (available, breed);
+CREATE INDEX idx_pets_filter_gender_age ON pets (available, gender, age);
+CREATE INDEX idx_pets_filter_age ON pets (available, age);
+CREATE INDEX idx_pets_filter_weight ON pets (available, weight);
+CREATE INDEX idx_pets_filter_coat_length ON pets (available, coat_length);
+CREATE INDEX idx_pets_filter_health_status ON pets (available, health_status);
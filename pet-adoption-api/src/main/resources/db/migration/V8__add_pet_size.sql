@@ -0,0 +1,23 @@
+-- Size class of each pet, as computed by petadoption.api.pet.Pet.sizeOf: cats use smaller
+-- weight bands than other species. Kept up to date by the entity on every insert and update.
+ALTER TABLE pets ADD COLUMN size VARCHAR(16) NULL;
+
+UPDATE pets
+SET size = CASE
+    WHEN weight IS NULL THEN 'Unknown'
+    WHEN LOWER(species) = 'cat' THEN
+        CASE WHEN weight <= 6 THEN 'small'
+             WHEN weight <= 11 THEN 'medium'
+             WHEN weight <= 16 THEN 'large'
+             ELSE 'extra large' END
+    ELSE
+        CASE WHEN weight <= 25 THEN 'small'
+             WHEN weight <= 60 THEN 'medium'
+             WHEN weight <= 100 THEN 'large'
+             ELSE 'extra large' END
+    END;
+
+-- size alone and "small dogs"; size filters used to become a weight range on the V7
+-- indexes and now seek on these instead
+CREATE INDEX idx_pets_filter_size ON pets (available, size);
+CREATE INDEX idx_pets_filter_species_size ON pets (available, species, size);
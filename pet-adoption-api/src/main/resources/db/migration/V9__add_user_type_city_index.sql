@@ -0,0 +1,3 @@
+-- The city filter without a state (PetRepository.findAvailableByShelterCity) can't seek
+-- on idx_users_type_state_city, whose second column is the state.
+CREATE INDEX idx_users_type_city ON users (user_type, city);
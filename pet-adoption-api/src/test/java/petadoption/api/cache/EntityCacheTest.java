@@ -0,0 +1,119 @@
+package petadoption.api.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.user.User;
+import petadoption.api.user.UserChangeEvent;
+import petadoption.api.user.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static petadoption.api.pet.TestPets.pet;
+
+public class EntityCacheTest {
+
+    private PetRepository petRepository;
+    private UserRepository userRepository;
+    private EntityCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        petRepository = Mockito.mock(PetRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        cache = new EntityCache(petRepository, userRepository, 100, 100, 10);
+    }
+
+    @Test
+    public void testRepeatedLookupsHitTheCache() {
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet(1L).weight(20).adoptionCenterId(10L).build()));
+
+        Pet first = cache.findPet(1L).orElseThrow();
+        Pet second = cache.findPet(1L).orElseThrow();
+
+        verify(petRepository, times(1)).findById(1L);
+        assertNotSame(first, second);
+        assertEquals("Pet 1", second.getName());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pets = (Map<String, Object>) cache.stats().get("pets");
+        assertEquals(1L, pets.get("hits"));
+        assertEquals(1L, pets.get("misses"));
+    }
+
+    @Test
+    public void testCallersChangeTheirOwnCopy() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L, "a@example.com")));
+
+        cache.findUser(2L).orElseThrow().setPreferredSpecies("Cat");
+        cache.findUser(2L).orElseThrow().setPreferredSpecies("Dog");
+
+        assertNull(cache.findUser(2L).orElseThrow().getPreferredSpecies());
+    }
+
+    @Test
+    public void testChangeEventsDropEntries() {
+        when(petRepository.findById(1L))
+                .thenReturn(Optional.of(pet(1L).weight(20).adoptionCenterId(10L).build()))
+                .thenReturn(Optional.of(pet(1L).weight(70).adoptionCenterId(10L).build()));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L, "a@example.com")));
+        cache.findPet(1L);
+        cache.findUser(2L);
+
+        cache.onPetChange(PetChangeEvent.saved(pet(1L).weight(70).adoptionCenterId(10L).build()));
+        cache.onUserChange(UserChangeEvent.deleted(2L));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertEquals(70, cache.findPet(1L).orElseThrow().getWeight());
+        assertTrue(cache.findUser(2L).isEmpty());
+        verify(petRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void testLoadOverlappingAWriteIsNotCached() {
+        when(userRepository.findById(2L)).thenAnswer(invocation -> {
+            // the user is saved while the old row is being read
+            cache.invalidateUser(2L);
+            return Optional.of(user(2L, "old@example.com"));
+        }).thenReturn(Optional.of(user(2L, "new@example.com")));
+
+        assertEquals("old@example.com", cache.findUser(2L).orElseThrow().getEmailAddress());
+        assertEquals("new@example.com", cache.findUser(2L).orElseThrow().getEmailAddress());
+    }
+
+    @Test
+    public void testEmailLookupFollowsAddressChanges() {
+        when(userRepository.findByEmailAddress("a@example.com")).thenReturn(user(2L, "a@example.com"));
+        cache.findUserByEmail("a@example.com");
+        assertEquals(2L, cache.findUserByEmail("a@example.com").orElseThrow().getId());
+        verify(userRepository, times(1)).findByEmailAddress("a@example.com");
+        verify(userRepository, Mockito.never()).findById(2L);
+
+        // the user moves to another address
+        cache.invalidateUsers(List.of(2L));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L, "b@example.com")));
+        when(userRepository.findByEmailAddress("a@example.com")).thenReturn(null);
+
+        assertTrue(cache.findUserByEmail("a@example.com").isEmpty());
+    }
+
+
+    private static User user(Long id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmailAddress(email);
+        user.setUserType("ADOPTER");
+        return user;
+    }
+}
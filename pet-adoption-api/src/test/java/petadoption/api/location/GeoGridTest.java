@@ -0,0 +1,74 @@
+package petadoption.api.location;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeoGridTest {
+
+    @Test
+    public void testRadiusQueryMatchesBruteForce() {
+        Random random = new Random(42);
+        GeoGrid grid = new GeoGrid(0.5);
+        List<GeoPoint> points = new ArrayList<>();
+        for (int id = 0; id < 5000; id++) {
+            // continental US plus a band across the antimeridian
+            GeoPoint point = id % 10 == 0
+                    ? new GeoPoint(50 + random.nextDouble() * 10, 175 + random.nextDouble() * 10 - (id % 20 == 0 ? 360 : 0))
+                    : new GeoPoint(25 + random.nextDouble() * 24, -124 + random.nextDouble() * 57);
+            points.add(point);
+            grid.put(id, point);
+        }
+        for (int q = 0; q < 200; q++) {
+            GeoPoint center = points.get(random.nextInt(points.size()));
+            double radius = 5 + random.nextDouble() * 300;
+            List<Long> expected = new ArrayList<>();
+            for (int id = 0; id < points.size(); id++) {
+                if (center.milesTo(points.get(id)) <= radius) {
+                    expected.add((long) id);
+                }
+            }
+            List<Long> found = grid.within(center, radius);
+            assertEquals(expected.size(), found.size(), "radius " + radius + " around " + center);
+            assertTrue(found.containsAll(expected));
+            for (int i = 1; i < found.size(); i++) {
+                assertTrue(center.milesTo(points.get(found.get(i - 1).intValue()))
+                        <= center.milesTo(points.get(found.get(i).intValue())));
+            }
+        }
+    }
+
+    @Test
+    public void testMoveAndRemove() {
+        GeoGrid grid = new GeoGrid(0.5);
+        GeoPoint waco = new GeoPoint(31.5526, -97.1396);
+        grid.put(1, waco);
+        grid.put(1, new GeoPoint(47.6114, -122.3305));
+        assertEquals(List.of(), grid.within(waco, 50));
+        grid.put(2, new GeoPoint(31.5189, -97.1195));
+        assertEquals(List.of(2L), grid.within(waco, 50));
+        assertTrue(grid.remove(2));
+        assertEquals(1, grid.size());
+    }
+
+    @Test
+    public void testBundledPostalCodes() {
+        PostalCodeDirectory directory = new PostalCodeDirectory(new ClassPathResource("data/postal-centroids.csv"));
+        assertTrue(directory.size() > 0);
+        assertNotNull(directory.locate("76706-1234"));
+        assertNull(directory.locate("00000"));
+        GeoPoint waco = directory.locate(null, " waco ", "tx");
+        assertNotNull(waco);
+        // Austin is roughly 95 miles from Waco
+        double miles = waco.milesTo(directory.locate("78701"));
+        assertTrue(miles > 80 && miles < 110, "distance " + miles);
+    }
+}
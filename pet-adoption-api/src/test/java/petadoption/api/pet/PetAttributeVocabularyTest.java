@@ -0,0 +1,40 @@
+package petadoption.api.pet;
+
+import org.junit.jupiter.api.Test;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PetAttributeVocabularyTest {
+
+    @Test
+    public void testCasingAndWhitespaceVariantsShareOneCode() {
+        PetAttributeVocabulary vocabulary = new PetAttributeVocabulary();
+        int code = vocabulary.intern(Attribute.BREED, "Golden Retriever");
+
+        assertEquals(code, vocabulary.intern(Attribute.BREED, "  golden   RETRIEVER "));
+        assertEquals(code, vocabulary.lookup(Attribute.BREED, "GOLDEN RETRIEVER"));
+        assertEquals("Golden Retriever", vocabulary.canonicalize(Attribute.BREED, "golden retriever"));
+        assertEquals(1, vocabulary.size(Attribute.BREED));
+    }
+
+    @Test
+    public void testLookupDoesNotIntern() {
+        PetAttributeVocabulary vocabulary = new PetAttributeVocabulary();
+
+        assertEquals(PetAttributeVocabulary.UNKNOWN_VALUE, vocabulary.lookup(Attribute.SPECIES, "Dog"));
+        assertEquals("Dog", vocabulary.canonicalIfKnown(Attribute.SPECIES, " Dog "));
+        assertEquals(0, vocabulary.size(Attribute.SPECIES));
+    }
+
+    @Test
+    public void testBlankValues() {
+        PetAttributeVocabulary vocabulary = new PetAttributeVocabulary();
+
+        assertEquals(PetAttributeVocabulary.NO_VALUE, vocabulary.intern(Attribute.COAT_LENGTH, null));
+        assertEquals(PetAttributeVocabulary.NO_VALUE, vocabulary.intern(Attribute.COAT_LENGTH, "  "));
+        assertNull(vocabulary.canonicalize(Attribute.COAT_LENGTH, null));
+        assertEquals(0, vocabulary.size(Attribute.COAT_LENGTH));
+    }
+}
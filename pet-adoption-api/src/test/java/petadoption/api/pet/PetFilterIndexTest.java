@@ -0,0 +1,276 @@
+package petadoption.api.pet;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static petadoption.api.pet.TestPets.pet;
+
+/**
+ * Checks the plans of filtered listings against the indexes of V7__add_pet_filter_indexes.sql
+ * and V8__add_pet_size.sql.
+ * H2's planner stands in for MySQL's: a filter whose query can't seek one of the indexes
+ * fails here the same way it would show up as a full scan in production.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "petadoption.api.pet.PetFilterIndexTest$SqlCapture")
+@ActiveProfiles("testdb")
+public class PetFilterIndexTest {
+
+    private static boolean migrated;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private PetSizeBackfill petSizeBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void applyIndexMigrations() {
+        if (migrated) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V6__add_pet_available_id_index.sql"));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V7__add_pet_filter_indexes.sql"));
+            return null;
+        });
+        applySizeMigration();
+        migrated = true;
+    }
+
+    /**
+     * Runs V8. Hibernate has already added the size column, and the indexes exist after the
+     * first run, so only the backfill applies then.
+     */
+    private void applySizeMigration() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(new ClassPathResource("db/migration/V8__add_pet_size.sql")),
+                    true, false, ScriptUtils.DEFAULT_COMMENT_PREFIX, ScriptUtils.DEFAULT_STATEMENT_SEPARATOR,
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+            return null;
+        });
+    }
+
+    @Test
+    public void testEveryFilterCombinationSeeksAnIndex() {
+        List<Consumer<PetFilter>> combinations = List.of(
+                filter -> filter.setSpecies(List.of("Dog")),
+                filter -> filter.setSpecies(List.of("Dog", "Cat")),
+                filter -> {
+                    filter.setSpecies(List.of("Dog"));
+                    filter.setBreed(List.of("Beagle"));
+                },
+                filter -> filter.setBreed(List.of("Beagle")),
+                filter -> filter.setGender(List.of("Female")),
+                filter -> {
+                    filter.setGender(List.of("Female"));
+                    filter.setMinAge(1);
+                    filter.setMaxAge(3);
+                },
+                filter -> filter.setMaxAge(2),
+                filter -> filter.setMinWeight(40),
+                filter -> filter.setSize(List.of("small")),
+                filter -> filter.setSize(List.of("small", "extra large")),
+                filter -> {
+                    filter.setSpecies(List.of("Cat"));
+                    filter.setSize(List.of("medium"));
+                },
+                filter -> filter.setCoatLength(List.of("Long")),
+                filter -> filter.setHealthStatus(List.of("Healthy")),
+                filter -> {
+                    filter.setGender(List.of("Male"));
+                    filter.setCoatLength(List.of("Short"));
+                    filter.setHealthStatus(List.of("Healthy"));
+                },
+                filter -> {
+                    filter.setSpecies(List.of("Dog"));
+                    filter.setBreed(List.of("Beagle", "Pug"));
+                    filter.setGender(List.of("Male"));
+                    filter.setMinAge(1);
+                    filter.setMaxAge(8);
+                    filter.setMinWeight(10);
+                    filter.setMaxWeight(30);
+                    filter.setSize(List.of("small"));
+                    filter.setCoatLength(List.of("Short"));
+                    filter.setHealthStatus(List.of("Healthy"));
+                    filter.setState("TX");
+                });
+
+        for (Consumer<PetFilter> combination : combinations) {
+            PetFilter filter = new PetFilter();
+            combination.accept(filter);
+            SqlCapture.clear();
+            // a later page also runs the COUNT query
+            petService.getAvailablePets(filter, PageRequest.of(1, 6, Sort.by("id")));
+
+            List<String> queries = SqlCapture.queries();
+            assertEquals(2, queries.size(), filter::toString);
+            for (String sql : queries) {
+                assertFalse(sql.contains("description"), sql);
+                String plan = explain(sql);
+                assertFalse(plan.contains("PUBLIC.PETS.tableScan"), () -> filter + " scans pets:\n" + plan);
+                assertTrue(plan.contains("IDX_PETS_FILTER_"), () -> filter + " doesn't use a filter index:\n" + plan);
+            }
+        }
+    }
+
+    @Test
+    public void testSizeFilterMatchesPetSize() {
+        List<Pet> pets = petRepository.saveAll(List.of(
+                pet().species("Cat").weight(5).build(), pet().species("Cat").weight(9).build(),
+                pet().species("Cat").weight(20).build(), pet().species("Dog").weight(9).build(),
+                pet().species("Dog").weight(40).build(), pet().species("Dog").weight(120).build(),
+                pet().species("Dog").weight(30).build()));
+        Long unweighed = pets.get(pets.size() - 1).getId();
+        // WEIGHT is NOT NULL in every schema so far, but the backfills must not misfile such a row
+        jdbcTemplate.execute("ALTER TABLE pets ALTER COLUMN weight SET NULL");
+        jdbcTemplate.update("UPDATE pets SET weight = NULL WHERE pet_id = ?", unweighed);
+        try {
+            // as if the pets were saved before the size column existed
+            clearSizes(pets);
+            applySizeMigration();
+            assertStoredSizesMatch(pets, unweighed);
+            clearSizes(pets);
+            assertEquals(pets.size(), petSizeBackfill.backfill());
+            assertStoredSizesMatch(pets, unweighed);
+
+            for (String size : Pet.SIZES) {
+                PetFilter filter = new PetFilter();
+                filter.setSize(List.of(size.toUpperCase()));
+                List<Long> found = petService.getAvailablePets(filter, PageRequest.of(0, 100, Sort.by("id")))
+                        .map(PetSummary::getId).getContent();
+                List<Long> expected = pets.stream()
+                        .filter(pet -> !pet.getId().equals(unweighed) && pet.getSize().equals(size))
+                        .map(Pet::getId).toList();
+                assertEquals(expected, found, size);
+            }
+        } finally {
+            jdbcTemplate.update("UPDATE pets SET weight = 30 WHERE pet_id = ?", unweighed);
+            jdbcTemplate.execute("ALTER TABLE pets ALTER COLUMN weight SET NOT NULL");
+            petRepository.deleteAll(pets);
+        }
+    }
+
+    @Test
+    public void testUnsavedPetsComputeTheirSize() {
+        Pet pet = pet().species("Cat").weight(9).build();
+        assertEquals("medium", pet.getSize());
+        pet.setWeight(null);
+        assertEquals("Unknown", pet.getSize());
+    }
+
+    @Test
+    public void testSizeIsRecomputedOnUpdate() {
+        Pet pet = petRepository.save(pet().species("Dog").weight(20).build());
+        try {
+            assertEquals("small", storedSize(pet.getId()));
+            pet.setWeight(70);
+            petRepository.save(pet);
+            assertEquals("large", storedSize(pet.getId()));
+            pet.setSpecies("Cat");
+            pet.setWeight(9);
+            petRepository.save(pet);
+            assertEquals("medium", storedSize(pet.getId()));
+        } finally {
+            petRepository.deleteById(pet.getId());
+        }
+    }
+
+    @Test
+    public void testInvalidFiltersAreRejected() {
+        PetFilter inverted = new PetFilter();
+        inverted.setMinAge(5);
+        inverted.setMaxAge(2);
+        assertThrows(IllegalArgumentException.class, () -> petService.getAvailablePets(inverted, PageRequest.of(0, 6)));
+
+        PetFilter unknownSize = new PetFilter();
+        unknownSize.setSize(List.of("huge"));
+        assertThrows(IllegalArgumentException.class, () -> petService.getAvailablePets(unknownSize, PageRequest.of(0, 6)));
+    }
+
+    private void clearSizes(List<Pet> pets) {
+        for (Pet pet : pets) {
+            jdbcTemplate.update("UPDATE pets SET size = NULL WHERE pet_id = ?", pet.getId());
+        }
+    }
+
+    private void assertStoredSizesMatch(List<Pet> pets, Long unweighed) {
+        for (Pet pet : pets) {
+            String expected = pet.getId().equals(unweighed) ? "Unknown" : pet.getSize();
+            assertEquals(expected, storedSize(pet.getId()), pet::toString);
+        }
+    }
+
+    private String storedSize(Long petId) {
+        return jdbcTemplate.queryForObject("SELECT size FROM pets WHERE pet_id = ?", String.class, petId);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getString(1);
+            }
+        });
+    }
+
+
+    /**
+     * Records the SELECTs Hibernate sends for pets.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        private static final long serialVersionUID = 1L;
+        private static final List<String> QUERIES = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.startsWith("select") && sql.contains(" from pets ")) {
+                synchronized (QUERIES) {
+                    QUERIES.add(sql);
+                }
+            }
+            return sql;
+        }
+
+        static void clear() {
+            synchronized (QUERIES) {
+                QUERIES.clear();
+            }
+        }
+
+        static List<String> queries() {
+            synchronized (QUERIES) {
+                return List.copyOf(QUERIES);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package petadoption.api.pet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static petadoption.api.pet.TestPets.pet;
+
+public class PetListingTest {
+
+    @Test
+    public void testKeysetSliceReturnsNextCursor() {
+        PetRepository repository = Mockito.mock(PetRepository.class);
+        Mockito.when(repository.findByAvailableTrueAndIdGreaterThan(ArgumentMatchers.eq(10L), ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(List.of(summary(11L), summary(14L)), Pageable.ofSize(2), true));
+        Mockito.when(repository.findByAvailableTrueAndIdGreaterThan(ArgumentMatchers.eq(14L), ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(List.of(summary(20L)), Pageable.ofSize(2), false));
+        PetService service = new PetService(repository, null, new PetAttributeVocabulary(), null, null, null, null);
+
+        PetSlice first = service.getAvailablePetsAfter(10L, 2, false);
+        assertEquals(14L, first.getNextCursor());
+        assertNull(first.getTotalElements());
+        PetSlice last = service.getAvailablePetsAfter(first.getNextCursor(), 2, false);
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextCursor());
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        Mockito.verify(repository).findByAvailableTrueAndIdGreaterThan(ArgumentMatchers.eq(10L), pageable.capture());
+        // always the first page: the cursor replaces the offset
+        assertEquals(0, pageable.getValue().getOffset());
+        Mockito.verify(repository, Mockito.never()).countByAvailableTrue();
+    }
+
+    @Test
+    public void testTotalIsCachedUntilPetsChange() {
+        PetRepository repository = Mockito.mock(PetRepository.class);
+        Mockito.when(repository.countByAvailableTrue()).thenReturn(42L, 41L);
+        PetService service = new PetService(repository, null, new PetAttributeVocabulary(), null, null, null, null);
+        ReflectionTestUtils.setField(service, "countTtlSeconds", 60L);
+
+        assertEquals(42L, service.countAvailablePets());
+        assertEquals(42L, service.countAvailablePets());
+        service.onPetChange(PetChangeEvent.deleted(1L));
+        assertEquals(41L, service.countAvailablePets());
+        Mockito.verify(repository, Mockito.times(2)).countByAvailableTrue();
+    }
+
+    @Test
+    public void testSummaryJsonHasCardFieldsOnly() throws Exception {
+        Pet pet = pet(3L).name("Tom").species("Cat").weight(8).description("A very long story").build();
+        // as on save
+        pet.updateSize();
+        String json = new ObjectMapper().writeValueAsString(new SpelAwareProxyProjectionFactory()
+                .createProjection(PetSummary.class, pet));
+
+        assertTrue(json.contains("\"name\":\"Tom\""), json);
+        assertTrue(json.contains("\"size\":\"medium\""), json);
+        assertFalse(json.contains("description"), json);
+        assertFalse(json.contains("target"), json);
+    }
+
+    private static PetSummary summary(Long id) {
+        return new SpelAwareProxyProjectionFactory().createProjection(PetSummary.class, pet(id).build());
+    }
+}
@@ -0,0 +1,98 @@
+package petadoption.api.pet;
+
+/**
+ * Builds pets for tests. A new pet has every required column set, so it can be saved
+ * as is; tests override only the fields they check.
+ */
+public final class TestPets {
+
+    private final Pet pet = new Pet();
+
+    private TestPets() {
+        pet.setName("Pet");
+        pet.setAge(2);
+        pet.setSpecies("Dog");
+        pet.setBreed("Mixed");
+        pet.setGender("Male");
+        pet.setHealthStatus("Healthy");
+        pet.setWeight(20);
+        pet.setAdoptionCenterId(1L);
+        pet.setAvailable(true);
+    }
+
+    /**
+     * @return A pet without an ID, as before it is saved.
+     */
+    public static TestPets pet() {
+        return new TestPets();
+    }
+
+    /**
+     * @return A pet with the given ID, named after it.
+     */
+    public static TestPets pet(Long id) {
+        TestPets builder = new TestPets();
+        builder.pet.setId(id);
+        builder.pet.setName("Pet " + id);
+        return builder;
+    }
+
+    public TestPets name(String name) {
+        pet.setName(name);
+        return this;
+    }
+
+    public TestPets age(Integer age) {
+        pet.setAge(age);
+        return this;
+    }
+
+    public TestPets species(String species) {
+        pet.setSpecies(species);
+        return this;
+    }
+
+    public TestPets breed(String breed) {
+        pet.setBreed(breed);
+        return this;
+    }
+
+    public TestPets gender(String gender) {
+        pet.setGender(gender);
+        return this;
+    }
+
+    public TestPets healthStatus(String healthStatus) {
+        pet.setHealthStatus(healthStatus);
+        return this;
+    }
+
+    public TestPets weight(Integer weight) {
+        pet.setWeight(weight);
+        return this;
+    }
+
+    public TestPets coatLength(String coatLength) {
+        pet.setCoatLength(coatLength);
+        return this;
+    }
+
+    public TestPets description(String description) {
+        pet.setDescription(description);
+        return this;
+    }
+
+    public TestPets adoptionCenterId(Long adoptionCenterId) {
+        pet.setAdoptionCenterId(adoptionCenterId);
+        return this;
+    }
+
+    public TestPets available(boolean available) {
+        pet.setAvailable(available);
+        return this;
+    }
+
+    public Pet build() {
+        return pet;
+    }
+}
@@ -0,0 +1,66 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.user.User;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static petadoption.api.pet.TestPets.pet;
+
+public class CandidateRetrieverTest {
+
+    private PetFeatureIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+    }
+
+    @Test
+    public void testPostingsFollowPetWrites() {
+        index.upsertAll(List.of(pet(1L).species("Dog").age(3).build(), pet(2L).species("Cat").age(3).build(),
+                pet(3L).species("Dog").age(9).available(false).build()));
+        long dogKey = CandidatePostings.speciesKey(index.speciesCode("Dog"));
+        long catKey = CandidatePostings.speciesKey(index.speciesCode("Cat"));
+        assertArrayEquals(new long[]{1L}, index.snapshot().postings.get(dogKey));
+
+        // pet 3 becomes available and pet 1 turns out to be a cat
+        index.upsertAll(List.of(pet(3L).species("Dog").age(9).build(), pet(1L).species("Cat").age(3).build()));
+        assertArrayEquals(new long[]{3L}, index.snapshot().postings.get(dogKey));
+        assertArrayEquals(new long[]{1L, 2L}, index.snapshot().postings.get(catKey));
+
+        index.removeAll(List.of(2L));
+        assertArrayEquals(new long[]{1L}, index.snapshot().postings.get(catKey));
+        assertArrayEquals(new long[]{1L}, index.snapshot().postings.get(CandidatePostings.ageKey(3)));
+    }
+
+    @Test
+    public void testRetrievesMatchingPetsOnly() {
+        index.upsertAll(List.of(pet(1L).species("Dog").age(2).build(), pet(2L).species("Cat").age(3).build(),
+                pet(3L).species("Cat").age(12).build(), pet(4L).species("Bird").age(20).build()));
+        User user = new User();
+        user.setPreferredSpecies("Dog");
+        user.setTargetAge(3);
+        user.setAgeTolerance(1.0);
+        ScoringPreferences prefs = ScoringPreferences.of(user, index);
+        PetFeatureIndex.Snapshot pets = index.snapshot();
+
+        int[] slots = new CandidateRetriever(true, 0, 0).candidates(pets, prefs, 1L);
+        long[] ids = Arrays.stream(slots).mapToLong(slot -> pets.ids[slot]).toArray();
+        assertArrayEquals(new long[]{1L, 2L}, ids);
+
+        // the exploration sample adds pets outside the preferences
+        assertEquals(4, new CandidateRetriever(true, 0, 1000).candidates(pets, prefs, 1L).length);
+        // small catalogs are scored in full
+        assertNull(new CandidateRetriever(true, 10, 0).candidates(pets, prefs, 1L));
+    }
+}
@@ -0,0 +1,137 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HnswGraphTest {
+
+    private static final int PETS = 3000;
+    private static final int K = 10;
+
+    @Test
+    public void testRecallAgainstBruteForce() {
+        float[][] numeric = new float[PETS + 1][];
+        int[][] categorical = new int[PETS + 1][];
+        HnswGraph graph = randomGraph(numeric, categorical);
+
+        Random random = new Random(7);
+        int hits = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            long queryId = 1 + random.nextInt(PETS);
+            long[] found = graph.search(numeric[(int) queryId], categorical[(int) queryId], K, 64, queryId);
+            long[] exact = bruteForce(numeric, categorical, queryId, id -> true);
+            assertEquals(K, found.length);
+            assertFalse(LongStream.of(found).anyMatch(id -> id == queryId));
+            hits += overlap(found, exact, numeric, categorical, queryId);
+        }
+        double recall = hits / (double) (queries * K);
+        assertTrue(recall >= 0.95, "recall was " + recall);
+    }
+
+    @Test
+    public void testTombstonedPetsAreNeverReturned() {
+        float[][] numeric = new float[PETS + 1][];
+        int[][] categorical = new int[PETS + 1][];
+        HnswGraph graph = randomGraph(numeric, categorical);
+        for (long id = 2; id <= PETS; id += 2) {
+            assertTrue(graph.remove(id));
+        }
+        assertFalse(graph.remove(2));
+        assertEquals(PETS / 2, graph.tombstoneCount());
+        assertEquals(PETS - PETS / 2, graph.liveCount());
+
+        for (long queryId = 1; queryId <= 50; queryId++) {
+            long[] found = graph.search(numeric[(int) queryId], categorical[(int) queryId], K, 64, queryId);
+            assertEquals(K, found.length);
+            assertTrue(LongStream.of(found).allMatch(id -> id % 2 == 1), Arrays.toString(found));
+        }
+
+        HnswGraph compacted = graph.compact();
+        assertEquals(0, compacted.tombstoneCount());
+        assertEquals(graph.liveCount(), compacted.liveCount());
+        assertFalse(compacted.contains(2));
+        assertTrue(compacted.contains(3));
+    }
+
+    @Test
+    public void testReinsertMovesPet() {
+        HnswGraph graph = new HnswGraph(1, 1, 4, 16, 1);
+        graph.insert(1, new float[]{0}, new int[]{0});
+        graph.insert(2, new float[]{10}, new int[]{0});
+        graph.insert(3, new float[]{1}, new int[]{0});
+        assertArrayEquals(new long[]{3, 2}, graph.search(new float[]{0}, new int[]{0}, 2, 8, 1));
+
+        // pet 2 changes and becomes the closest; the stale node is tombstoned
+        graph.insert(2, new float[]{0}, new int[]{0});
+        assertEquals(1, graph.tombstoneCount());
+        assertArrayEquals(new long[]{2, 3}, graph.search(new float[]{0}, new int[]{0}, 2, 8, 1));
+
+        // an unchanged vector is not reinserted
+        graph.insert(2, new float[]{0}, new int[]{0});
+        assertEquals(1, graph.tombstoneCount());
+    }
+
+    private static HnswGraph randomGraph(float[][] numeric, int[][] categorical) {
+        Random random = new Random(42);
+        HnswGraph graph = new HnswGraph(3, 4, 16, 100, 42);
+        for (int id = 1; id <= PETS; id++) {
+            int weight = 1 + random.nextInt(90);
+            numeric[id] = new float[]{random.nextInt(15) / 2f, weight / 10f, Math.min(3, weight / 25)};
+            categorical[id] = new int[]{random.nextInt(4), random.nextInt(6), random.nextInt(3) - 1, random.nextInt(4)};
+            graph.insert(id, numeric[id], categorical[id]);
+        }
+        return graph;
+    }
+
+    private static long[] bruteForce(float[][] numeric, int[][] categorical, long queryId,
+                                     java.util.function.LongPredicate include) {
+        return LongStream.rangeClosed(1, PETS)
+                .filter(id -> id != queryId && include.test(id))
+                .boxed()
+                .sorted(Comparator.<Long>comparingDouble(id -> distance(numeric, categorical, queryId, id))
+                        .thenComparing(id -> id))
+                .limit(K)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Counts found pets that are at least as close as the K-th exact neighbor, so ties don't count as misses.
+     */
+    private static int overlap(long[] found, long[] exact, float[][] numeric, int[][] categorical, long queryId) {
+        double kth = distance(numeric, categorical, queryId, exact[exact.length - 1]);
+        int hits = 0;
+        for (long id : found) {
+            if (distance(numeric, categorical, queryId, id) <= kth + 1e-6) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static double distance(float[][] numeric, int[][] categorical, long a, long b) {
+        double sum = 0;
+        for (int i = 0; i < 3; i++) {
+            double diff = numeric[(int) a][i] - numeric[(int) b][i];
+            sum += diff * diff;
+        }
+        for (int i = 0; i < 4; i++) {
+            int x = categorical[(int) a][i];
+            int y = categorical[(int) b][i];
+            if (x != y) {
+                sum += (x < 0 || y < 0) ? 1 : 2;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,119 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import petadoption.api.user.RatingEvent;
+import petadoption.api.user.RatingEventLog;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static petadoption.api.pet.TestPets.pet;
+
+public class ItemSimilarityModelTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCoLikedPetsBecomeNeighbors() {
+        ItemSimilarityModel model = model(tempDir.resolve("model.bin"));
+        // users 1 and 2 both like pets 10 and 11; user 2 also likes 12
+        model.record(1, 10, 5);
+        model.record(1, 11, 5);
+        model.record(2, 10, 4);
+        model.record(2, 11, 5);
+        model.record(2, 12, 5);
+        // dislikes don't count
+        model.record(3, 10, 1);
+        model.record(3, 13, 1);
+
+        assertArrayEquals(new long[]{11, 12}, model.neighbors(10));
+
+        Map<Long, Double> affinity = model.affinity(1);
+        assertFalse(affinity.containsKey(10L));
+        assertTrue(affinity.get(11L) == null);
+        assertTrue(affinity.get(12L) > 0);
+        assertTrue(model.affinity(3).isEmpty());
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() {
+        Path file = tempDir.resolve("model.bin");
+        ItemSimilarityModel model = model(file);
+        model.record(1, 10, 5);
+        model.record(1, 11, 5);
+        model.record(2, 11, 5);
+        model.record(2, 12, 5);
+        model.save();
+
+        ItemSimilarityModel restored = model(file);
+        restored.load();
+        assertArrayEquals(model.neighbors(11), restored.neighbors(11));
+        assertAffinityEquals(model.affinity(1), restored.affinity(1));
+
+        // history survives the restart, so a repeated like is still ignored
+        restored.record(1, 10, 5);
+        assertAffinityEquals(model.affinity(1), restored.affinity(1));
+    }
+
+    @Test
+    public void testSnapshotResumesAfterTheLastRecordedEvent() {
+        Path file = tempDir.resolve("model.bin");
+        ItemSimilarityModel model = model(file);
+        model.onRating(event(1L, 1L, 10L, 5));
+        model.onRating(event(2L, 1L, 11L, 5));
+        model.save();
+
+        RatingEventLog ratingEventLog = Mockito.mock(RatingEventLog.class);
+        ItemSimilarityModel restored = model(file, ratingEventLog);
+        restored.load();
+        verify(ratingEventLog).stream(anyString(), any(RowCallbackHandler.class), eq(2L));
+        assertArrayEquals(new long[]{11}, restored.neighbors(10));
+    }
+
+    private static RatingEvent event(Long eventId, Long userId, Long petId, double rating) {
+        RatingEvent event = new RatingEvent(userId, pet(petId).build(), rating);
+        event.setId(eventId);
+        return event;
+    }
+
+    // neighbor weights are stored as floats in the snapshot
+    private static void assertAffinityEquals(Map<Long, Double> expected, Map<Long, Double> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((petId, weight) -> assertEquals(weight, actual.get(petId), 1e-6));
+    }
+
+    @Test
+    public void testLongIntHashMapRetainsTopCounts() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        for (long key = 1; key <= 100; key++) {
+            map.addTo(key, (int) key);
+        }
+        assertEquals(100, map.size());
+        assertEquals(42, map.get(42));
+        map.retainTop(10);
+        assertEquals(10, map.size());
+        assertEquals(100, map.get(100));
+        assertEquals(0, map.get(90));
+    }
+
+    private static ItemSimilarityModel model(Path file) {
+        return model(file, Mockito.mock(RatingEventLog.class));
+    }
+
+    private static ItemSimilarityModel model(Path file, RatingEventLog ratingEventLog) {
+        return new ItemSimilarityModel(ratingEventLog,
+                true, 4, 50, 20, 512, file.toString());
+    }
+}
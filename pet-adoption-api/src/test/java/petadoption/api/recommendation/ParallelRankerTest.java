@@ -0,0 +1,52 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static petadoption.api.pet.TestPets.pet;
+
+public class ParallelRankerTest {
+
+    private final ParallelRanker sequential = new ParallelRanker(Integer.MAX_VALUE, 4096, 1);
+    private final ParallelRanker parallel = new ParallelRanker(0, 8, 4);
+
+    @AfterEach
+    public void tearDown() {
+        sequential.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    public void testParallelMatchesSequentialIncludingTies() {
+        PetFeatureIndex index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+        List<Pet> pets = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            pets.add(pet(id).age((int) (id % 7)).species(id % 3 == 0 ? "Cat" : "Dog").available(id % 5 != 0).build());
+        }
+        index.upsertAll(pets);
+        PetFeatureIndex.Snapshot snapshot = index.snapshot();
+        ParallelRanker.RangeScorer byAge = (from, to, out) -> {
+            for (int slot = from; slot < to; slot++) {
+                out[slot - from] = snapshot.ages[slot];
+            }
+        };
+
+        // few distinct scores, so most of the order comes from the ID tiebreak
+        for (int k : new int[]{1, 10, 250, 1000}) {
+            long[] expected = sequential.topK(snapshot, k, slot -> snapshot.available[slot],
+                    byAge).drainBestFirst(null);
+            long[] actual = parallel.topK(snapshot, k, slot -> snapshot.available[slot],
+                    byAge).drainBestFirst(null);
+            assertArrayEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetAttributeVocabulary.Attribute;
+import petadoption.api.pet.PetFeatureRow;
+import petadoption.api.pet.PetRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static petadoption.api.pet.TestPets.pet;
+
+public class PetFeatureIndexStoreTest {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSnapshotRoundTripRemapsCodes() {
+        PetFeatureIndexStore store = new PetFeatureIndexStore(true, tempDir.resolve("index.bin").toString());
+        PetAttributeVocabulary vocabulary = new PetAttributeVocabulary();
+        PetFeatureIndex index = new PetFeatureIndex(Mockito.mock(PetRepository.class), vocabulary, store, 300);
+        index.upsertAll(List.of(pet(1L).species("Dog").breed("Beagle").build(),
+                pet(2L).species("Cat").breed("Siamese").build(), pet(3L).species(null).breed("Mixed").build()));
+        index.save();
+
+        // a fresh process interns values in a different order
+        PetAttributeVocabulary restarted = new PetAttributeVocabulary();
+        restarted.intern(Attribute.SPECIES, "Rabbit");
+        restarted.intern(Attribute.BREED, "Siamese");
+        PetRepository repository = repository(3, List.of());
+        PetFeatureIndex restored = new PetFeatureIndex(repository, restarted, store, 300);
+        restored.load();
+
+        PetFeatureIndex.Snapshot snapshot = restored.snapshot();
+        assertEquals(3, snapshot.size());
+        assertEquals("Dog", restarted.valueOf(Attribute.SPECIES, snapshot.species[snapshot.slotOf(1L)]));
+        assertEquals("Cat", restarted.valueOf(Attribute.SPECIES, snapshot.species[snapshot.slotOf(2L)]));
+        assertEquals(PetFeatureIndex.NO_VALUE, snapshot.species[snapshot.slotOf(3L)]);
+        assertEquals("Siamese", restarted.valueOf(Attribute.BREED, snapshot.breeds[snapshot.slotOf(2L)]));
+        assertTrue(snapshot.generation() > index.snapshot().generation());
+        // posting lists are rebuilt, so candidate retrieval sees the loaded pets
+        assertEquals(restarted.lookup(Attribute.SPECIES, "cat"), restored.speciesCode("Cat"));
+        Mockito.verify(repository, Mockito.never()).findAllProjectedByOrderByIdAsc();
+    }
+
+    @Test
+    public void testLoadCatchesUpWithChangesAndDeletes() {
+        PetFeatureIndexStore store = new PetFeatureIndexStore(true, tempDir.resolve("index.bin").toString());
+        PetFeatureIndex index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                store, 300);
+        index.upsertAll(List.of(pet(1L).species("Dog").breed("Beagle").build(),
+                pet(2L).species("Cat").breed("Siamese").build(), pet(3L).species("Dog").breed("Mixed").build()));
+        index.save();
+
+        // pet 1 was adopted, pet 3 deleted and pet 4 added while the application was down
+        Pet adopted = pet(1L).species("Dog").breed("Beagle").build();
+        adopted.setAvailable(false);
+        PetRepository repository = repository(3, List.of(adopted, pet(4L).species("Cat").breed("Persian").build()));
+        Mockito.when(repository.findAllIds()).thenReturn(List.of(1L, 2L, 4L));
+        PetFeatureIndex restored = new PetFeatureIndex(repository, new PetAttributeVocabulary(), store, 300);
+        restored.load();
+
+        PetFeatureIndex.Snapshot snapshot = restored.snapshot();
+        assertEquals(3, snapshot.size());
+        assertFalse(snapshot.isAvailable(1L));
+        assertTrue(snapshot.isAvailable(2L));
+        assertTrue(snapshot.slotOf(3L) < 0);
+        assertTrue(snapshot.isAvailable(4L));
+    }
+
+    @Test
+    public void testCorruptSnapshotFallsBackToFullLoad() throws Exception {
+        Path file = tempDir.resolve("index.bin");
+        PetFeatureIndexStore store = new PetFeatureIndexStore(true, file.toString());
+        PetFeatureIndex index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                store, 300);
+        index.upsertAll(List.of(pet(1L).species("Dog").breed("Beagle").build()));
+        index.save();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        PetRepository repository = Mockito.mock(PetRepository.class);
+        Mockito.when(repository.findAllProjectedByOrderByIdAsc())
+                .thenReturn(rows(List.of(pet(7L).species("Cat").breed("Siamese").build())));
+        PetFeatureIndex restored = new PetFeatureIndex(repository, new PetAttributeVocabulary(), store, 300);
+        restored.load();
+
+        assertEquals(1, restored.snapshot().size());
+        assertTrue(restored.snapshot().isAvailable(7L));
+    }
+
+    private static PetRepository repository(long count, List<Pet> changed) {
+        PetRepository repository = Mockito.mock(PetRepository.class);
+        Mockito.when(repository.count()).thenReturn(count);
+        Mockito.when(repository.findByIdGreaterThanOrUpdatedAtGreaterThanEqualOrderByIdAsc(
+                ArgumentMatchers.anyLong(), ArgumentMatchers.any())).thenReturn(rows(changed));
+        return repository;
+    }
+
+    private static List<PetFeatureRow> rows(List<Pet> pets) {
+        return pets.stream().map(pet -> PROJECTIONS.createProjection(PetFeatureRow.class, pet)).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static petadoption.api.pet.TestPets.pet;
+
+public class PetFeatureIndexTest {
+
+    private PetFeatureIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+    }
+
+    @Test
+    public void testUpsertKeepsPetsSortedById() {
+        index.upsertAll(List.of(pet(5L).species("Dog").build(), pet(2L).species("Cat").build()));
+        index.upsertAll(List.of(pet(3L).species("dog").build()));
+
+        PetFeatureIndex.Snapshot snapshot = index.snapshot();
+        assertEquals(3, snapshot.size());
+        assertArrayEquals(new long[]{2L, 3L, 5L}, java.util.Arrays.copyOf(snapshot.ids, snapshot.size));
+        // species codes are case-insensitive
+        assertEquals(snapshot.species[snapshot.slotOf(3L)], snapshot.species[snapshot.slotOf(5L)]);
+    }
+
+    @Test
+    public void testUpsertReplacesExistingPet() {
+        index.upsertAll(List.of(pet(1L).species("Dog").build()));
+        Pet adopted = pet(1L).species("Dog").build();
+        adopted.setAvailable(false);
+        index.upsertAll(List.of(adopted));
+
+        PetFeatureIndex.Snapshot snapshot = index.snapshot();
+        assertEquals(1, snapshot.size());
+        assertFalse(snapshot.available[0]);
+    }
+
+    @Test
+    public void testRemove() {
+        index.upsertAll(List.of(pet(1L).species("Dog").build(), pet(2L).species("Cat").build()));
+        index.removeAll(List.of(1L));
+
+        PetFeatureIndex.Snapshot snapshot = index.snapshot();
+        assertEquals(1, snapshot.size());
+        assertTrue(snapshot.slotOf(1L) < 0);
+        assertEquals(0, snapshot.slotOf(2L));
+    }
+
+    @Test
+    public void testUnknownPreferenceNeverMatches() {
+        index.upsertAll(List.of(pet(1L).species("Dog").build()));
+        assertEquals(PetFeatureIndex.UNKNOWN_VALUE, index.speciesCode("Parrot"));
+        assertEquals(index.snapshot().species[0], index.speciesCode("DOG"));
+    }
+}
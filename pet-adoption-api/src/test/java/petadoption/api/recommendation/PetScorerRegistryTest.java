@@ -0,0 +1,81 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PetScorerRegistryTest {
+
+    private final PetScorer rules = new NamedScorer("rules");
+    private final PetScorer experiment = new NamedScorer("experiment");
+
+    @Test
+    public void testCohortsSplitUsersStably() {
+        PetScorerRegistry registry = new PetScorerRegistry(List.of(rules, experiment), "rules", "experiment:25");
+        int experimentUsers = 0;
+        for (long userId = 1; userId <= 10_000; userId++) {
+            PetScorer selected = registry.select(userId, null);
+            assertSame(selected, registry.select(userId, ""));
+            if (selected == experiment) {
+                experimentUsers++;
+            }
+        }
+        // about a quarter of the users, give or take hashing noise
+        assertTrue(experimentUsers > 2000 && experimentUsers < 3000, "experiment users: " + experimentUsers);
+    }
+
+    @Test
+    public void testRequestOverridesCohort() {
+        PetScorerRegistry registry = new PetScorerRegistry(List.of(rules, experiment), "rules", "");
+        assertSame(rules, registry.select(1L, null));
+        assertSame(experiment, registry.select(1L, "experiment"));
+        assertThrows(IllegalArgumentException.class, () -> registry.select(1L, "missing"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PetScorerRegistry(List.of(rules, experiment), "rules", "experiment:60,rules:50"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRecordsPerStrategyHistograms() {
+        PetScorerRegistry registry = new PetScorerRegistry(List.of(rules, experiment), "rules", "");
+        for (int i = 1; i <= 100; i++) {
+            registry.record(rules, i * 1000L, 500);
+        }
+        registry.record(experiment, 5_000_000L, 20_000);
+
+        Map<String, Object> stats = registry.stats();
+        Map<String, Object> latency = (Map<String, Object>) ((Map<String, Object>) stats.get("rules")).get("latencyMicros");
+        assertEquals(100L, latency.get("count"));
+        // buckets are at most 12.5% wide
+        double p50 = (double) latency.get("p50");
+        assertTrue(p50 >= 50 && p50 <= 50 * 1.125, "p50 " + p50);
+        assertEquals(100.0, latency.get("max"));
+        Map<String, Object> candidates = (Map<String, Object>) ((Map<String, Object>) stats.get("experiment")).get("candidates");
+        assertEquals(20000.0, candidates.get("max"));
+        assertEquals(0, ((Map<String, Object>) stats.get("experiment")).get("cohortPercent"));
+    }
+
+    @Test
+    public void testHistogramBucketsCoverTheLongRange() {
+        long previousUpper = -1;
+        for (int bucket = 0; bucket < LogHistogram.bucketOf(Long.MAX_VALUE) + 1; bucket++) {
+            long upper = LogHistogram.upperBound(bucket);
+            assertEquals(bucket, LogHistogram.bucketOf(previousUpper + 1));
+            assertEquals(bucket, LogHistogram.bucketOf(upper));
+            previousUpper = upper;
+        }
+        assertEquals(Long.MAX_VALUE, previousUpper);
+    }
+
+    private record NamedScorer(String name) implements PetScorer {
+        @Override
+        public void score(PetFeatureIndex.Snapshot pets, ScoringPreferences prefs, int from, int to, double[] out) {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.user.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static petadoption.api.pet.TestPets.pet;
+
+public class RecommendationCacheTest {
+
+    private PetFeatureIndex index;
+    private RecommendationCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+        index.upsertAll(List.of(pet(1L).species("Dog").breed("Beagle").build(), pet(2L).species("Cat").build()));
+        cache = new RecommendationCache(10, 10, 1, true, 10, 2, 10);
+    }
+
+    @Test
+    public void testSimilarPreferencesShareASignature() {
+        RecommendationCache.PreferenceSignature signature = signature(user("Dog", "Beagle", 4, 2.0, 31, 10.0));
+        // same bucket for age and weight, tolerances round the same way, spelling ignored
+        assertEquals(signature, signature(user("dog", "beagle ", 5, 2.4, 38, 12.0)));
+
+        assertNotEquals(signature, signature(user("Cat", "Beagle", 4, 2.0, 31, 10.0)));
+        assertNotEquals(signature, signature(user("Dog", "Beagle", 6, 2.0, 31, 10.0)));
+        assertNotEquals(signature, signature(user("Dog", "Beagle", 4, 2.0, 41, 10.0)));
+        assertNotEquals(signature, signature(user("Dog", "", 4, 2.0, 31, 10.0)));
+        assertNotEquals(signature, RecommendationCache.PreferenceSignature.of(
+                cache.bucketed(ScoringPreferences.of(user("Dog", "Beagle", 4, 2.0, 31, 10.0), index)), "other"));
+    }
+
+    @Test
+    public void testSharedRankingIsDroppedForANewGeneration() {
+        RecommendationCache.PreferenceSignature signature = signature(user("Dog", "Beagle", 4, 2.0, 31, 10.0));
+        RecommendationCache.RankedRecommendations ranked = new RecommendationCache.RankedRecommendations(
+                null, RuleBasedScorer.NAME, 3, new long[]{1L}, new double[]{50}, true);
+        cache.putShared(signature, ranked);
+
+        assertSame(ranked, cache.getShared(signature, 3));
+        assertNull(cache.getShared(signature, 4));
+        assertNull(cache.getShared(signature, 3));
+    }
+
+    private RecommendationCache.PreferenceSignature signature(User user) {
+        return RecommendationCache.PreferenceSignature.of(
+                cache.bucketed(ScoringPreferences.of(user, index)), RuleBasedScorer.NAME);
+    }
+
+    private static User user(String species, String breed, int age, double ageTolerance, int weight,
+                             double weightTolerance) {
+        User user = new User();
+        user.setPreferredSpecies(species);
+        user.setPreferredBreed(breed);
+        user.setTargetAge(age);
+        user.setAgeTolerance(ageTolerance);
+        user.setTargetWeight(weight);
+        user.setWeightTolerance(weightTolerance);
+        return user;
+    }
+}
@@ -0,0 +1,249 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import petadoption.api.cache.EntityCache;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetCardSummary;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.pet.PetSummary;
+import petadoption.api.user.RatingWriteBehind;
+import petadoption.api.user.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static petadoption.api.pet.TestPets.pet;
+
+public class RecommendationServiceTest {
+
+    // the large catalog is above both thresholds, the small one below
+    private static final int CANDIDATE_THRESHOLD = 500;
+    private static final int PARALLEL_THRESHOLD = 1000;
+    private static final int CACHE_DEPTH = 7;
+
+    private final Map<Long, Pet> catalog = new HashMap<>();
+    private final Map<Long, User> users = new HashMap<>();
+    private final ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+    private PetFeatureIndex index;
+    private RecommendationCache recommendationCache;
+    private RecommendationService service;
+
+    @Test
+    public void testPagingSmallCatalogFollowsFullRanking() {
+        setUp(60);
+        User user = user(1L, "Dog", "Female", 4);
+
+        for (int limit : new int[]{1, 5, 7, 13, 100}) {
+            recommendationCache.invalidateAll();
+            assertEquals(fullRanking(user), pageThrough(user.getId(), limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    public void testListReturnsTheBestSummaries() {
+        setUp(60);
+        User user = user(1L, "Dog", "Female", 4);
+        List<Long> full = fullRanking(user);
+
+        List<PetSummary> best = service.getRecommendationsForUser(user.getId(), 10, List.of(full.get(0)), null);
+        assertEquals(full.subList(1, 11), best.stream().map(PetSummary::getId).toList());
+        assertEquals(catalog.get(full.get(1)).getName(), best.get(0).getName());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getRecommendationsForUser(user.getId(), 0, null, null));
+    }
+
+    @Test
+    public void testPagingLargeCatalogShowsEveryPetOnce() {
+        setUp(2000);
+        // every dog outscores every other pet, so candidates first is also the full ranking
+        User dogs = user(1L, "Dog", null, null);
+        assertEquals(fullRanking(dogs), pageThrough(dogs.getId(), 37));
+
+        // other pets can outscore some candidates, but still follow them
+        User picky = user(2L, "Dog", "Female", 4);
+        List<Long> paged = pageThrough(picky.getId(), 50);
+        List<Long> full = fullRanking(picky);
+        assertEquals(full.size(), paged.size());
+        assertEquals(full.stream().sorted().toList(), paged.stream().sorted().toList());
+        assertEquals(candidatesFirst(picky), paged);
+    }
+
+    @Test
+    public void testSharedRankingServesUsersWithTheSamePreferences() {
+        setUp(60);
+        // deep enough to hold the whole catalog, so the shared ranking is complete
+        recommendationCache = new RecommendationCache(10, 100, 10, true, 10, 2, 10);
+        ReflectionTestUtils.setField(service, "recommendationCache", recommendationCache);
+        User first = user(1L, "Cat", "Male", 6);
+        User second = user(2L, "Cat", "Male", 6);
+
+        assertEquals(fullRanking(first), pageThrough(first.getId(), 9));
+        assertEquals(fullRanking(second), pageThrough(second.getId(), 9));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> shared = (Map<String, Object>) recommendationCache.stats().get("shared");
+        assertTrue((Long) shared.get("hits") > 0, shared::toString);
+    }
+
+    @Test
+    public void testSessionSkipsSeenPets() {
+        setUp(60);
+        User user = user(1L, "Dog", "Female", 4);
+        List<Long> seen = new ArrayList<>();
+
+        RecommendationSessionPage page = service.startSession(user.getId(), 6, null);
+        while (true) {
+            List<Long> ids = page.getPets().stream().map(PetCardSummary::getId).toList();
+            seen.addAll(ids);
+            service.markSeen(user.getId(), page.getSessionId(), ids);
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            // alternate between following the cursor and starting over from the best unseen pet
+            String cursor = seen.size() % 12 == 0 ? null : page.getNextCursor();
+            page = service.getSessionPage(user.getId(), page.getSessionId(), 6, cursor);
+        }
+        assertEquals(fullRanking(user), seen);
+    }
+
+    @Test
+    public void testInvalidCursorsAreRejected() {
+        setUp(60);
+        user(1L, "Dog", null, null);
+        for (String cursor : new String[]{"abc", "1.0", "1.0_x", "1.0_5_other", "1.0_5_rest_1"}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.getTopRecommendations(1L, 5, cursor, null, null), cursor);
+        }
+        assertNotNull(service.getTopRecommendations(1L, 5, "1.0_5_rest", null, null));
+    }
+
+    private void setUp(int size) {
+        PetRepository petRepository = Mockito.mock(PetRepository.class);
+        Mockito.when(petRepository.findAllById(ArgumentMatchers.anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false).map(catalog::get).toList();
+        });
+        Mockito.when(petRepository.findSummariesByIdIn(ArgumentMatchers.anyCollection())).thenAnswer(invocation ->
+                project(invocation.getArgument(0), PetSummary.class));
+        Mockito.when(petRepository.findCardSummariesByIdIn(ArgumentMatchers.anyCollection())).thenAnswer(invocation ->
+                project(invocation.getArgument(0), PetCardSummary.class));
+        EntityCache entityCache = Mockito.mock(EntityCache.class);
+        Mockito.when(entityCache.findUser(ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(users.get(invocation.<Long>getArgument(0))));
+
+        index = new PetFeatureIndex(petRepository, new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+        String[] species = {"Dog", "Cat", "Rabbit"};
+        String[] genders = {"Female", "Male"};
+        List<Pet> pets = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Pet pet = pet(id)
+                    .species(species[(int) (id % 3)])
+                    .gender(genders[(int) (id / 3 % 2)])
+                    .age((int) (id * 7 % 13))
+                    .weight((int) (id * 11 % 90) + 5)
+                    .available(id % 10 != 0)
+                    .build();
+            pets.add(pet);
+            catalog.put(id, pet);
+        }
+        index.upsertAll(pets);
+
+        RuleBasedScorer rules = new RuleBasedScorer();
+        ReflectionTestUtils.setField(rules, "vectorScoringEnabled", false);
+        rules.selectScoringKernel();
+        recommendationCache = new RecommendationCache(10, CACHE_DEPTH, 10, false, 10, 2, 10);
+
+        service = new RecommendationService();
+        ReflectionTestUtils.setField(service, "petRepository", petRepository);
+        ReflectionTestUtils.setField(service, "entityCache", entityCache);
+        ReflectionTestUtils.setField(service, "ratingWriteBehind",
+                new RatingWriteBehind(Mockito.mock(JdbcTemplate.class), entityCache, false, 1, 1));
+        ReflectionTestUtils.setField(service, "petFeatureIndex", index);
+        ReflectionTestUtils.setField(service, "recommendationCache", recommendationCache);
+        ReflectionTestUtils.setField(service, "parallelRanker", new ParallelRanker(PARALLEL_THRESHOLD, 64, 2));
+        ReflectionTestUtils.setField(service, "recommendationSessionStore", new RecommendationSessionStore(10, 30));
+        ReflectionTestUtils.setField(service, "candidateRetriever",
+                new CandidateRetriever(true, CANDIDATE_THRESHOLD, 0));
+        ReflectionTestUtils.setField(service, "itemSimilarityModel", Mockito.mock(ItemSimilarityModel.class));
+        ReflectionTestUtils.setField(service, "petScorerRegistry",
+                new PetScorerRegistry(List.of(rules), RuleBasedScorer.NAME, ""));
+    }
+
+    private <T> List<T> project(Collection<Long> ids, Class<T> type) {
+        return ids.stream().map(id -> projections.createProjection(type, catalog.get(id))).toList();
+    }
+
+    private User user(Long id, String species, String gender, Integer age) {
+        User user = new User();
+        user.setId(id);
+        user.setPreferredSpecies(species);
+        user.setPreferredGender(gender);
+        user.setTargetAge(age);
+        user.setAgeTolerance(age != null ? 2.0 : null);
+        users.put(id, user);
+        return user;
+    }
+
+    private List<Long> pageThrough(Long userId, int limit) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            RecommendationPage page = service.getTopRecommendations(userId, limit, cursor, null, null);
+            assertTrue(page.getItems().size() <= limit);
+            page.getItems().forEach(item -> ids.add(item.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    /**
+     * Every available pet, best first, ties by ascending ID.
+     */
+    private List<Long> fullRanking(User user) {
+        return rankSlots(user, IntStream.range(0, index.snapshot().size));
+    }
+
+    /**
+     * The retrieved candidates best first, then the other available pets best first.
+     */
+    private List<Long> candidatesFirst(User user) {
+        PetFeatureIndex.Snapshot pets = index.snapshot();
+        int[] candidates = new CandidateRetriever(true, CANDIDATE_THRESHOLD, 0)
+                .candidates(pets, ScoringPreferences.of(user, index), 0L);
+        List<Long> expected = new ArrayList<>(rankSlots(user, Arrays.stream(candidates)));
+        expected.addAll(rankSlots(user, IntStream.range(0, pets.size)
+                .filter(slot -> Arrays.binarySearch(candidates, slot) < 0)));
+        return expected;
+    }
+
+    private List<Long> rankSlots(User user, IntStream slots) {
+        PetFeatureIndex.Snapshot pets = index.snapshot();
+        ScoringPreferences prefs = ScoringPreferences.of(user, index);
+        RuleBasedScorer rules = new RuleBasedScorer();
+        return slots.filter(slot -> pets.available[slot])
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(slot -> -rules.score(pets, prefs, slot))
+                        .thenComparingLong(slot -> pets.ids[slot]))
+                .map(slot -> pets.ids[slot])
+                .toList();
+    }
+}
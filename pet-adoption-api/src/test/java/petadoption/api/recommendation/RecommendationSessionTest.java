@@ -0,0 +1,50 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecommendationSessionTest {
+
+    @Test
+    public void testSeenPetsIncludingIdsOutsideIntRange() {
+        RecommendationSession session = new RecommendationSession("s", 1L, null);
+        long large = Integer.MAX_VALUE + 10L;
+        session.markSeen(3);
+        session.markSeen(large);
+        session.markSeen(-5);
+
+        LongPredicate seen = session.seenSnapshot();
+        assertTrue(seen.test(3));
+        assertTrue(seen.test(large));
+        assertTrue(seen.test(-5));
+        assertFalse(seen.test(4));
+        assertFalse(seen.test(large + 1));
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterMarks() {
+        RecommendationSession session = new RecommendationSession("s", 1L, null);
+        session.markSeen(1);
+        LongPredicate seen = session.seenSnapshot();
+        session.markSeen(2);
+
+        assertTrue(seen.test(1));
+        assertFalse(seen.test(2));
+    }
+
+    @Test
+    public void testStoreOnlyReturnsSessionsToTheirOwner() {
+        RecommendationSessionStore store = new RecommendationSessionStore(10, 30);
+        RecommendationSession session = store.create(7L, null);
+
+        assertNotNull(store.get(session.getId(), 7L));
+        assertNull(store.get(session.getId(), 8L));
+        assertNull(store.get("missing", 7L));
+    }
+}
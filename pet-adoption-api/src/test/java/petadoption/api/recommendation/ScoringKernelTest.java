@@ -0,0 +1,73 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetAttributeVocabulary;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static petadoption.api.pet.TestPets.pet;
+
+public class ScoringKernelTest {
+
+    private static final String[] SPECIES = {"Dog", "Cat", "Rabbit"};
+    private static final String[] BREEDS = {"Beagle", "Siamese", "Mixed", null};
+    private static final String[] GENDERS = {"Male", "Female"};
+    private static final String[] COATS = {"Short", "Long", null};
+    private static final String[] HEALTH = {"Healthy", "Needs Care"};
+
+    @Test
+    public void testVectorKernelMatchesScalarKernel() {
+        PetFeatureIndex index = new PetFeatureIndex(Mockito.mock(PetRepository.class), new PetAttributeVocabulary(),
+                new PetFeatureIndexStore(false, "unused"), 0);
+        List<Pet> pets = new ArrayList<>();
+        // an odd count so the vector loop leaves a scalar tail
+        for (long id = 1; id <= 1037; id++) {
+            pets.add(pet(id)
+                    .age((int) (id * 7 % 19))
+                    .weight((int) (id * 13 % 120))
+                    .species(SPECIES[(int) (id % SPECIES.length)])
+                    .breed(BREEDS[(int) (id % BREEDS.length)])
+                    .gender(GENDERS[(int) (id % GENDERS.length)])
+                    .coatLength(COATS[(int) (id % COATS.length)])
+                    .healthStatus(HEALTH[(int) (id % HEALTH.length)])
+                    .build());
+        }
+        index.upsertAll(pets);
+        PetFeatureIndex.Snapshot snapshot = index.snapshot();
+
+        ScoringKernel vector = ScoringKernels.select(true);
+        assertInstanceOf(VectorScoringKernel.class, vector);
+        ScoringKernel scalar = new ScalarScoringKernel();
+
+        for (User user : List.of(new User(), likes("Dog", "Beagle", 3, 2.0, 40, 10.0),
+                likes("Cat", "Persian", 5, 0.0, 10, 0.0), likes("Any", "", 1, 1.5, 8, 3.5))) {
+            ScoringPreferences prefs = ScoringPreferences.of(user, index);
+            double[] expected = new double[snapshot.size()];
+            double[] actual = new double[snapshot.size()];
+            scalar.score(snapshot, prefs, 0, snapshot.size(), expected);
+            vector.score(snapshot, prefs, 0, snapshot.size(), actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    private static User likes(String species, String breed, int age, double ageTolerance, int weight, double weightTolerance) {
+        User user = new User();
+        user.setPreferredSpecies(species);
+        user.setPreferredBreed(breed);
+        user.setPreferredGender("Female");
+        user.setPreferredCoatLength("Short");
+        user.setPreferredHealthStatus("Healthy");
+        user.setTargetAge(age);
+        user.setAgeTolerance(ageTolerance);
+        user.setTargetWeight(weight);
+        user.setWeightTolerance(weightTolerance);
+        return user;
+    }
+}
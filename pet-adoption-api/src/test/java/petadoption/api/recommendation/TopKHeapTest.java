@@ -0,0 +1,50 @@
+package petadoption.api.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TopKHeapTest {
+
+    @Test
+    public void testKeepsBestScores() {
+        TopKHeap heap = new TopKHeap(3);
+        double[] scores = {10, 50, 30, 70, 20, 60};
+        for (int i = 0; i < scores.length; i++) {
+            heap.offer(scores[i], i + 1);
+        }
+
+        double[] kept = new double[heap.size()];
+        long[] ids = heap.drainBestFirst(kept);
+        assertArrayEquals(new long[]{4, 6, 2}, ids);
+        assertArrayEquals(new double[]{70, 60, 50}, kept);
+        assertEquals(0, heap.size());
+    }
+
+    @Test
+    public void testTiesGoToLowerId() {
+        TopKHeap heap = new TopKHeap(2);
+        heap.offer(5, 9);
+        heap.offer(5, 3);
+        heap.offer(5, 7);
+        heap.offer(5, 1);
+
+        assertArrayEquals(new long[]{1, 3}, heap.drainBestFirst(null));
+    }
+
+    @Test
+    public void testMerge() {
+        TopKHeap left = new TopKHeap(2);
+        left.offer(1, 1);
+        left.offer(4, 2);
+        TopKHeap right = new TopKHeap(2);
+        right.offer(3, 3);
+        right.offer(2, 4);
+
+        TopKHeap merged = new TopKHeap(2);
+        merged.offerAll(left);
+        merged.offerAll(right);
+        assertArrayEquals(new long[]{2, 3}, merged.drainBestFirst(null));
+    }
+}
@@ -0,0 +1,83 @@
+package petadoption.api.search;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.search.PetFacetIndex.Facet;
+import petadoption.api.search.PetFacetIndex.FacetCount;
+import petadoption.api.search.PetFacetIndex.FacetCounts;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static petadoption.api.pet.TestPets.pet;
+
+public class PetFacetIndexTest {
+
+    @Test
+    public void testCountsWithoutFilter() {
+        PetFacetIndex index = index();
+        FacetCounts counts = index.count(Map.of());
+
+        assertEquals(4, counts.total());
+        assertEquals(List.of(new FacetCount("Dog", 3), new FacetCount("Cat", 1)), counts.facets().get("species"));
+        assertEquals(List.of(new FacetCount("small", 2), new FacetCount("large", 1), new FacetCount("medium", 1)),
+                counts.facets().get("size"));
+        assertEquals(List.of(new FacetCount("10", 3), new FacetCount("20", 1)), counts.facets().get("shelter"));
+    }
+
+    @Test
+    public void testFacetIgnoresItsOwnSelection() {
+        PetFacetIndex index = index();
+        FacetCounts counts = index.count(Map.of(Facet.SPECIES, List.of("dog"), Facet.GENDER, List.of("Female")));
+
+        assertEquals(2, counts.total());
+        // species counts apply only the gender filter
+        assertEquals(List.of(new FacetCount("Dog", 2), new FacetCount("Cat", 1)), counts.facets().get("species"));
+        // gender counts apply only the species filter
+        assertEquals(List.of(new FacetCount("Female", 2), new FacetCount("Male", 1)), counts.facets().get("gender"));
+        assertEquals(List.of(new FacetCount("Beagle", 1), new FacetCount("Labrador", 1)), counts.facets().get("breed"));
+    }
+
+    @Test
+    public void testValuesOfOneFacetAreAlternatives() {
+        FacetCounts counts = index().count(Map.of(Facet.BREED, List.of("Beagle", "Siamese", "Unknown")));
+
+        assertEquals(2, counts.total());
+    }
+
+    @Test
+    public void testAdoptionAndDeleteUpdateCounts() {
+        PetFacetIndex index = index();
+        Pet adopted = pet(1L).species("Dog").breed("Beagle").gender("Female").weight(20).adoptionCenterId(10L).build();
+        adopted.setAvailable(false);
+        index.onPetChange(PetChangeEvent.saved(adopted));
+        index.onPetChange(PetChangeEvent.deleted(4L));
+
+        FacetCounts counts = index.count(Map.of());
+        assertEquals(2, counts.total());
+        assertEquals(List.of(new FacetCount("Cat", 1), new FacetCount("Dog", 1)), counts.facets().get("species"));
+        assertEquals(List.of(new FacetCount("Labrador", 1), new FacetCount("Siamese", 1)), counts.facets().get("breed"));
+
+        // a freed slot is reused by the next pet
+        index.upsertAll(List.of(
+                pet(5L).species("Rabbit").breed("Rex").gender("Male").weight(5).adoptionCenterId(20L).build()));
+        assertEquals(3, index.size());
+        FacetCounts shelter = index.count(Map.of(Facet.SHELTER, List.of("20")));
+        assertEquals(2, shelter.total());
+        assertEquals(List.of(new FacetCount("Cat", 1), new FacetCount("Rabbit", 1)), shelter.facets().get("species"));
+    }
+
+    private static PetFacetIndex index() {
+        PetFacetIndex index = new PetFacetIndex(Mockito.mock(PetRepository.class));
+        index.upsertAll(List.of(
+                pet(1L).species("Dog").breed("Beagle").gender("Female").weight(20).adoptionCenterId(10L).build(),
+                pet(2L).species("Dog").breed("Labrador").gender("Female").weight(70).adoptionCenterId(10L).build(),
+                pet(3L).species("Cat").breed("Siamese").gender("Female").weight(9).adoptionCenterId(20L).build(),
+                pet(4L).species("Dog").breed("Pug").gender("Male").weight(15).adoptionCenterId(10L).build()));
+        return index;
+    }
+}
@@ -0,0 +1,112 @@
+package petadoption.api.search;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import petadoption.api.pet.Pet;
+import petadoption.api.pet.PetChangeEvent;
+import petadoption.api.pet.PetRepository;
+import petadoption.api.pet.PetSearchRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static petadoption.api.pet.TestPets.pet;
+
+public class PetSearchIndexTest {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    @Test
+    public void testTokenizerDropsStopWordsAndPlurals() {
+        assertEquals(List.of("love", "kid", "ball", "2"), SearchTokenizer.tokens("Loves the KIDS & balls, is 2!"));
+        assertEquals(List.of("bass", "cactus"), SearchTokenizer.tokens("bass cactus"));
+    }
+
+    @Test
+    public void testNameMatchOutranksDescriptionMatch() {
+        PetSearchIndex index = new PetSearchIndex(Mockito.mock(PetRepository.class), true, 100);
+        index.upsertAll(List.of(
+                pet(1L).name("Rex").breed("Beagle")
+                        .description("Friendly dog who gets along with Max next door.").build(),
+                pet(2L).name("Max").breed("Labrador").description("Calm and gentle.").build(),
+                pet(3L).name("Whiskers").species("Cat").breed("Siamese").description("Quiet indoor cat.").build()));
+
+        assertArrayEquals(new long[] {2L, 1L}, index.search("max", 10));
+        assertArrayEquals(new long[] {3L}, index.search("siamese cats", 10));
+        assertArrayEquals(new long[0], index.search("the and", 10));
+    }
+
+    @Test
+    public void testLastWordMatchesAsPrefix() {
+        PetSearchIndex index = new PetSearchIndex(Mockito.mock(PetRepository.class), true, 100);
+        index.upsertAll(List.of(pet(1L).name("Bella").breed("Labrador").build(),
+                pet(2L).name("Luna").breed("Lab").build()));
+
+        // the exact term ranks above terms it only starts
+        assertArrayEquals(new long[] {2L, 1L}, index.search("lab", 10));
+        // a finished word is matched exactly
+        assertArrayEquals(new long[] {2L}, index.search("lab ", 10));
+        assertArrayEquals(new long[] {1L}, index.search("labra", 10));
+    }
+
+    @Test
+    public void testAdoptedAndDeletedPetsDropOut() {
+        PetSearchIndex index = new PetSearchIndex(Mockito.mock(PetRepository.class), true, 100);
+        index.upsertAll(List.of(pet(1L).name("Rex").breed("Beagle").build(), pet(2L).name("Rex").breed("Pug").build()));
+
+        Pet adopted = pet(1L).name("Rex").breed("Beagle").build();
+        adopted.setAvailable(false);
+        index.onPetChange(PetChangeEvent.saved(adopted));
+        assertArrayEquals(new long[] {2L}, index.search("rex", 10));
+
+        index.onPetChange(PetChangeEvent.deleted(2L));
+        assertArrayEquals(new long[0], index.search("rex", 10));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testCompactionKeepsLivePets() {
+        PetSearchIndex index = new PetSearchIndex(Mockito.mock(PetRepository.class), true, 100);
+        // rewriting the same pets leaves tombstones until compaction drops them
+        for (int round = 0; round < 5; round++) {
+            List<Pet> pets = new ArrayList<>();
+            for (long id = 1; id <= 500; id++) {
+                pets.add(pet(id).name("Pet" + id).breed(id == 42 ? "Corgi" : "Beagle")
+                        .description("Round " + round).build());
+            }
+            index.upsertAll(pets);
+        }
+        assertEquals(500, index.size());
+        assertArrayEquals(new long[] {42L}, index.search("corgi", 10));
+        assertEquals(10, index.search("beagle", 10).length);
+    }
+
+    @Test
+    public void testRebuildReadsInBatches() {
+        PetRepository repository = Mockito.mock(PetRepository.class);
+        Mockito.when(repository.findSearchRowsByAvailableTrueAndIdGreaterThanOrderByIdAsc(
+                ArgumentMatchers.eq(0L), ArgumentMatchers.any()))
+                .thenReturn(rows(pet(1L).name("Rex").breed("Beagle").build(),
+                        pet(2L).name("Tom").species("Cat").breed("Tabby").build()));
+        Mockito.when(repository.findSearchRowsByAvailableTrueAndIdGreaterThanOrderByIdAsc(
+                ArgumentMatchers.eq(2L), ArgumentMatchers.any()))
+                .thenReturn(rows(pet(5L).name("Rex").breed("Pug").build()));
+        Mockito.when(repository.findSearchRowsByAvailableTrueAndIdGreaterThanOrderByIdAsc(
+                ArgumentMatchers.eq(5L), ArgumentMatchers.any()))
+                .thenReturn(List.of());
+        PetSearchIndex index = new PetSearchIndex(repository, true, 2);
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new long[] {1L, 5L}, index.search("rex", 10));
+    }
+
+    private static List<PetSearchRow> rows(Pet... pets) {
+        return List.of(pets).stream().map(pet -> PROJECTIONS.createProjection(PetSearchRow.class, pet)).toList();
+    }
+}
@@ -0,0 +1,89 @@
+package petadoption.api.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static petadoption.api.pet.TestPets.pet;
+
+public class RatingEventLogTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private RatingEventLog eventLog;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        eventLog = new RatingEventLog(jdbcTemplate, eventPublisher, 2, 2, 10, 1);
+    }
+
+    @Test
+    public void testAppendFailsWhileTheDatabaseIsDown() {
+        failInserts();
+        for (long petId = 1; petId <= 4; petId++) {
+            // the third append moves the first batch aside to make room
+            eventLog.append(event(petId));
+        }
+
+        assertThrows(DataAccessResourceFailureException.class, () -> eventLog.append(event(5L)));
+        assertEquals(4, eventLog.queuedCount());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedBeforeNewerEvents() {
+        failInserts();
+        eventLog.append(event(1L));
+        eventLog.append(event(2L));
+        eventLog.flush();
+        eventLog.append(event(3L));
+
+        long[] nextId = {100};
+        doAnswer(invocation -> {
+            BatchPreparedStatementSetter rows = invocation.getArgument(1);
+            KeyHolder keys = invocation.getArgument(2);
+            for (int i = 0; i < rows.getBatchSize(); i++) {
+                keys.getKeyList().add(Map.of("EVENT_ID", nextId[0]++));
+            }
+            return new int[rows.getBatchSize()];
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        eventLog.flush();
+
+        // published once stored, in log order and with their IDs
+        ArgumentCaptor<RatingEvent> published = ArgumentCaptor.forClass(RatingEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(published.capture());
+        assertEquals(List.of(1L, 2L, 3L), published.getAllValues().stream().map(RatingEvent::getPetId).toList());
+        assertEquals(List.of(100L, 101L, 102L), published.getAllValues().stream().map(RatingEvent::getId).toList());
+        assertEquals(0, eventLog.queuedCount());
+    }
+
+    private void failInserts() {
+        doThrow(new DataAccessResourceFailureException("down")).when(jdbcTemplate).batchUpdate(
+                any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+    }
+
+    private static RatingEvent event(Long petId) {
+        return new RatingEvent(1L, pet(petId).build(), 5);
+    }
+}
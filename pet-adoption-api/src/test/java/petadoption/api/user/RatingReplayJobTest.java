@@ -0,0 +1,75 @@
+package petadoption.api.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import petadoption.api.cache.EntityCache;
+import petadoption.api.pet.Pet;
+import petadoption.api.recommendation.RecommendationCache;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static petadoption.api.pet.TestPets.pet;
+
+public class RatingReplayJobTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RatingEventLog eventLog;
+    private RatingReplayJob replayJob;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:replay" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE USERS (USER_ID BIGINT PRIMARY KEY, TARGET_AGE INT, TARGET_WEIGHT INT, "
+                + "PREFERRED_SPECIES VARCHAR(255), PREFERRED_GENDER VARCHAR(255), PREFERRED_BREED VARCHAR(255), "
+                + "PREFERRED_COAT_LENGTH VARCHAR(255), PREFERRED_HEALTH_STATUS VARCHAR(255), "
+                + "SPECIES_DISLIKE_COUNT INT, BREED_DISLIKE_COUNT INT)");
+        jdbcTemplate.execute("CREATE TABLE RATING_EVENTS (EVENT_ID BIGINT AUTO_INCREMENT PRIMARY KEY, USER_ID BIGINT, "
+                + "PET_ID BIGINT, RATING DOUBLE, PET_AGE INT, PET_WEIGHT INT, PET_SPECIES VARCHAR(255), "
+                + "PET_BREED VARCHAR(255), PET_GENDER VARCHAR(255), PET_COAT_LENGTH VARCHAR(255), "
+                + "PET_HEALTH_STATUS VARCHAR(255), RATED_AT TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, SPECIES_DISLIKE_COUNT, BREED_DISLIKE_COUNT) VALUES (1, 0, 0)");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, SPECIES_DISLIKE_COUNT, BREED_DISLIKE_COUNT) VALUES (2, 0, 0)");
+
+        eventLog = new RatingEventLog(jdbcTemplate, Mockito.mock(ApplicationEventPublisher.class), 2, 2, 0, 1);
+        EntityCache entityCache = Mockito.mock(EntityCache.class);
+        RatingWriteBehind writeBehind = new RatingWriteBehind(jdbcTemplate, entityCache, true, 10, 10);
+        replayJob = new RatingReplayJob(jdbcTemplate, eventLog, writeBehind,
+                new RecommendationCache(10, 10, 1, true, 10, 2, 10), entityCache, 1);
+    }
+
+    @Test
+    public void testReplayMatchesLiveRatingRules() {
+        Pet dog = pet(1L).species("Dog").breed("Beagle").age(2).weight(20).build();
+        Pet cat = pet(2L).species("Cat").breed("Siamese").age(8).weight(10).build();
+        double[] ratings = {5, 1, 1, 1, 2};
+        Pet[] pets = {dog, dog, dog, dog, cat};
+
+        // what updatePreferencesAfterRating does live, one rating at a time
+        User expected = new User();
+        for (int i = 0; i < ratings.length; i++) {
+            UserService.learnFromRating(expected, pets[i], ratings[i]);
+            eventLog.append(new RatingEvent(1L, pets[i], ratings[i]));
+        }
+        eventLog.append(new RatingEvent(2L, cat, 5));
+
+        Map<String, Object> result = replayJob.replayAll();
+        assertEquals(2L, result.get("users"));
+        assertEquals(6L, result.get("events"));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM USERS WHERE USER_ID = 1");
+        assertEquals(expected.getTargetAge(), row.get("TARGET_AGE"));
+        assertEquals(expected.getTargetWeight(), row.get("TARGET_WEIGHT"));
+        assertEquals(expected.getPreferredSpecies(), row.get("PREFERRED_SPECIES"));
+        assertEquals(expected.getPreferredBreed(), row.get("PREFERRED_BREED"));
+        assertEquals(expected.getSpeciesDislikeCount(), row.get("SPECIES_DISLIKE_COUNT"));
+        assertEquals("Cat", jdbcTemplate.queryForObject(
+                "SELECT PREFERRED_SPECIES FROM USERS WHERE USER_ID = 2", String.class));
+    }
+}
@@ -0,0 +1,77 @@
+package petadoption.api.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import petadoption.api.cache.EntityCache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class RatingWriteBehindTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RatingWriteBehind writeBehind;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        writeBehind = new RatingWriteBehind(jdbcTemplate, Mockito.mock(EntityCache.class), true, 1, 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRatingsForOneUserAreCoalescedIntoOneRow() {
+        User user = user(1L);
+        assertTrue(writeBehind.update(user, u -> u.setTargetAge(4)));
+        assertTrue(writeBehind.update(user, u -> u.setPreferredSpecies("Cat")));
+        assertEquals(1, writeBehind.pendingCount());
+
+        // a freshly loaded copy sees both pending changes
+        User reloaded = writeBehind.applyPending(user(1L));
+        assertEquals(4, reloaded.getTargetAge());
+        assertEquals("Cat", reloaded.getPreferredSpecies());
+
+        writeBehind.flush();
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(1L, rows.getValue().get(0)[9]);
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    public void testFullBufferFallsBackToTheCaller() {
+        assertTrue(writeBehind.update(user(1L), u -> u.setTargetAge(4)));
+        assertFalse(writeBehind.update(user(2L), u -> u.setTargetAge(4)));
+        // the user already buffered can still be updated
+        assertTrue(writeBehind.update(user(1L), u -> u.setTargetAge(5)));
+    }
+
+    @Test
+    public void testDiscardDropsPendingChanges() {
+        writeBehind.update(user(1L), u -> u.setTargetAge(4));
+        writeBehind.discard(1L);
+        writeBehind.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(3, writeBehind.applyPending(user(1L)).getTargetAge());
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setTargetAge(3);
+        user.setPreferredSpecies("Dog");
+        return user;
+    }
+}
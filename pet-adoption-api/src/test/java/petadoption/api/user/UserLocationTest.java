@@ -0,0 +1,69 @@
+package petadoption.api.user;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import petadoption.api.cache.EntityCache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class UserLocationTest {
+
+    @Test
+    public void testParsesCityAndState() {
+        assertEquals(new UserLocation("austin", "TX", null), UserLocation.parse("Austin, tx"));
+        assertEquals(new UserLocation("new york", "NEW YORK", "10001"),
+                UserLocation.parse("1 Main St,  New   York , New York 10001-1234"));
+    }
+
+    @Test
+    public void testUnparseableAddressHasNoLocation() {
+        UserLocation coordinates = UserLocation.parse("40.7128, -74.0060");
+        assertNull(coordinates.state());
+        assertEquals(UserLocation.NONE, UserLocation.parse(" "));
+        assertEquals(new UserLocation(null, "TX", null), UserLocation.parse("TX"));
+    }
+
+    @Test
+    public void testLocationIsUpdatedOnSave() {
+        User shelter = new User();
+        shelter.setAddress("Waco, TX 76701");
+        shelter.updateLocation();
+        assertEquals("waco", shelter.getCity());
+        assertEquals("TX", shelter.getState());
+        assertEquals("76701", shelter.getPostalCode());
+    }
+
+    @Test
+    public void testBackfillParsesAddressesSavedBeforeTheColumns() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:location" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE USERS (USER_ID BIGINT PRIMARY KEY, ADDRESS VARCHAR(255), "
+                + "CITY VARCHAR(255), STATE VARCHAR(255), POSTAL_CODE VARCHAR(10))");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, ADDRESS) VALUES (1, 'Waco, TX 76701')");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, ADDRESS) VALUES (2, ' ')");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, ADDRESS) VALUES (3, NULL)");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, ADDRESS) VALUES (4, '12 Elm St, Austin, tx')");
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, ADDRESS, CITY) VALUES (5, 'Dallas, TX', 'plano')");
+        EntityCache entityCache = Mockito.mock(EntityCache.class);
+        // a batch of one pages past the user without a location
+        UserLocationBackfill backfill = new UserLocationBackfill(jdbcTemplate, entityCache, 1);
+
+        assertEquals(2, backfill.backfill());
+        assertEquals(0, backfill.backfill());
+        Mockito.verify(entityCache, Mockito.times(1)).invalidateAllUsers();
+        List<List<Object>> locations = jdbcTemplate.query("SELECT CITY, STATE, POSTAL_CODE FROM USERS ORDER BY USER_ID",
+                (rs, rowNum) -> Arrays.asList(rs.getObject(1), rs.getObject(2), rs.getObject(3)));
+        assertEquals(List.of(
+                Arrays.asList("waco", "TX", "76701"),
+                Arrays.asList(null, null, null),
+                Arrays.asList(null, null, null),
+                Arrays.asList("austin", "TX", null),
+                Arrays.asList("plano", null, null)), locations);
+    }
+}
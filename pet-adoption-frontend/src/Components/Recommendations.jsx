@@ -19,7 +19,6 @@ export default function Recommendations({ userId, refreshKey, onRatePet }) {
   const BACKEND = process.env.NEXT_PUBLIC_BACKEND_URL || "http://35.225.196.242:8080";
   const [pets, setPets] = useState([]);
   const [currentIndex, setCurrentIndex] = useState(0);
-  const seenIdsRef = useRef(new Set());
   const [user, setUser] = useState(null);
   useEffect(() => {
     const s = sessionStorage.getItem("user");
@@ -42,31 +41,51 @@ export default function Recommendations({ userId, refreshKey, onRatePet }) {
   const [error, setError] = useState(null);
 
 
-  const fetchRecommendations = useCallback(async () => {
-    if (!userId) return;
-    const backendUrl =
-      process.env.NEXT_PUBLIC_BACKEND_URL || "http://35.225.196.242:8080";
+  // server-side swipe session; it remembers which pets were already rated
+  const sessionIdRef = useRef(null);
+  const [nextCursor, setNextCursor] = useState(null);
+
+  const authHeaders = () => {
     const token = localStorage.getItem("jwtToken");
-    const headers = token
+    return token
       ? { Authorization: `Bearer ${token}`, "Content-Type": "application/json" }
       : { "Content-Type": "application/json" };
+  };
 
-    let url = `${backendUrl}/api/recommendations/${userId}`;
-    if (seenIdsRef.current.size) {
-      const excludeParam = Array.from(seenIdsRef.current).join(",");
-      url += `?exclude=${excludeParam}`;
-    }
+  const fetchRecommendations = useCallback(async (cursor = null) => {
+    if (!userId) return;
+    const backendUrl =
+      process.env.NEXT_PUBLIC_BACKEND_URL || "http://35.225.196.242:8080";
+    const base = `${backendUrl}/api/recommendations/${userId}/sessions`;
 
     try {
-      const res = await fetch(url, { headers });
+      let res;
+      if (sessionIdRef.current) {
+        const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : "";
+        res = await fetch(`${base}/${sessionIdRef.current}${query}`, { headers: authHeaders() });
+        if (res.status === 404) {
+          // session expired, start a fresh one
+          sessionIdRef.current = null;
+          cursor = null;
+        }
+      }
+      if (!sessionIdRef.current) {
+        res = await fetch(base, { method: "POST", headers: authHeaders() });
+      }
       if (!res.ok) {
         console.error("Failed to fetch recs:", res.status);
         if (res.status === 401) console.log("Unauthorized - please log in.");
         return;
       }
       const data = await res.json();
-      setPets(data);
-      setCurrentIndex(0);
+      sessionIdRef.current = data.sessionId;
+      setNextCursor(data.nextCursor);
+      if (cursor) {
+        setPets((prev) => [...prev, ...data.pets]);
+      } else {
+        setPets(data.pets);
+        setCurrentIndex(0);
+      }
     } catch (err) {
       console.error("Error fetching recs:", err);
     }
@@ -76,8 +95,12 @@ export default function Recommendations({ userId, refreshKey, onRatePet }) {
     fetchRecommendations();
   }, [fetchRecommendations, refreshKey]);
 
-  const handleNext = () =>
+  const handleNext = () => {
+    if (nextCursor && currentIndex === pets.length - 2) {
+      fetchRecommendations(nextCursor);
+    }
     setCurrentIndex((i) => (pets.length ? (i + 1) % pets.length : 0));
+  };
   const handlePrev = () =>
     setCurrentIndex((i) =>
       pets.length ? (i - 1 + pets.length) % pets.length : 0
@@ -89,7 +112,15 @@ export default function Recommendations({ userId, refreshKey, onRatePet }) {
     if (!currentPet || rating == null) return;
 
     await onRatePet(currentPet.id, rating);
-    seenIdsRef.current.add(currentPet.id);
+    if (sessionIdRef.current) {
+      const backendUrl =
+        process.env.NEXT_PUBLIC_BACKEND_URL || "http://35.225.196.242:8080";
+      await fetch(
+        `${backendUrl}/api/recommendations/${userId}/sessions/${sessionIdRef.current}/seen`,
+        { method: "POST", headers: authHeaders(), body: JSON.stringify([currentPet.id]) }
+      );
+    }
+    // the rating changed the user's preferences, so rank again from the top
     fetchRecommendations();
   };
 